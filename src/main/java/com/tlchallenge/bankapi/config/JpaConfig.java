@@ -0,0 +1,46 @@
+package com.tlchallenge.bankapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class JpaConfig {
+
+    /**
+     * Agrupar inserts y updates en lotes JDBC; funciona porque los ids salen de secuencias pooled.
+     * Los valores explícitos de spring.jpa.properties mandan
+     */
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer(@Value("${bankapi.jpa.batch-size:50}") int batchSize) {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+        };
+    }
+
+    /**
+     * Permitir que pgjdbc reescriba los INSERT en lote como INSERT de varias filas
+     */
+    @Bean
+    public static BeanPostProcessor batchedInsertsDataSourcePostProcessor(Environment environment) {
+        boolean rewriteBatchedInserts = environment.getProperty(
+                "bankapi.datasource.rewrite-batched-inserts", Boolean.class, true);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (rewriteBatchedInserts && bean instanceof HikariDataSource dataSource) {
+                    dataSource.addDataSourceProperty("reWriteBatchedInserts", true);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.tlchallenge.bankapi.config;
+
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import jakarta.persistence.OptimisticLockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+@Configuration
+public class ResilienceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilienceConfig.class);
+
+    public static final String TRANSFER_SERVICE_RETRY = "transfer-service";
+
+    /**
+     * Crear el reintento transfer-service: solo repite conflictos de bloqueo optimista, con backoff
+     * exponencial y jitter. Manda bankapi.transfer.retry.*; si resilience4j ya creó la instancia, se reemplaza
+     */
+    @Bean
+    public Retry transferServiceRetry(
+            RetryRegistry retryRegistry,
+            @Value("${bankapi.transfer.retry.max-attempts:3}") int maxAttempts,
+            @Value("${bankapi.transfer.retry.initial-interval-ms:20}") long initialIntervalMs,
+            @Value("${bankapi.transfer.retry.multiplier:2.0}") double multiplier,
+            @Value("${bankapi.transfer.retry.randomization-factor:0.5}") double randomizationFactor) {
+        RetryConfig config = RetryConfig.custom()
+                .maxAttempts(maxAttempts)
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(
+                        initialIntervalMs, multiplier, randomizationFactor))
+                .retryExceptions(OptimisticLockingFailureException.class, OptimisticLockException.class)
+                .build();
+
+        Retry retry = retryRegistry.retry(TRANSFER_SERVICE_RETRY, config);
+        if (retry.getRetryConfig() != config) {
+            log.warn("Ignoring resilience4j.retry.instances.{}: the retry is configured with bankapi.transfer.retry.*",
+                    TRANSFER_SERVICE_RETRY);
+            retry = Retry.of(TRANSFER_SERVICE_RETRY, config);
+            retryRegistry.replace(TRANSFER_SERVICE_RETRY, retry);
+        }
+        return retry;
+    }
+}
@@ -2,15 +2,21 @@ package com.tlchallenge.bankapi.controller;
 
 import com.tlchallenge.bankapi.model.Account;
 import com.tlchallenge.bankapi.model.dto.AccountDto;
+import com.tlchallenge.bankapi.model.dto.AccountView;
+import com.tlchallenge.bankapi.model.dto.CursorPage;
+import com.tlchallenge.bankapi.model.dto.DailySummary;
 import com.tlchallenge.bankapi.service.AccountService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,11 +30,33 @@ public class AccountController {
     private AccountService accountService;
 
     @GetMapping("/{id}")
-    public ResponseEntity<Optional<Account>> getAccount(@PathVariable Long id) {
+    public ResponseEntity<Optional<AccountView>> getAccount(@PathVariable Long id) {
         logger.info("Fetching account with id={}", id);
-        Optional<Account> account = accountService.getAccountById(id);
+        Optional<AccountView> account = accountService.getAccountById(id);
 
-        return ResponseEntity.ok(account);
+        if (account.isEmpty()) {
+            return ResponseEntity.ok(account);
+        }
+        // A request whose If-None-Match matches the ETag gets a 304 without the body being serialized
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(eTag(account.get())).body(account);
+    }
+
+    @GetMapping("/by-number/{accountNumber}")
+    public ResponseEntity<AccountView> getAccountByNumber(@PathVariable String accountNumber) {
+        logger.info("Fetching account with number={}", accountNumber);
+        AccountView account = accountService.getAccountByNumber(accountNumber);
+
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(eTag(account)).body(account);
+    }
+
+    @GetMapping("/{id}/daily-summary")
+    public ResponseEntity<List<DailySummary>> getDailySummary(@PathVariable Long id,
+                                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        logger.info("Fetching daily summary for account id={} from {} to {}", id, from, to);
+        List<DailySummary> summary = accountService.getDailySummary(id, from, to);
+
+        return ResponseEntity.ok(summary);
     }
 
     @PostMapping
@@ -49,6 +77,14 @@ public class AccountController {
         return ResponseEntity.ok(updatedAccount);
     }
 
+    @PutMapping("/{id}/balance-slots")
+    public ResponseEntity<Account> configureBalanceSlots(@PathVariable Long id, @RequestParam int slots) {
+        logger.info("Configuring {} balance slots for account id={}", slots, id);
+        Account account = accountService.configureBalanceSlots(id, slots);
+
+        return ResponseEntity.ok(account);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteAccount(@PathVariable Long id) {
         logger.info("Deleting account with id={}", id);
@@ -66,11 +102,25 @@ public class AccountController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Account>> getAllAccounts() {
-        logger.info("Fetching all accounts");
-        List<Account> accounts = accountService.getAllAccounts();
-        logger.debug("Number of accounts retrieved: {}", accounts.size());
+    public ResponseEntity<CursorPage<AccountView>> getAccounts(@RequestParam(required = false) Long after,
+                                                           @RequestParam(defaultValue = "100") int limit) {
+        logger.info("Fetching accounts after id={} (limit={})", after, limit);
+        CursorPage<AccountView> page = accountService.getAccounts(after, limit);
+        logger.debug("Number of accounts retrieved: {}", page.getItems().size());
 
-        return ResponseEntity.ok(accounts);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * ETag de una cuenta: cambia con su versión, que se incrementa con cada cambio de la fila
+     * (actualizaciones y transferencias). Los créditos a los slots no tocan la fila, así que en las
+     * cuentas con slots también incluye el saldo de los slots.
+     */
+    static String eTag(AccountView account) {
+        String tag = account.id() + "-" + account.version();
+        if (account.balanceSlots() > 0) {
+            tag += "-" + account.slotBalance().stripTrailingZeros().toPlainString();
+        }
+        return "\"" + tag + "\"";
     }
-}
\ No newline at end of file
+}
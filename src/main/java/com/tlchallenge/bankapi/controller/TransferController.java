@@ -1,19 +1,40 @@
 package com.tlchallenge.bankapi.controller;
 
+import com.tlchallenge.bankapi.exception.AccountNotFoundException;
 import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.dto.AccountStatementPage;
+import com.tlchallenge.bankapi.model.dto.CursorPage;
+import com.tlchallenge.bankapi.model.dto.TransferBatchDto;
+import com.tlchallenge.bankapi.model.dto.TransferBatchItemResult;
+import com.tlchallenge.bankapi.model.dto.TransferByNumberDto;
 import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.model.dto.TransferView;
 import com.tlchallenge.bankapi.service.TransferService;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import com.tlchallenge.bankapi.service.impl.AccountNumberIndex;
+import com.tlchallenge.bankapi.service.impl.TransferExportService;
+import com.tlchallenge.bankapi.service.impl.TransferGroupCommitter;
+import com.tlchallenge.bankapi.service.impl.TransferIdempotencyService;
+import com.tlchallenge.bankapi.service.impl.TransferSubmissionQueue;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/transfers")
@@ -21,36 +42,161 @@ public class TransferController {
 
     private static final Logger log = LoggerFactory.getLogger(TransferController.class);
 
+    static final String NDJSON = "application/x-ndjson";
+
+    // A transfer in one of these statuses never changes again, so clients may keep it for good
+    static final Set<String> FINAL_STATUSES = Set.of("COMPLETED", "REJECTED", "FAILED");
+
+    private static final CacheControl FINAL_CACHE_CONTROL =
+            CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable();
+
     @Autowired
     private TransferService transferService;
 
+    @Autowired
+    private TransferIdempotencyService transferIdempotencyService;
+
+    @Autowired
+    private TransferGroupCommitter transferGroupCommitter;
+
+    @Autowired
+    private TransferExportService transferExportService;
+
+    @Autowired
+    private AccountNumberIndex accountNumberIndex;
+
+    @Autowired
+    private TransferSubmissionQueue transferSubmissionQueue;
+
     @GetMapping("/{id}")
-    public ResponseEntity<Transfer> getTransfer(@PathVariable Long id) {
+    public ResponseEntity<TransferView> getTransfer(@PathVariable Long id) {
         log.info("Fetching transfer with id={}", id);
-        Optional<Transfer> transfer = transferService.getTransferById(id);
-        return transfer.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+        Optional<TransferView> transfer = transferService.getTransferById(id);
+        return transfer.map(view -> ResponseEntity.ok()
+                        .cacheControl(FINAL_STATUSES.contains(view.status()) ? FINAL_CACHE_CONTROL : CacheControl.noCache())
+                        .eTag(eTag(view))
+                        .body(view))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * ETag de una transferencia: solo su estado puede cambiar (PENDING a un estado final)
+     */
+    static String eTag(TransferView transfer) {
+        return "\"" + transfer.id() + "-" + transfer.status() + "\"";
     }
 
     @PostMapping
-    @RateLimiter(name = "transfer-api")
-    public ResponseEntity<Transfer> createTransfer(@Valid @RequestBody TransferDto transferDto) {
+    public ResponseEntity<Transfer> createTransfer(@Valid @RequestBody TransferDto transferDto,
+                                                   @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         log.info("Creating transfer: {}", transferDto);
 
-        Transfer createdTransfer = transferService.createTransfer(transferDto);
+        return ResponseEntity.status(HttpStatus.CREATED).body(submit(transferDto, idempotencyKey));
+    }
+
+    /**
+     * Crear una transferencia sin ocupar el hilo de la petición: se encola y la respuesta llega cuando un
+     * worker la ejecuta. Con la cola llena responde 429 con Retry-After al momento
+     */
+    @PostMapping("/async")
+    public CompletableFuture<ResponseEntity<Transfer>> createTransferAsync(@Valid @RequestBody TransferDto transferDto,
+                                                                          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        log.info("Queueing transfer: {}", transferDto);
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdTransfer);
+        return transferSubmissionQueue.submit(() -> submit(transferDto, idempotencyKey))
+                .thenApply(transfer -> ResponseEntity.status(HttpStatus.CREATED).body(transfer));
+    }
+
+    @PostMapping("/by-number")
+    public ResponseEntity<Transfer> createTransferByNumber(@Valid @RequestBody TransferByNumberDto transferDto,
+                                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        log.info("Creating transfer from account number={} to account number={}",
+                transferDto.getFromAccountNumber(), transferDto.getToAccountNumber());
+
+        TransferDto resolved = new TransferDto();
+        resolved.setFromAccountId(resolveAccountIdForWrite(transferDto.getFromAccountNumber()));
+        resolved.setToAccountId(resolveAccountIdForWrite(transferDto.getToAccountNumber()));
+        resolved.setAmount(transferDto.getAmount());
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(submit(resolved, idempotencyKey));
+    }
+
+    private Transfer submit(TransferDto transferDto, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            return transferIdempotencyService.createTransfer(idempotencyKey, transferDto);
+        } else if (transferGroupCommitter.isEnabled()) {
+            return transferGroupCommitter.createTransfer(transferDto);
+        }
+        return transferService.createTransfer(transferDto);
+    }
+
+    private Long resolveAccountId(String accountNumber) {
+        return accountNumberIndex.resolve(accountNumber).orElseThrow(() -> new AccountNotFoundException(accountNumber));
+    }
+
+    private Long resolveAccountIdForWrite(String accountNumber) {
+        // Money moves on this id, so it is read from the database rather than from a possibly stale index entry
+        return accountNumberIndex.resolveForWrite(accountNumber).orElseThrow(() -> new AccountNotFoundException(accountNumber));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<TransferBatchItemResult>> createTransfers(@Valid @RequestBody TransferBatchDto batchDto) {
+        log.info("Creating batch of {} transfers", batchDto.getTransfers().size());
+
+        List<TransferBatchItemResult> results = transferService.createTransfers(batchDto.getTransfers());
+
+        return ResponseEntity.ok(results);
     }
 
     @GetMapping
-    public ResponseEntity<List<Transfer>> getAllTransfers() {
-        List<Transfer> transfers = transferService.getAllTransfers();
-        return ResponseEntity.ok(transfers);
+    public ResponseEntity<CursorPage<TransferView>> getTransfers(@RequestParam(required = false) Long after,
+                                                             @RequestParam(defaultValue = "100") int limit) {
+        CursorPage<TransferView> page = transferService.getTransfers(after, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/export")
+    public void exportTransfers(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                HttpServletResponse response) throws IOException {
+        log.info("Exporting transfers between {} and {}", from, to);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        response.setContentType(NDJSON);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            try (GZIPOutputStream out = new GZIPOutputStream(response.getOutputStream(), 64 * 1024)) {
+                transferExportService.export(from, to, out);
+            }
+        } else {
+            transferExportService.export(from, to, response.getOutputStream());
+        }
+    }
+
+    @GetMapping("/account/by-number/{accountNumber}/statement")
+    public ResponseEntity<AccountStatementPage> getAccountStatementByNumber(@PathVariable String accountNumber,
+                                                                            @RequestParam(required = false) String cursor,
+                                                                            @RequestParam(defaultValue = "100") int limit) {
+        log.info("Fetching statement for account number={} (cursor={}, limit={})", accountNumber, cursor, limit);
+        AccountStatementPage page = transferService.getAccountStatement(resolveAccountId(accountNumber), cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/account/{accountId}/statement")
+    public ResponseEntity<AccountStatementPage> getAccountStatement(@PathVariable Long accountId,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(defaultValue = "100") int limit) {
+        log.info("Fetching statement for account id={} (cursor={}, limit={})", accountId, cursor, limit);
+        AccountStatementPage page = transferService.getAccountStatement(accountId, cursor, limit);
+        return ResponseEntity.ok(page);
     }
 
     @GetMapping("/account/{accountId}")
-    public ResponseEntity<List<Transfer>> getTransfersByFromAccountId(@PathVariable Long accountId) {
+    public ResponseEntity<List<TransferView>> getTransfersByFromAccountId(@PathVariable Long accountId) {
         log.info("Fetching transfers for account id={}", accountId);
-        List<Transfer> transfers = transferService.getTransfersByFromAccountId(accountId);
+        List<TransferView> transfers = transferService.getTransfersByFromAccountId(accountId);
         return ResponseEntity.ok(transfers);
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.tlchallenge.bankapi.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Modo de hilos virtuales ({@code spring.threads.virtual.enabled=true}). Tomcat y los schedulers de Spring
+ * corren entonces en hilos virtuales, así que nada limita cuántas peticiones llegan a la vez al pool de
+ * conexiones. Cada pool de Hikari se envuelve en un {@link ConnectionAdmissionDataSource} con un permiso por
+ * conexión del pool y el connection timeout del pool: el exceso espera en la aplicación, por orden de llegada,
+ * y Hikari nunca ve más peticionarios que conexiones.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class ConnectionAdmissionConfig {
+
+    static final String WAITING_METRIC = "bankapi.datasource.admission.waiting";
+    static final String IN_USE_METRIC = "bankapi.datasource.admission.in.use";
+
+    @Bean
+    public static BeanPostProcessor connectionAdmissionPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool) {
+                    return new ConnectionAdmissionDataSource(pool.getPoolName() != null ? pool.getPoolName() : beanName,
+                            pool, pool.getMaximumPoolSize(), pool.getConnectionTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder connectionAdmissionMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+                .filter(ConnectionAdmissionDataSource.class::isInstance)
+                .map(ConnectionAdmissionDataSource.class::cast)
+                .forEach(guard -> {
+                    Gauge.builder(WAITING_METRIC, guard, ConnectionAdmissionDataSource::getWaiting)
+                            .description("Threads queued for a database connection permit")
+                            .tag("pool", guard.getName())
+                            .register(registry);
+                    Gauge.builder(IN_USE_METRIC, guard, ConnectionAdmissionDataSource::getInUse)
+                            .description("Database connection permits in use")
+                            .tag("pool", guard.getName())
+                            .register(registry);
+                });
+    }
+}
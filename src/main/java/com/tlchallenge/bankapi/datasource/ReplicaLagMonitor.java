@@ -0,0 +1,97 @@
+package com.tlchallenge.bankapi.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Mide periódicamente el retraso de replicación de la réplica de lectura. Si supera
+ * {@code bankapi.datasource.replica.max-lag-ms}, o si la réplica no responde, las lecturas vuelven
+ * al primario hasta la siguiente medición correcta.
+ */
+@Component
+@ConditionalOnProperty(name = "bankapi.datasource.replica.url")
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    public static final String LAG_METRIC = "bankapi.datasource.replica.lag";
+    public static final String IN_USE_METRIC = "bankapi.datasource.replica.in.use";
+
+    // An idle primary sends no new transactions, so a replica that has replayed everything it received is not behind
+    private static final String LAG_QUERY = """
+            SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 AS bigint), 0)
+                   END
+            """;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bankapi.datasource.replica.max-lag-ms:5000}")
+    private long maxLagMs = 5000;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile long lagMs = -1;
+    private volatile boolean replicaUsable;
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate = new JdbcTemplate(replicaDataSource);
+
+        Gauge.builder(LAG_METRIC, this, monitor -> monitor.lagMs < 0 ? -1 : monitor.lagMs / 1000.0)
+                .description("Replication lag of the read replica; -1 when it could not be measured")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder(IN_USE_METRIC, this, monitor -> monitor.replicaUsable ? 1 : 0)
+                .description("1 while read-only transactions go to the replica, 0 while they fall back to the primary")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    /**
+     * Medir el retraso de la réplica y decidir si las lecturas pueden ir a ella
+     */
+    @Scheduled(fixedDelayString = "${bankapi.datasource.replica.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        boolean usable;
+        try {
+            Long lag = jdbcTemplate.queryForObject(LAG_QUERY, Long.class);
+            lagMs = lag != null ? lag : 0;
+            usable = lagMs <= maxLagMs;
+        } catch (DataAccessException e) {
+            lagMs = -1;
+            usable = false;
+            log.debug("Could not measure replica lag", e);
+        }
+
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Read replica is {} ms behind; routing read-only transactions to it", lagMs);
+            } else {
+                log.warn("Read replica unavailable or {} ms behind (limit {} ms); reads fall back to the primary", lagMs, maxLagMs);
+            }
+        }
+        replicaUsable = usable;
+    }
+}
@@ -0,0 +1,15 @@
+package com.tlchallenge.bankapi.exception;
+
+public class AccountBusyException extends RuntimeException {
+
+    private final Long accountId;
+
+    public AccountBusyException(Long accountId) {
+        super(String.format("Account %d has too many transfers in progress, retry later", accountId));
+        this.accountId = accountId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+}
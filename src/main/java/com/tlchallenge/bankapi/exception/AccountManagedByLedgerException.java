@@ -0,0 +1,15 @@
+package com.tlchallenge.bankapi.exception;
+
+public class AccountManagedByLedgerException extends RuntimeException {
+
+    private final Long accountId;
+
+    public AccountManagedByLedgerException(Long accountId, String message) {
+        super(message);
+        this.accountId = accountId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+}
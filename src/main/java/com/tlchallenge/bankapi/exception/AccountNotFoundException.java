@@ -2,13 +2,25 @@ package com.tlchallenge.bankapi.exception;
 
 public class AccountNotFoundException extends RuntimeException {
     private final Long accountId;
+    private final String accountNumber;
 
     public AccountNotFoundException(Long accountId) {
         super("Account with ID " + accountId + " not found");
         this.accountId = accountId;
+        this.accountNumber = null;
+    }
+
+    public AccountNotFoundException(String accountNumber) {
+        super("Account with number " + accountNumber + " not found");
+        this.accountId = null;
+        this.accountNumber = accountNumber;
     }
 
     public Long getAccountId() {
         return accountId;
     }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
 }
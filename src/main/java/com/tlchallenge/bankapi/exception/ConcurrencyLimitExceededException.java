@@ -0,0 +1,21 @@
+package com.tlchallenge.bankapi.exception;
+
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private final String limiter;
+    private final int limit;
+
+    public ConcurrencyLimitExceededException(String limiter, int limit) {
+        super(String.format("Too many concurrent %s requests (limit %d), retry later", limiter, limit));
+        this.limiter = limiter;
+        this.limit = limit;
+    }
+
+    public String getLimiter() {
+        return limiter;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
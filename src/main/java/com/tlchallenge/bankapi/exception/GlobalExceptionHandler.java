@@ -3,13 +3,17 @@ package com.tlchallenge.bankapi.exception;
 import com.tlchallenge.bankapi.model.ErrorResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -64,15 +68,20 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(AccountNotFoundException.class)
     public ResponseEntity<Map<String, Object>> handleAccountNotFound(AccountNotFoundException ex) {
-        log.warn("Account not found: {}", ex.getAccountId());
+        log.warn(ex.getMessage());
 
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+        Map<String, Object> body = new LinkedHashMap<>(Map.of(
                 "timestamp", LocalDateTime.now(),
                 "status", HttpStatus.NOT_FOUND.value(),
                 "error", "Account Not Found",
-                "message", ex.getMessage(),
-                "accountId", ex.getAccountId()
+                "message", ex.getMessage()
         ));
+        if (ex.getAccountNumber() != null) {
+            body.put("accountNumber", ex.getAccountNumber());
+        } else {
+            body.put("accountId", ex.getAccountId());
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
     }
 
     @ExceptionHandler(InvalidAccountDataException.class)
@@ -87,5 +96,141 @@ public class GlobalExceptionHandler {
                 "field", ex.getField()
         ));
     }
-}
 
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex) {
+        log.warn("Concurrent modification: entity={}, id={}", ex.getPersistentClassName(), ex.getIdentifier());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "timestamp", LocalDateTime.now(),
+                "status", HttpStatus.CONFLICT.value(),
+                "error", "Concurrent Modification",
+                "message", "The resource was modified by another request, reload it and try again",
+                "id", String.valueOf(ex.getIdentifier())
+        ));
+    }
+
+    @ExceptionHandler(AccountManagedByLedgerException.class)
+    public ResponseEntity<Map<String, Object>> handleAccountManagedByLedger(AccountManagedByLedgerException ex) {
+        log.warn("Account write rejected by the ledger engine: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "timestamp", LocalDateTime.now(),
+                "status", HttpStatus.CONFLICT.value(),
+                "error", "Account Managed By Ledger",
+                "message", ex.getMessage(),
+                "accountId", ex.getAccountId()
+        ));
+    }
+
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidIdempotencyKey(InvalidIdempotencyKeyException ex) {
+        log.warn("Invalid idempotency key: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "timestamp", LocalDateTime.now(),
+                "status", HttpStatus.BAD_REQUEST.value(),
+                "error", "Invalid Idempotency Key",
+                "message", ex.getMessage()
+        ));
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidCursor(InvalidCursorException ex) {
+        log.warn(ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "timestamp", LocalDateTime.now(),
+                "status", HttpStatus.BAD_REQUEST.value(),
+                "error", "Invalid Cursor",
+                "message", ex.getMessage()
+        ));
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+        log.warn("Idempotency key reused with a different request: {}", ex.getIdempotencyKey());
+
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of(
+                "timestamp", LocalDateTime.now(),
+                "status", HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                "error", "Idempotency Key Reused",
+                "message", ex.getMessage(),
+                "idempotencyKey", ex.getIdempotencyKey()
+        ));
+    }
+
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyInProgress(IdempotencyKeyInProgressException ex) {
+        log.warn(ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                        "timestamp", LocalDateTime.now(),
+                        "status", HttpStatus.CONFLICT.value(),
+                        "error", "Idempotency Key In Progress",
+                        "message", ex.getMessage(),
+                        "idempotencyKey", ex.getIdempotencyKey()
+                ));
+    }
+
+    @ExceptionHandler(TransferQueueFullException.class)
+    public ResponseEntity<Map<String, Object>> handleTransferQueueFull(TransferQueueFullException ex) {
+        log.warn(ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of(
+                        "timestamp", LocalDateTime.now(),
+                        "status", HttpStatus.TOO_MANY_REQUESTS.value(),
+                        "error", "Too Many Requests",
+                        "message", ex.getMessage()
+                ));
+    }
+
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<Map<String, Object>> handleAsyncRequestTimeout(AsyncRequestTimeoutException ex) {
+        log.warn("Async request timed out before its transfer finished");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                        "timestamp", LocalDateTime.now(),
+                        "status", HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        "error", "Service Unavailable",
+                        "message", "The transfer did not finish in time and may still be applied; "
+                                + "retry with the same Idempotency-Key"
+                ));
+    }
+
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleConcurrencyLimitExceeded(ConcurrencyLimitExceededException ex) {
+        log.warn(ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                        "timestamp", LocalDateTime.now(),
+                        "status", HttpStatus.TOO_MANY_REQUESTS.value(),
+                        "error", "Too Many Requests",
+                        "message", ex.getMessage(),
+                        "limit", ex.getLimit()
+                ));
+    }
+
+    @ExceptionHandler(AccountBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleAccountBusy(AccountBusyException ex) {
+        log.warn(ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                        "timestamp", LocalDateTime.now(),
+                        "status", HttpStatus.TOO_MANY_REQUESTS.value(),
+                        "error", "Account Busy",
+                        "message", ex.getMessage(),
+                        "accountId", ex.getAccountId()
+                ));
+    }
+}
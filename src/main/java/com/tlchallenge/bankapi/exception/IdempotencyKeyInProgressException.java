@@ -0,0 +1,15 @@
+package com.tlchallenge.bankapi.exception;
+
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+    private final String idempotencyKey;
+
+    public IdempotencyKeyInProgressException(String idempotencyKey) {
+        super(String.format("A request with idempotency key %s is still in progress, retry later", idempotencyKey));
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
@@ -0,0 +1,15 @@
+package com.tlchallenge.bankapi.exception;
+
+public class TransferQueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TransferQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,75 @@
+package com.tlchallenge.bankapi.ledger;
+
+import com.tlchallenge.bankapi.model.Transfer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.CRC32;
+
+/**
+ * Registro del journal: una transferencia decidida por el ledger con su posición en el journal. Se
+ * serializa como una línea de texto terminada en un CRC32, para detectar una cola cortada al recuperar
+ */
+public class LedgerEntry {
+
+    private static final char SEPARATOR = ';';
+
+    private final long seq;
+    private final Transfer transfer;
+
+    // Constructors
+    public LedgerEntry(long seq, Transfer transfer) {
+        this.seq = seq;
+        this.transfer = transfer;
+    }
+
+    // Getters
+    public long getSeq() {
+        return seq;
+    }
+
+    public Transfer getTransfer() {
+        return transfer;
+    }
+
+    public String toLine() {
+        String body = seq + ";" + transfer.getId() + ";" + transfer.getFromAccountId() + ";"
+                + transfer.getToAccountId() + ";" + transfer.getAmount().toPlainString() + ";"
+                + transfer.getStatus() + ";" + transfer.getTransferDate();
+        return body + SEPARATOR + Long.toHexString(checksum(body)) + "\n";
+    }
+
+    /**
+     * Leer una línea del journal; devuelve null si está incompleta o su checksum no coincide
+     */
+    public static LedgerEntry fromLine(String line) {
+        int crcStart = line.lastIndexOf(SEPARATOR);
+        if (crcStart < 0) {
+            return null;
+        }
+        String body = line.substring(0, crcStart);
+        try {
+            if (Long.parseLong(line.substring(crcStart + 1), 16) != checksum(body)) {
+                return null;
+            }
+            String[] fields = body.split(String.valueOf(SEPARATOR));
+            if (fields.length != 7) {
+                return null;
+            }
+            Transfer transfer = new Transfer(Long.valueOf(fields[2]), Long.valueOf(fields[3]), new BigDecimal(fields[4]));
+            transfer.setId(Long.valueOf(fields[1]));
+            transfer.setStatus(fields[5]);
+            transfer.setTransferDate(LocalDateTime.parse(fields[6]));
+            return new LedgerEntry(Long.parseLong(fields[0]), transfer);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static long checksum(String body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
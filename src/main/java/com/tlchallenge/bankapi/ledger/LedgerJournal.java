@@ -0,0 +1,261 @@
+package com.tlchallenge.bankapi.ledger;
+
+import com.tlchallenge.bankapi.model.Transfer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Journal de solo escritura al final del motor ledger. Las entradas se numeran en orden de llegada y
+ * las escribe un único hilo, que junta lo encolado en una escritura y un fsync (group commit). El
+ * futuro de {@link #append(Transfer)} se completa cuando la entrada está en disco.
+ * <p>
+ * El journal se divide en segmentos nombrados por su primera secuencia; {@link #pruneThrough(long)}
+ * borra los segmentos cuyas entradas están todas por debajo del checkpoint de la base de datos.
+ */
+public class LedgerJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerJournal.class);
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int groupSize;
+    private final Consumer<List<LedgerEntry>> onDurable;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private long nextSeq = 1;
+    private boolean accepting;
+
+    private FileChannel segment;
+    private long segmentSize;
+    private Thread writer;
+    private volatile IOException failure;
+
+    public LedgerJournal(Path directory, long segmentBytes, int groupSize, Consumer<List<LedgerEntry>> onDurable) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.groupSize = groupSize;
+        this.onDurable = onDurable;
+    }
+
+    /**
+     * Leer todos los segmentos y devolver, en orden, las entradas posteriores a {@code checkpoint}. La
+     * cola incompleta o corrupta del último segmento se trunca; un daño en otro sitio aborta la recuperación
+     */
+    public List<LedgerEntry> recover(long checkpoint) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = segments();
+        List<LedgerEntry> pending = new ArrayList<>();
+        long lastSeq = checkpoint;
+
+        for (int i = 0; i < segments.size(); i++) {
+            Path file = segments.get(i);
+            byte[] data = Files.readAllBytes(file);
+            int offset = 0;
+            while (offset < data.length) {
+                int end = indexOf(data, (byte) '\n', offset);
+                LedgerEntry entry = end < 0 ? null
+                        : LedgerEntry.fromLine(new String(data, offset, end - offset, StandardCharsets.UTF_8));
+                if (entry == null) {
+                    if (i < segments.size() - 1) {
+                        throw new IOException("Corrupt ledger journal segment " + file + " at byte " + offset);
+                    }
+                    log.warn("Truncating torn tail of ledger journal segment {} at byte {}", file, offset);
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        channel.truncate(offset);
+                        channel.force(true);
+                    }
+                    break;
+                }
+                if (entry.getSeq() > checkpoint) {
+                    pending.add(entry);
+                }
+                lastSeq = Math.max(lastSeq, entry.getSeq());
+                offset = end + 1;
+            }
+        }
+
+        nextSeq = lastSeq + 1;
+        openSegment(nextSeq);
+        return pending;
+    }
+
+    /**
+     * Arrancar el hilo escritor; antes hay que llamar a {@link #recover(long)}
+     */
+    public synchronized void start() {
+        accepting = true;
+        writer = new Thread(this::writeLoop, "ledger-journal");
+        writer.start();
+    }
+
+    /**
+     * Encolar una transferencia en el journal; el futuro se completa tras el fsync que la hace durable
+     */
+    public CompletableFuture<LedgerEntry> append(Transfer transfer) {
+        Pending pending;
+        synchronized (this) {
+            if (!accepting || failure != null) {
+                throw new IllegalStateException("Ledger journal is not accepting entries", failure);
+            }
+            pending = new Pending(new LedgerEntry(nextSeq++, transfer));
+            queue.add(pending);
+        }
+        return pending.future;
+    }
+
+    /**
+     * Borrar los segmentos cuyas entradas son todas menores o iguales que {@code seq}; el activo se conserva
+     */
+    public void pruneThrough(long seq) {
+        try {
+            List<Path> segments = segments();
+            for (int i = 0; i < segments.size() - 1; i++) {
+                if (firstSeq(segments.get(i + 1)) > seq + 1) {
+                    break;
+                }
+                Files.deleteIfExists(segments.get(i));
+            }
+        } catch (IOException e) {
+            log.warn("Could not prune ledger journal through seq={}", seq, e);
+        }
+    }
+
+    /**
+     * Dejar de aceptar entradas, escribir lo ya encolado y cerrar el segmento activo
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            accepting = false;
+        }
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> group = new ArrayList<>(groupSize);
+        while (true) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    synchronized (this) {
+                        if (!accepting && queue.isEmpty()) {
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, groupSize - 1);
+                writeGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Ledger journal write failed; no further transfers are accepted", e);
+                synchronized (this) {
+                    failure = e;
+                    queue.drainTo(group);
+                }
+                group.forEach(pending -> pending.future.completeExceptionally(e));
+                return;
+            }
+            group.clear();
+        }
+    }
+
+    private void writeGroup(List<Pending> group) throws IOException {
+        StringBuilder lines = new StringBuilder(group.size() * 96);
+        List<LedgerEntry> entries = new ArrayList<>(group.size());
+        for (Pending pending : group) {
+            lines.append(pending.entry.toLine());
+            entries.add(pending.entry);
+        }
+
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(lines.toString());
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            segment.write(buffer);
+        }
+        segment.force(false);
+        segmentSize += bytes;
+
+        onDurable.accept(entries);
+        for (Pending pending : group) {
+            pending.future.complete(pending.entry);
+        }
+
+        if (segmentSize >= segmentBytes) {
+            segment.close();
+            openSegment(entries.get(entries.size() - 1).getSeq() + 1);
+        }
+    }
+
+    private void openSegment(long firstSeq) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+        segment = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentSize = segment.size();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long firstSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int indexOf(byte[] data, byte value, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Pending {
+        private final LedgerEntry entry;
+        private final CompletableFuture<LedgerEntry> future = new CompletableFuture<>();
+
+        private Pending(LedgerEntry entry) {
+            this.entry = entry;
+        }
+    }
+}
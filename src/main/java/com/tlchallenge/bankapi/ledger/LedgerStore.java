@@ -0,0 +1,170 @@
+package com.tlchallenge.bankapi.ledger;
+
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import com.tlchallenge.bankapi.service.impl.AccountCache;
+import com.tlchallenge.bankapi.service.impl.DailySummaryRecorder;
+import com.tlchallenge.bankapi.service.impl.StripedBalanceService;
+import com.tlchallenge.bankapi.service.impl.TransferPartitionMaintainer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Parte en base de datos del motor ledger: carga saldos, reserva ids de transferencia y aplica las
+ * entradas del journal en transfers y accounts junto con el checkpoint
+ */
+@Component
+@ConditionalOnProperty(name = "bankapi.transfer.engine", havingValue = "ledger")
+public class LedgerStore {
+
+    public static final String DEAD_LETTERS_METRIC = "bankapi.ledger.dead.letters";
+
+    // Same block size as the pooled transfers_id_seq generator of Transfer, see 04-pooled-id-sequences.sql
+    static final int ID_BLOCK_SIZE = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private DailySummaryRecorder dailySummaryRecorder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransferPartitionMaintainer transferPartitionMaintainer;
+
+    /**
+     * Última secuencia del journal aplicada en la base de datos
+     */
+    public long loadCheckpoint() {
+        Long seq = jdbcTemplate.queryForObject("SELECT journal_seq FROM ledger_checkpoint WHERE id = 1", Long.class);
+        return seq == null ? 0 : seq;
+    }
+
+    /**
+     * Saldo total de una cuenta (fila más slots), vacío si la cuenta no existe
+     */
+    public Optional<BigDecimal> loadBalance(Long accountId) {
+        return accountRepository.findById(accountId)
+                .map(account -> account.getBalanceSlots() > 0
+                        ? account.getBalance().add(stripedBalanceService.slotBalance(accountId))
+                        : account.getBalance());
+    }
+
+    /**
+     * Reservar un bloque de ids de transferencia. Devuelve el último id del bloque
+     * (nextval - ID_BLOCK_SIZE, nextval], igual que el optimizador pooled de Hibernate.
+     */
+    public long reserveIdBlock() {
+        Long hi = jdbcTemplate.queryForObject("SELECT nextval('transfers_id_seq')", Long.class);
+        while (hi != null && hi < ID_BLOCK_SIZE) {
+            // Sequence still at its start value: Hibernate treats that block specially, so skip it
+            hi = jdbcTemplate.queryForObject("SELECT nextval('transfers_id_seq')", Long.class);
+        }
+        return hi;
+    }
+
+    /**
+     * Aplicar entradas del journal (en orden de secuencia) en una única transacción: inserta las
+     * transferencias, suma los deltas de saldo por cuenta en orden ascendente de id y avanza el checkpoint.
+     * Antes crea las particiones mensuales que falten para las fechas de las entradas.
+     */
+    public void apply(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<Transfer> transfers = new ArrayList<>(entries.size());
+        Map<Long, BigDecimal> deltas = new TreeMap<>();
+        LocalDateTime firstDate = null;
+        LocalDateTime lastDate = null;
+        for (LedgerEntry entry : entries) {
+            Transfer transfer = entry.getTransfer();
+            transfers.add(transfer);
+            if (firstDate == null || transfer.getTransferDate().isBefore(firstDate)) {
+                firstDate = transfer.getTransferDate();
+            }
+            if (lastDate == null || transfer.getTransferDate().isAfter(lastDate)) {
+                lastDate = transfer.getTransferDate();
+            }
+            if ("COMPLETED".equals(transfer.getStatus())) {
+                deltas.merge(transfer.getFromAccountId(), transfer.getAmount().negate(), BigDecimal::add);
+                deltas.merge(transfer.getToAccountId(), transfer.getAmount(), BigDecimal::add);
+            }
+        }
+        deltas.values().removeIf(delta -> delta.signum() == 0);
+        List<Map.Entry<Long, BigDecimal>> accountDeltas = new ArrayList<>(deltas.entrySet());
+        long lastSeq = entries.get(entries.size() - 1).getSeq();
+        // Replaying an old journal or flushing across a month boundary may reach months nobody created yet
+        transferPartitionMaintainer.ensurePartitions(firstDate, lastDate);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO transfers (id, from_account_id, to_account_id, amount, transfer_date, status) "
+                            + "VALUES (?, ?, ?, ?, ?, ?)",
+                    transfers, transfers.size(), (ps, transfer) -> {
+                        ps.setLong(1, transfer.getId());
+                        ps.setLong(2, transfer.getFromAccountId());
+                        ps.setLong(3, transfer.getToAccountId());
+                        ps.setBigDecimal(4, transfer.getAmount());
+                        ps.setTimestamp(5, Timestamp.valueOf(transfer.getTransferDate()));
+                        ps.setString(6, transfer.getStatus());
+                    });
+            jdbcTemplate.batchUpdate(
+                    "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE id = ?",
+                    accountDeltas, accountDeltas.size(), (ps, delta) -> {
+                        ps.setBigDecimal(1, delta.getValue());
+                        ps.setLong(2, delta.getKey());
+                    });
+            jdbcTemplate.update("UPDATE ledger_checkpoint SET journal_seq = ? WHERE id = 1", lastSeq);
+            dailySummaryRecorder.record(transfers);
+            accountCache.evictAfterCommit(deltas.keySet());
+        });
+    }
+
+    /**
+     * Apartar una entrada que no se puede aplicar a ledger_dead_letters y avanzar el checkpoint más allá
+     * de ella, en una sola transacción. Ni la transferencia ni los saldos se tocan en la base de datos.
+     */
+    public void deadLetter(LedgerEntry entry, String error) {
+        Transfer transfer = entry.getTransfer();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO ledger_dead_letters (journal_seq, transfer_id, from_account_id, to_account_id, "
+                            + "amount, transfer_date, status, error) VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+                            + "ON CONFLICT (journal_seq) DO NOTHING",
+                    entry.getSeq(), transfer.getId(), transfer.getFromAccountId(), transfer.getToAccountId(),
+                    transfer.getAmount(), Timestamp.valueOf(transfer.getTransferDate()), transfer.getStatus(), error);
+            jdbcTemplate.update("UPDATE ledger_checkpoint SET journal_seq = ? WHERE id = 1", entry.getSeq());
+        });
+        Counter.builder(DEAD_LETTERS_METRIC)
+                .description("Ledger journal entries moved to ledger_dead_letters")
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,520 @@
+package com.tlchallenge.bankapi.ledger;
+
+import com.tlchallenge.bankapi.exception.TransferRejectedException;
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.dto.AccountStatementPage;
+import com.tlchallenge.bankapi.model.dto.CursorPage;
+import com.tlchallenge.bankapi.model.dto.TransferBatchItemResult;
+import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.model.dto.TransferView;
+import com.tlchallenge.bankapi.service.TransferService;
+import com.tlchallenge.bankapi.service.impl.TransferServiceImpl;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Motor de transferencias en memoria, activado con {@code bankapi.transfer.engine=ledger}.
+ * <p>
+ * Cada cuenta pertenece a una partición servida por un único hilo, el único que modifica su saldo.
+ * El débito se decide en la partición de la cuenta origen; el crédito se envía al buzón de la
+ * partición destino. Cada decisión se escribe en el {@link LedgerJournal} y la transferencia se
+ * confirma al cliente tras el fsync del grupo. Un hilo aparte aplica el journal en la base de datos
+ * ({@link LedgerStore#apply(List)}) junto con el checkpoint; al arrancar se reaplica lo que quede
+ * en el journal por encima del checkpoint y los saldos se cargan después desde la base de datos.
+ * Los fallos transitorios del volcado se reintentan; una entrada que falla por otro motivo se aparta a
+ * ledger_dead_letters ({@link LedgerStore#deadLetter}) para que no bloquee a las siguientes.
+ * <p>
+ * Si el journal falla, los saldos en memoria pueden incluir transferencias que no son durables: el
+ * motor se detiene, rechaza nuevas transferencias y lee los saldos de la base de datos hasta reiniciar.
+ * <p>
+ * Las lecturas de transferencias se delegan en {@link TransferServiceImpl} y reflejan el journal
+ * con el retraso del volcado. Mientras el motor está activo los saldos solo deben cambiar por transferencias.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "bankapi.transfer.engine", havingValue = "ledger")
+public class LedgerTransferService implements TransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerTransferService.class);
+
+    private static final Runnable STOP = () -> { };
+
+    @Autowired
+    private TransferServiceImpl databaseTransferService;
+
+    @Autowired
+    private LedgerStore ledgerStore;
+
+    @Value("${bankapi.ledger.partitions:4}")
+    private int partitionCount = 4;
+
+    @Value("${bankapi.ledger.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    @Value("${bankapi.ledger.journal-dir:ledger-journal}")
+    private String journalDir = "ledger-journal";
+
+    @Value("${bankapi.ledger.journal.segment-bytes:67108864}")
+    private long segmentBytes = 64L * 1024 * 1024;
+
+    @Value("${bankapi.ledger.journal.group-size:1000}")
+    private int groupSize = 1000;
+
+    @Value("${bankapi.ledger.flush.batch-size:1000}")
+    private int flushBatchSize = 1000;
+
+    @Value("${bankapi.ledger.flush.retry-interval-ms:1000}")
+    private long flushRetryIntervalMs = 1000;
+
+    private final Map<Long, LedgerAccount> accounts = new ConcurrentHashMap<>();
+    private final BlockingQueue<LedgerEntry> flushQueue = new LinkedBlockingQueue<>();
+
+    private LedgerJournal journal;
+    private Partition[] partitions;
+    private Thread flusher;
+    private volatile boolean flushing;
+    private volatile Throwable halted;
+
+    /**
+     * Recuperar el estado (base de datos + journal) y arrancar particiones, journal y volcado
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        long checkpoint = ledgerStore.loadCheckpoint();
+        journal = new LedgerJournal(Path.of(journalDir), segmentBytes, groupSize, flushQueue::addAll);
+
+        List<LedgerEntry> pending = journal.recover(checkpoint);
+        for (int start = 0; start < pending.size(); start += flushBatchSize) {
+            List<LedgerEntry> batch = pending.subList(start, Math.min(start + flushBatchSize, pending.size()));
+            try {
+                // A database that is down at startup fails the startup instead of being waited for
+                if (!flush(batch, () -> false)) {
+                    throw new IllegalStateException("Could not replay the ledger journal into the database");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while replaying the ledger journal", e);
+            }
+        }
+        if (!pending.isEmpty()) {
+            journal.pruneThrough(pending.get(pending.size() - 1).getSeq());
+        }
+        log.info("Ledger recovered from checkpoint {}: replayed {} journal entries", checkpoint, pending.size());
+
+        journal.start();
+        partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i);
+        }
+        flushing = true;
+        flusher = new Thread(this::flushLoop, "ledger-flusher");
+        flusher.start();
+    }
+
+    /**
+     * Parar las particiones, cerrar el journal y volcar lo pendiente en la base de datos
+     */
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        for (Partition partition : partitions) {
+            partition.mailbox.add(STOP);
+        }
+        for (Partition partition : partitions) {
+            partition.thread.join();
+        }
+        journal.close();
+        flushing = false;
+        flusher.join();
+    }
+
+    /**
+     * Crear nueva transferencia en el ledger; vuelve cuando la decisión es durable en el journal
+     */
+    @Override
+    public Transfer createTransfer(TransferDto dto) {
+        Transfer transfer = await(submit(dto));
+        if ("REJECTED".equals(transfer.getStatus())) {
+            TransferRejectedException rejection = new TransferRejectedException(
+                    dto.getFromAccountId(), dto.getToAccountId(), "Insufficient funds");
+            log.warn("Transfer rejected: {}", rejection.getMessage());
+            throw rejection;
+        }
+        return transfer;
+    }
+
+    /**
+     * Crear un lote de transferencias: se encolan todas y se espera a cada una en orden
+     */
+    @Override
+    public List<TransferBatchItemResult> createTransfers(List<TransferDto> dtos) {
+        List<CompletableFuture<Transfer>> futures = new ArrayList<>(dtos.size());
+        for (TransferDto dto : dtos) {
+            futures.add(submit(dto));
+        }
+
+        List<TransferBatchItemResult> results = new ArrayList<>(dtos.size());
+        for (int index = 0; index < futures.size(); index++) {
+            try {
+                Transfer transfer = await(futures.get(index));
+                String reason = "REJECTED".equals(transfer.getStatus()) ? "Insufficient funds" : null;
+                results.add(new TransferBatchItemResult(index, transfer.getStatus(), transfer.getId(), reason));
+            } catch (TransferRejectedException e) {
+                results.add(new TransferBatchItemResult(index, "REJECTED", null, e.getReason()));
+            } catch (IllegalArgumentException e) {
+                results.add(new TransferBatchItemResult(index, "REJECTED", null, e.getMessage()));
+            } catch (RuntimeException e) {
+                results.add(new TransferBatchItemResult(index, "FAILED", null, "Unexpected error while executing transfer"));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Saldo en memoria si la cuenta ya está cargada en el ledger
+     */
+    @Override
+    public BigDecimal getAccountBalance(Long accountId) {
+        // Once halted, memory may hold transfers the journal lost; the database only has durable ones
+        LedgerAccount account = halted == null ? accounts.get(accountId) : null;
+        return account != null ? account.balance : databaseTransferService.getAccountBalance(accountId);
+    }
+
+    @Override
+    public Optional<TransferView> getTransferById(Long id) {
+        return databaseTransferService.getTransferById(id);
+    }
+
+    @Override
+    public CursorPage<TransferView> getTransfers(Long after, int limit) {
+        return databaseTransferService.getTransfers(after, limit);
+    }
+
+    @Override
+    public List<TransferView> getTransfersByFromAccountId(Long fromAccountId) {
+        return databaseTransferService.getTransfersByFromAccountId(fromAccountId);
+    }
+
+    @Override
+    public AccountStatementPage getAccountStatement(Long accountId, String cursor, int limit) {
+        return databaseTransferService.getAccountStatement(accountId, cursor, limit);
+    }
+
+    private CompletableFuture<Transfer> submit(TransferDto dto) {
+        if (dto.getAmount() == null || dto.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return CompletableFuture.failedFuture(
+                    new TransferRejectedException(dto.getFromAccountId(), dto.getToAccountId(), "Invalid amount"));
+        }
+        LedgerAccount from = account(dto.getFromAccountId());
+        if (from == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("From account not found"));
+        }
+        LedgerAccount to = account(dto.getToAccountId());
+        if (to == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("To account not found"));
+        }
+
+        if (halted != null) {
+            return CompletableFuture.failedFuture(haltedException());
+        }
+
+        CompletableFuture<Transfer> result = new CompletableFuture<>();
+        BigDecimal amount = dto.getAmount();
+        Partition partition = partitionOf(from);
+        partition.submit(() -> debit(partition, from, to, amount, result));
+        return result;
+    }
+
+    /**
+     * Corre en la partición de {@code from}. La entrada se encola en el journal antes de enviar el crédito,
+     * así que lo que el destino haga después con esos fondos queda en el journal detrás de ella
+     */
+    private void debit(Partition partition, LedgerAccount from, LedgerAccount to, BigDecimal amount,
+                       CompletableFuture<Transfer> result) {
+        if (halted != null) {
+            result.completeExceptionally(haltedException());
+            return;
+        }
+        Transfer transfer = new Transfer(from.id, to.id, amount);
+        try {
+            transfer.setId(partition.nextTransferId());
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+
+        boolean accepted = from.balance.compareTo(amount) >= 0;
+        transfer.setStatus(accepted ? "COMPLETED" : "REJECTED");
+        if (accepted) {
+            from.balance = from.balance.subtract(amount);
+        }
+
+        CompletableFuture<LedgerEntry> durable;
+        try {
+            durable = journal.append(transfer);
+        } catch (RuntimeException e) {
+            if (accepted) {
+                from.balance = from.balance.add(amount);
+            }
+            result.completeExceptionally(e);
+            return;
+        }
+
+        if (accepted) {
+            if (partitionOf(to) == partition) {
+                to.balance = to.balance.add(amount);
+            } else {
+                partitionOf(to).post(() -> to.balance = to.balance.add(amount));
+            }
+        }
+
+        durable.whenComplete((entry, error) -> {
+            if (error != null) {
+                // The debit and credit are already visible in memory and the entry may or may not be on
+                // disk, so memory can no longer be trusted: halt before anyone sees this failure
+                halt(error);
+                result.completeExceptionally(error);
+            } else {
+                result.complete(transfer);
+            }
+        });
+    }
+
+    private void halt(Throwable error) {
+        synchronized (this) {
+            if (halted != null) {
+                return;
+            }
+            halted = error;
+        }
+        log.error("Ledger journal failed: the engine stops accepting transfers and serves balances from the database. "
+                + "Restart to rebuild the balances from the database and the journal", error);
+    }
+
+    private IllegalStateException haltedException() {
+        return new IllegalStateException("Ledger engine halted after a journal failure", halted);
+    }
+
+    private LedgerAccount account(Long id) {
+        if (id == null) {
+            return null;
+        }
+        return accounts.computeIfAbsent(id, key -> ledgerStore.loadBalance(key)
+                .map(balance -> new LedgerAccount(key, balance))
+                .orElse(null));
+    }
+
+    private Partition partitionOf(LedgerAccount account) {
+        return partitions[Math.floorMod(Long.hashCode(account.id), partitions.length)];
+    }
+
+    private Transfer await(CompletableFuture<Transfer> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TransferRejectedException || e.getCause() instanceof IllegalArgumentException) {
+                throw (RuntimeException) e.getCause();
+            }
+            log.error("Unexpected error while executing transfer", e.getCause());
+            throw new RuntimeException("Unexpected error while executing transfer", e.getCause());
+        }
+    }
+
+    private void flushLoop() {
+        List<LedgerEntry> batch = new ArrayList<>(flushBatchSize);
+        while (true) {
+            try {
+                LedgerEntry first = flushQueue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (!flushing) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                flushQueue.drainTo(batch, flushBatchSize - 1);
+
+                if (!flush(batch, () -> flushing)) {
+                    // The journal still holds these entries; the next start replays them
+                    return;
+                }
+                journal.pruneThrough(batch.get(batch.size() - 1).getSeq());
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Aplicar un lote en la base de datos, reintentando los fallos transitorios mientras
+     * {@code keepTrying} lo permita. Si el lote falla por otro motivo se aplica entrada a entrada.
+     * Devuelve false si se deja de intentar antes de terminar.
+     */
+    private boolean flush(List<LedgerEntry> batch, BooleanSupplier keepTrying) throws InterruptedException {
+        while (true) {
+            try {
+                ledgerStore.apply(batch);
+                return true;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    log.warn("Could not flush {} ledger entries up to seq={}; applying them one by one",
+                            batch.size(), batch.get(batch.size() - 1).getSeq(), e);
+                    return flushOneByOne(batch, keepTrying);
+                }
+                log.error("Could not flush {} ledger entries up to seq={}; retrying",
+                        batch.size(), batch.get(batch.size() - 1).getSeq(), e);
+            }
+            if (!keepTrying.getAsBoolean()) {
+                return false;
+            }
+            Thread.sleep(flushRetryIntervalMs);
+        }
+    }
+
+    private boolean flushOneByOne(List<LedgerEntry> batch, BooleanSupplier keepTrying) throws InterruptedException {
+        for (LedgerEntry entry : batch) {
+            while (true) {
+                try {
+                    applyOrDeadLetter(entry);
+                    break;
+                } catch (RuntimeException e) {
+                    log.error("Could not flush ledger entry seq={}; retrying", entry.getSeq(), e);
+                }
+                if (!keepTrying.getAsBoolean()) {
+                    return false;
+                }
+                Thread.sleep(flushRetryIntervalMs);
+            }
+        }
+        return true;
+    }
+
+    private void applyOrDeadLetter(LedgerEntry entry) {
+        try {
+            ledgerStore.apply(List.of(entry));
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                throw e;
+            }
+            // The balances in memory already include this transfer: it must be reconciled by hand
+            Transfer transfer = entry.getTransfer();
+            log.error("Ledger entry seq={} (transfer id={}, {} -> {}, amount {}, {}) cannot be applied and was moved "
+                            + "to ledger_dead_letters", entry.getSeq(), transfer.getId(), transfer.getFromAccountId(),
+                    transfer.getToAccountId(), transfer.getAmount(), transfer.getStatus(), e);
+            ledgerStore.deadLetter(entry, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Errores que pueden desaparecer solos (conexión perdida, bloqueo, timeout); el resto se repetiría siempre
+     */
+    static boolean isTransient(Throwable e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    /**
+     * Saldo de una cuenta; solo lo escribe el hilo de su partición
+     */
+    private static final class LedgerAccount {
+        private final Long id;
+        private volatile BigDecimal balance;
+
+        private LedgerAccount(Long id, BigDecimal balance) {
+            this.id = id;
+            this.balance = balance;
+        }
+    }
+
+    /**
+     * Partición con un único escritor. Los débitos entran con un número limitado de permisos, así que
+     * los llamadores esperan si la partición se retrasa; los créditos de otras particiones nunca bloquean
+     */
+    private final class Partition {
+        private final BlockingQueue<Runnable> mailbox = new LinkedBlockingQueue<>();
+        private final Semaphore capacity = new Semaphore(queueCapacity);
+        private final Thread thread;
+        private long nextId = 1;
+        private long lastId = 0;
+
+        private Partition(int index) {
+            thread = new Thread(this::run, "ledger-partition-" + index);
+            thread.start();
+        }
+
+        private void submit(Runnable debit) {
+            try {
+                capacity.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the ledger", e);
+            }
+            mailbox.add(() -> {
+                capacity.release();
+                debit.run();
+            });
+        }
+
+        private void post(Runnable credit) {
+            mailbox.add(credit);
+        }
+
+        private long nextTransferId() {
+            if (nextId > lastId) {
+                lastId = ledgerStore.reserveIdBlock();
+                nextId = lastId - LedgerStore.ID_BLOCK_SIZE + 1;
+            }
+            return nextId++;
+        }
+
+        private void run() {
+            while (true) {
+                Runnable task;
+                try {
+                    task = mailbox.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (task == STOP) {
+                    return;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Ledger partition task failed", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.tlchallenge.bankapi.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Límite de concurrencia basado en latencia, al estilo de TCP Vegas. El límite es cuántas peticiones pueden
+ * estar en curso a la vez. La menor latencia observada se toma como la latencia sin colas. Cada petición
+ * terminada estima cuántas peticiones hay encoladas aguas abajo como {@code limit * (1 - minRtt / rtt)}.
+ * Con menos de {@code alpha} encoladas el límite crece; con más de {@code beta} baja. Los fallos también lo
+ * bajan. Cada {@code PROBE_MULTIPLIER * limit} muestras se olvida el mínimo y se vuelve a medir, para no
+ * confundir para siempre con colas una base de datos que se ha vuelto más lenta de forma permanente.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    static final int PROBE_MULTIPLIER = 30;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile double limit;
+    private long minRttNanos;
+    private long samplesSinceProbe;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Admitir una petición si hay hueco bajo el límite actual; si se admite hay que llamar a
+     * {@link #release(long, boolean)} al terminar
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Liberar una petición admitida y ajustar el límite con su latencia
+     */
+    public void release(long rttNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        update(rttNanos, failed, inFlightBefore);
+    }
+
+    private synchronized void update(long rttNanos, boolean failed, int inFlightBefore) {
+        double current = limit;
+        double step = Math.max(1, Math.log10(current));
+        if (failed) {
+            limit = Math.max(minLimit, current - step);
+            return;
+        }
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (++samplesSinceProbe >= PROBE_MULTIPLIER * (long) current) {
+            samplesSinceProbe = 0;
+            minRttNanos = 0;
+        }
+        if (minRttNanos == 0 || rttNanos < minRttNanos) {
+            minRttNanos = rttNanos;
+            return;
+        }
+
+        double queued = current * (1 - (double) minRttNanos / rttNanos);
+        double alpha = 3 * step;
+        double beta = 6 * step;
+        if (queued > beta) {
+            limit = Math.max(minLimit, current - step);
+        } else if (queued < alpha && inFlightBefore * 2 >= current) {
+            // Only grow while the limit is actually being used, otherwise an idle service would drift to max
+            limit = Math.min(maxLimit, current + step);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Peticiones rechazadas desde el arranque
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Latencia mínima observada (sin cola), en nanosegundos; 0 mientras no haya muestras
+     */
+    public synchronized long getMinRttNanos() {
+        return minRttNanos;
+    }
+}
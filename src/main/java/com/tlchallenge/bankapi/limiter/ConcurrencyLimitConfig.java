@@ -0,0 +1,83 @@
+package com.tlchallenge.bankapi.limiter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Set;
+
+/**
+ * Límites de concurrencia adaptativos ({@code bankapi.concurrency-limit.enabled}) en los endpoints de escritura:
+ * uno para crear transferencias y otro para escribir cuentas, porque sus latencias son distintas. Cada uno
+ * busca su límite entre {@code min-limit} y {@code max-limit} según la latencia que observa. El endpoint
+ * asíncrono de transferencias queda fuera porque su cola ya lo acota
+ */
+@Configuration
+public class ConcurrencyLimitConfig implements WebMvcConfigurer {
+
+    static final String LIMIT_METRIC = "bankapi.concurrency.limit";
+    static final String IN_FLIGHT_METRIC = "bankapi.concurrency.in.flight";
+    static final String REJECTED_METRIC = "bankapi.concurrency.rejected";
+
+    @Value("${bankapi.concurrency-limit.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${bankapi.concurrency-limit.initial-limit:20}")
+    private int initialLimit = 20;
+
+    @Value("${bankapi.concurrency-limit.min-limit:4}")
+    private int minLimit = 4;
+
+    @Value("${bankapi.concurrency-limit.max-limit:200}")
+    private int maxLimit = 200;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!enabled) {
+            return;
+        }
+        registry.addInterceptor(new ConcurrencyLimitInterceptor(transferConcurrencyLimiter(), Set.of("POST")))
+                .addPathPatterns("/api/v1/transfers", "/api/v1/transfers/by-number", "/api/v1/transfers/batch");
+        registry.addInterceptor(new ConcurrencyLimitInterceptor(accountConcurrencyLimiter(), Set.of("POST", "PUT", "DELETE")))
+                .addPathPatterns("/api/v1/accounts", "/api/v1/accounts/**");
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter transferConcurrencyLimiter() {
+        return new AdaptiveConcurrencyLimiter("transfers", initialLimit, minLimit, maxLimit);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter accountConcurrencyLimiter() {
+        return new AdaptiveConcurrencyLimiter("accounts", initialLimit, minLimit, maxLimit);
+    }
+
+    @Bean
+    public MeterBinder concurrencyLimitMetrics(ObjectProvider<AdaptiveConcurrencyLimiter> limiters) {
+        return registry -> {
+            if (!enabled) {
+                return;
+            }
+            limiters.orderedStream().forEach(limiter -> {
+                Gauge.builder(LIMIT_METRIC, limiter, AdaptiveConcurrencyLimiter::getLimit)
+                        .description("Requests currently allowed in flight")
+                        .tag("limiter", limiter.getName())
+                        .register(registry);
+                Gauge.builder(IN_FLIGHT_METRIC, limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                        .description("Requests in flight")
+                        .tag("limiter", limiter.getName())
+                        .register(registry);
+                FunctionCounter.builder(REJECTED_METRIC, limiter, AdaptiveConcurrencyLimiter::getRejected)
+                        .description("Requests rejected with 429 by the concurrency limit")
+                        .tag("limiter", limiter.getName())
+                        .register(registry);
+            });
+        };
+    }
+}
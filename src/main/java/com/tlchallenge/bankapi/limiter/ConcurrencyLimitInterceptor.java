@@ -0,0 +1,46 @@
+package com.tlchallenge.bankapi.limiter;
+
+import com.tlchallenge.bankapi.exception.ConcurrencyLimitExceededException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Set;
+
+/**
+ * Admitir las peticiones de los métodos HTTP indicados a través de un {@link AdaptiveConcurrencyLimiter}. Una
+ * petición por encima del límite falla al momento con {@link ConcurrencyLimitExceededException} (429); una
+ * admitida informa de su latencia al terminar y un 5xx cuenta como fallo
+ */
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Set<String> methods;
+    private final String startAttribute;
+
+    public ConcurrencyLimitInterceptor(AdaptiveConcurrencyLimiter limiter, Set<String> methods) {
+        this.limiter = limiter;
+        this.methods = methods;
+        this.startAttribute = ConcurrencyLimitInterceptor.class.getName() + "." + limiter.getName();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!methods.contains(request.getMethod())) {
+            return true;
+        }
+        if (!limiter.tryAcquire()) {
+            throw new ConcurrencyLimitExceededException(limiter.getName(), limiter.getLimit());
+        }
+        request.setAttribute(startAttribute, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(startAttribute) instanceof Long start) {
+            request.removeAttribute(startAttribute);
+            limiter.release(System.nanoTime() - start, ex != null || response.getStatus() >= 500);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.tlchallenge.bankapi.metrics;
+
+import com.tlchallenge.bankapi.model.Account;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Contar conflictos de bloqueo optimista sobre cuentas por operación. El id de cuenta no es tag (sería
+ * una serie por cuenta): las cuentas más conflictivas de cada intervalo salen en un gauge por posición y en el log
+ */
+@Component
+public class AccountConflictMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountConflictMetrics.class);
+
+    public static final String CONFLICTS_METRIC = "bankapi.account.optimistic.conflicts";
+    public static final String HOTTEST_METRIC = "bankapi.account.optimistic.conflicts.hottest";
+
+    static final int HOTTEST_RANKS = 5;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Retry transferServiceRetry;
+
+    @Value("${bankapi.account.conflicts.tracked-accounts:1000}")
+    private int trackedAccounts = 1000;
+
+    @Value("${bankapi.account.conflicts.report-interval-ms:60000}")
+    private long reportIntervalMs = 60000;
+
+    // Conflicts per account in the current interval, bounded so a storm over many accounts cannot grow it
+    private final Map<Object, AtomicLong> conflictsByAccount = new ConcurrentHashMap<>();
+    private final AtomicLong untracked = new AtomicLong();
+    private volatile long[] hottest = new long[HOTTEST_RANKS];
+
+    @PostConstruct
+    void subscribeToTransferRetries() {
+        transferServiceRetry.getEventPublisher()
+                .onRetry(event -> recordConflict(event.getLastThrowable(), "transfer"))
+                .onError(event -> recordConflict(event.getLastThrowable(), "transfer"));
+        for (int rank = 1; rank <= HOTTEST_RANKS; rank++) {
+            int index = rank - 1;
+            Gauge.builder(HOTTEST_METRIC, this, metrics -> metrics.hottest[index])
+                    .description("Optimistic-lock conflicts of the n-th most conflicted account in the last report interval")
+                    .tag("rank", String.valueOf(rank))
+                    .register(meterRegistry);
+        }
+    }
+
+    public void recordConflict(Throwable ex, String operation) {
+        if (!(ex instanceof ObjectOptimisticLockingFailureException conflict)
+                || !Account.class.getName().equals(conflict.getPersistentClassName())) {
+            return;
+        }
+        log.debug("Optimistic-lock conflict on account {} during {}", conflict.getIdentifier(), operation);
+
+        Counter.builder(CONFLICTS_METRIC)
+                .description("Optimistic-lock conflicts on accounts rows")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment();
+
+        Object accountId = conflict.getIdentifier();
+        if (accountId == null) {
+            return;
+        }
+        AtomicLong count = conflictsByAccount.get(accountId);
+        if (count == null) {
+            if (conflictsByAccount.size() >= trackedAccounts) {
+                untracked.incrementAndGet();
+                return;
+            }
+            count = conflictsByAccount.computeIfAbsent(accountId, id -> new AtomicLong());
+        }
+        count.incrementAndGet();
+    }
+
+    /**
+     * Publicar y registrar en el log las cuentas con más conflictos del intervalo y empezar uno nuevo
+     */
+    @Scheduled(fixedDelayString = "${bankapi.account.conflicts.report-interval-ms:60000}",
+            initialDelayString = "${bankapi.account.conflicts.report-interval-ms:60000}")
+    public void reportHottest() {
+        List<Map.Entry<Object, Long>> top = conflictsByAccount.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().get()))
+                .sorted(Map.Entry.<Object, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(HOTTEST_RANKS)
+                .toList();
+        // A conflict counted between the snapshot and the clear is lost; this is a sample, not the counter
+        conflictsByAccount.clear();
+        long missed = untracked.getAndSet(0);
+
+        long[] ranked = new long[HOTTEST_RANKS];
+        for (int i = 0; i < top.size(); i++) {
+            ranked[i] = top.get(i).getValue();
+        }
+        hottest = ranked;
+        if (!top.isEmpty()) {
+            log.info("Accounts with the most optimistic-lock conflicts in the last {}ms: {}{}", reportIntervalMs,
+                    top.stream().map(entry -> entry.getKey() + "=" + entry.getValue()).collect(Collectors.joining(", ")),
+                    missed > 0 ? " (" + missed + " conflicts on untracked accounts)" : "");
+        }
+    }
+
+    long[] hottestConflicts() {
+        return hottest;
+    }
+}
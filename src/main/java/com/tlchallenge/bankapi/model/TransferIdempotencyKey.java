@@ -0,0 +1,117 @@
+package com.tlchallenge.bankapi.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key recibida en POST /api/v1/transfers junto con la respuesta que produjo
+ */
+@Entity
+@Table(name = "transfer_idempotency_keys")
+public class TransferIdempotencyKey {
+
+    public static final String PENDING = "PENDING";
+    public static final String COMPLETED = "COMPLETED";
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    // SHA-256 of the request payload; a reused key with a different payload is refused
+    @Column(name = "request_fingerprint", nullable = false)
+    @NotNull
+    private String requestFingerprint;
+
+    // PENDING while the transfer that claimed the key runs, COMPLETED once its response is stored
+    @Column(name = "status", nullable = false)
+    @NotNull
+    private String status;
+
+    // Identifies the request holding a PENDING claim; the response is only stored under the same token
+    @Column(name = "claim_token")
+    private String claimToken;
+
+    // When the current holder took the claim; past the lease another request may take it over
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "transfer_id")
+    private Long transferId;
+
+    @Column(name = "response_body")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    @NotNull
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public TransferIdempotencyKey() {}
+
+    // Getters and Setters
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getRequestFingerprint() {
+        return requestFingerprint;
+    }
+
+    public void setRequestFingerprint(String requestFingerprint) {
+        this.requestFingerprint = requestFingerprint;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+
+    public LocalDateTime getClaimedAt() {
+        return claimedAt;
+    }
+
+    public void setClaimedAt(LocalDateTime claimedAt) {
+        this.claimedAt = claimedAt;
+    }
+
+    public Long getTransferId() {
+        return transferId;
+    }
+
+    public void setTransferId(Long transferId) {
+        this.transferId = transferId;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
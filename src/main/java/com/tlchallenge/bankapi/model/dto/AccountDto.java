@@ -13,6 +13,9 @@ public class AccountDto {
     @NotNull(message = "Balance is required")
     private BigDecimal balance;
 
+    // Expected version on updates; the change is rejected if the stored version differs
+    private Long version;
+
     // Constructors
     public AccountDto() {}
 
@@ -37,4 +40,12 @@ public class AccountDto {
     public void setBalance(BigDecimal balance) {
         this.balance = balance;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
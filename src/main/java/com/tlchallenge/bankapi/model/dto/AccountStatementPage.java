@@ -0,0 +1,48 @@
+package com.tlchallenge.bankapi.model.dto;
+
+import java.util.List;
+
+/**
+ * Página del extracto de una cuenta, de la más reciente a la más antigua; {@code nextCursor} se pasa como
+ * {@code cursor} para la siguiente página y es null en la última
+ */
+public class AccountStatementPage {
+
+    private Long accountId;
+    private List<StatementEntry> entries;
+    private String nextCursor;
+
+    // Constructors
+    public AccountStatementPage() {}
+
+    public AccountStatementPage(Long accountId, List<StatementEntry> entries, String nextCursor) {
+        this.accountId = accountId;
+        this.entries = entries;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public List<StatementEntry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<StatementEntry> entries) {
+        this.entries = entries;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,19 @@
+package com.tlchallenge.bankapi.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de solo lectura de una cuenta, seleccionada columna a columna por los endpoints GET. No es una
+ * entidad gestionada, así que Hibernate no guarda ninguna copia de ella. Se serializa como Account más
+ * slotBalance, la parte del saldo de una cuenta repartida que está en sus slots (0 en las demás cuentas).
+ */
+public record AccountView(Long id,
+                          String accountNumber,
+                          BigDecimal balance,
+                          LocalDateTime createdAt,
+                          LocalDateTime updatedAt,
+                          Long version,
+                          int balanceSlots,
+                          BigDecimal slotBalance) {
+}
@@ -0,0 +1,49 @@
+package com.tlchallenge.bankapi.model.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de un listado paginado por clave; {@code nextCursor} se pasa como {@code after} y es null en la última
+ */
+public class CursorPage<T> {
+
+    private List<T> items;
+    private Long nextCursor;
+
+    // Constructors
+    public CursorPage() {}
+
+    public CursorPage(List<T> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Construir la página a partir de hasta {@code limit + 1} filas ordenadas por id; la fila extra no se devuelve
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Long> idOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, idOf.apply(items.get(limit - 1)));
+    }
+
+    // Getters and Setters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
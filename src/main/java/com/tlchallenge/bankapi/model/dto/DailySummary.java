@@ -0,0 +1,16 @@
+package com.tlchallenge.bankapi.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Totales de una cuenta en un día: lo que salió (débitos), lo que entró (créditos) y el saldo tras la última
+ * transferencia del día; los días sin transferencias completadas no tienen entrada
+ */
+public record DailySummary(LocalDate date,
+                           BigDecimal debitTotal,
+                           int debitCount,
+                           BigDecimal creditTotal,
+                           int creditCount,
+                           BigDecimal closingBalance) {
+}
@@ -0,0 +1,80 @@
+package com.tlchallenge.bankapi.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Línea del extracto de una cuenta: {@code direction} es OUT si la cuenta envió la transferencia e IN si la
+ * recibió, y {@code counterpartyAccountId} es la cuenta del otro lado
+ */
+public class StatementEntry {
+
+    private Long transferId;
+    private String direction;
+    private Long counterpartyAccountId;
+    private BigDecimal amount;
+    private LocalDateTime transferDate;
+    private String status;
+
+    // Constructors
+    public StatementEntry() {}
+
+    public StatementEntry(Long transferId, String direction, Long counterpartyAccountId, BigDecimal amount,
+                          LocalDateTime transferDate, String status) {
+        this.transferId = transferId;
+        this.direction = direction;
+        this.counterpartyAccountId = counterpartyAccountId;
+        this.amount = amount;
+        this.transferDate = transferDate;
+        this.status = status;
+    }
+
+    // Getters and Setters
+    public Long getTransferId() {
+        return transferId;
+    }
+
+    public void setTransferId(Long transferId) {
+        this.transferId = transferId;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public void setDirection(String direction) {
+        this.direction = direction;
+    }
+
+    public Long getCounterpartyAccountId() {
+        return counterpartyAccountId;
+    }
+
+    public void setCounterpartyAccountId(Long counterpartyAccountId) {
+        this.counterpartyAccountId = counterpartyAccountId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public LocalDateTime getTransferDate() {
+        return transferDate;
+    }
+
+    public void setTransferDate(LocalDateTime transferDate) {
+        this.transferDate = transferDate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
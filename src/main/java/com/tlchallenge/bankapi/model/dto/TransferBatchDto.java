@@ -0,0 +1,31 @@
+package com.tlchallenge.bankapi.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class TransferBatchDto {
+
+    @NotEmpty(message = "At least one transfer is required")
+    @Size(max = 10000, message = "A batch accepts at most 10000 transfers")
+    @Valid
+    private List<TransferDto> transfers;
+
+    // Constructors
+    public TransferBatchDto() {}
+
+    public TransferBatchDto(List<TransferDto> transfers) {
+        this.transfers = transfers;
+    }
+
+    // Getters and Setters
+    public List<TransferDto> getTransfers() {
+        return transfers;
+    }
+
+    public void setTransfers(List<TransferDto> transfers) {
+        this.transfers = transfers;
+    }
+}
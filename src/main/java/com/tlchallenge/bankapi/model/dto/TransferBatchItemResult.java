@@ -0,0 +1,58 @@
+package com.tlchallenge.bankapi.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Resultado de una transferencia del lote, en el mismo índice que su elemento de la petición
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransferBatchItemResult {
+
+    private int index;
+    private String status;
+    private Long transferId;
+    private String reason;
+
+    // Constructors
+    public TransferBatchItemResult() {}
+
+    public TransferBatchItemResult(int index, String status, Long transferId, String reason) {
+        this.index = index;
+        this.status = status;
+        this.transferId = transferId;
+        this.reason = reason;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getTransferId() {
+        return transferId;
+    }
+
+    public void setTransferId(Long transferId) {
+        this.transferId = transferId;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,17 @@
+package com.tlchallenge.bankapi.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de solo lectura de una transferencia, seleccionada columna a columna por los endpoints GET y la
+ * exportación. No es una entidad gestionada, así que Hibernate no guarda ninguna copia de ella, y se
+ * serializa como Transfer.
+ */
+public record TransferView(Long id,
+                           Long fromAccountId,
+                           Long toAccountId,
+                           BigDecimal amount,
+                           LocalDateTime transferDate,
+                           String status) {
+}
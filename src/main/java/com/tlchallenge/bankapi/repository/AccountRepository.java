@@ -1,9 +1,20 @@
 package com.tlchallenge.bankapi.repository;
 
 import com.tlchallenge.bankapi.model.Account;
+import com.tlchallenge.bankapi.model.dto.AccountView;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,8 +25,121 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
      */
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    /**
+     * Obtener el id de la cuenta con ese número
+     */
+    @Query("SELECT a.id FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<Long> findIdByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    /**
+     * Obtener el número y el id de todas las cuentas, para cargar el índice por número de cuenta
+     */
+    @Query("SELECT a.accountNumber AS accountNumber, a.id AS id FROM Account a")
+    List<AccountNumberRow> findAllAccountNumbers();
+
     /**
      * Comprobar si existe una cuenta por su número
      */
     boolean existsByAccountNumber(String accountNumber);
+
+    /**
+     * Obtener las cuentas con saldo repartido en slots (balanceSlots > 0)
+     */
+    List<Account> findByBalanceSlotsGreaterThan(int balanceSlots);
+
+    /**
+     * Obtener el número de slots de saldo de una cuenta
+     */
+    @Query("SELECT a.balanceSlots FROM Account a WHERE a.id = :id")
+    Optional<Integer> findBalanceSlotsById(@Param("id") Long id);
+
+    // Reads select the columns straight into AccountView, so no entity enters the persistence context.
+    // slotBalance is what striped accounts hold in account_balance_slots on top of the row balance.
+    String SELECT_VIEW = "SELECT new com.tlchallenge.bankapi.model.dto.AccountView("
+            + "a.id, a.accountNumber, a.balance, a.createdAt, a.updatedAt, a.version, a.balanceSlots, "
+            + "(SELECT COALESCE(SUM(s.balance), 0) FROM AccountBalanceSlot s WHERE s.accountId = a.id)) FROM Account a ";
+
+    /**
+     * Buscar cuenta por ID para lectura
+     */
+    @Query(SELECT_VIEW + "WHERE a.id = :id")
+    Optional<AccountView> findViewById(@Param("id") Long id);
+
+    /**
+     * Página de cuentas con id mayor que el cursor, recorriendo la clave primaria (sin OFFSET)
+     */
+    @Query(SELECT_VIEW + "WHERE a.id > :after ORDER BY a.id")
+    List<AccountView> findViewsAfter(@Param("after") Long after, Limit limit);
+
+    /**
+     * Resumen diario de una cuenta entre dos fechas (ambas incluidas), recorriendo la clave primaria
+     * (account_id, summary_date) de daily_account_summary
+     */
+    @Query(nativeQuery = true, value = """
+            SELECT summary_date AS "summaryDate", debit_total AS "debitTotal", debit_count AS "debitCount",
+                   credit_total AS "creditTotal", credit_count AS "creditCount", closing_balance AS "closingBalance"
+            FROM daily_account_summary
+            WHERE account_id = :accountId AND summary_date BETWEEN :from AND :to
+            ORDER BY summary_date
+            """)
+    List<DailySummaryRow> findDailySummary(@Param("accountId") Long accountId,
+                                           @Param("from") LocalDate from,
+                                           @Param("to") LocalDate to);
+
+    /**
+     * Buscar cuenta por ID bloqueando la fila (SELECT ... FOR UPDATE) hasta el fin de la transacción
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Espacio de nombres de los advisory locks de cuentas ("BANK"), para no chocar con los de otras
+     * aplicaciones o herramientas que usen la misma base de datos
+     */
+    int ACCOUNT_LOCK_NAMESPACE = 0x42414E4B;
+
+    /**
+     * Tomar el advisory lock {@code (namespace, key)} hasta el fin de la transacción, sin tocar ninguna fila
+     */
+    @Query(nativeQuery = true, value = "SELECT 1 FROM pg_advisory_xact_lock(:namespace, :key)")
+    Integer advisoryLock(@Param("namespace") int namespace, @Param("key") int key);
+
+    /**
+     * Bloquear varias cuentas con una única consulta IN. Las filas se bloquean en orden ascendente de id.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Debitar la cuenta solo si el saldo cubre el importe. Devuelve 0 si la cuenta
+     * no existe o no tiene fondos suficientes. Vacía el contexto de persistencia, cuyas cuentas quedan obsoletas
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.version = a.version + 1, "
+            + "a.updatedAt = CURRENT_TIMESTAMP WHERE a.id = :id AND a.balance >= :amount")
+    int debitIfSufficientFunds(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Acreditar la cuenta. Devuelve 0 si la cuenta no existe. Vacía el contexto de persistencia, como el débito
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.version = a.version + 1, "
+            + "a.updatedAt = CURRENT_TIMESTAMP WHERE a.id = :id")
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    interface AccountNumberRow {
+        String getAccountNumber();
+        Long getId();
+    }
+
+    interface DailySummaryRow {
+        LocalDate getSummaryDate();
+        BigDecimal getDebitTotal();
+        Integer getDebitCount();
+        BigDecimal getCreditTotal();
+        Integer getCreditCount();
+        BigDecimal getClosingBalance();
+    }
 }
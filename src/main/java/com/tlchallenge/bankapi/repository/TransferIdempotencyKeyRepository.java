@@ -0,0 +1,69 @@
+package com.tlchallenge.bankapi.repository;
+
+import com.tlchallenge.bankapi.model.TransferIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface TransferIdempotencyKeyRepository extends JpaRepository<TransferIdempotencyKey, String> {
+
+    /**
+     * Reservar la clave con una fila PENDING si nadie la ha registrado antes. Devuelve 0 si ya existía.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO transfer_idempotency_keys "
+            + "(idempotency_key, request_fingerprint, status, claim_token, claimed_at, created_at) "
+            + "VALUES (:key, :fingerprint, 'PENDING', :token, :now, :now) "
+            + "ON CONFLICT (idempotency_key) DO NOTHING", nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("fingerprint") String fingerprint,
+              @Param("token") String token,
+              @Param("now") LocalDateTime now);
+
+    /**
+     * Quedarse con una clave PENDING reservada antes de {@code staleBefore} por otra petición con el mismo
+     * contenido. Devuelve 0 si ya se completó, se liberó o alguien la tomó antes
+     */
+    @Modifying
+    @Query("UPDATE TransferIdempotencyKey k SET k.claimToken = :token, k.claimedAt = :now "
+            + "WHERE k.idempotencyKey = :key AND k.requestFingerprint = :fingerprint AND k.status = 'PENDING' "
+            + "AND k.claimedAt < :staleBefore")
+    int takeOver(@Param("key") String key,
+                 @Param("fingerprint") String fingerprint,
+                 @Param("token") String token,
+                 @Param("now") LocalDateTime now,
+                 @Param("staleBefore") LocalDateTime staleBefore);
+
+    /**
+     * Guardar la respuesta de una clave si {@code token} sigue teniéndola reservada. Devuelve 0 si no
+     */
+    @Modifying
+    @Query("UPDATE TransferIdempotencyKey k SET k.status = 'COMPLETED', k.transferId = :transferId, "
+            + "k.responseBody = :responseBody, k.claimToken = NULL "
+            + "WHERE k.idempotencyKey = :key AND k.status = 'PENDING' AND k.claimToken = :token")
+    int complete(@Param("key") String key,
+                 @Param("token") String token,
+                 @Param("transferId") Long transferId,
+                 @Param("responseBody") String responseBody);
+
+    /**
+     * Liberar una clave reservada con {@code token} cuya transferencia no se creó
+     */
+    @Modifying
+    @Query("DELETE FROM TransferIdempotencyKey k WHERE k.idempotencyKey = :key AND k.status = 'PENDING' "
+            + "AND k.claimToken = :token")
+    int release(@Param("key") String key, @Param("token") String token);
+
+    /**
+     * Eliminar las claves registradas antes de la fecha indicada; las PENDING solo si {@code includePending}
+     */
+    @Modifying
+    @Query("DELETE FROM TransferIdempotencyKey k WHERE k.createdAt < :cutoff "
+            + "AND (k.status = 'COMPLETED' OR :includePending = true)")
+    int deleteExpired(@Param("cutoff") LocalDateTime cutoff, @Param("includePending") boolean includePending);
+}
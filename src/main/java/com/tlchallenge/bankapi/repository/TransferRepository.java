@@ -1,15 +1,106 @@
 package com.tlchallenge.bankapi.repository;
 
 import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.dto.TransferView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransferRepository extends JpaRepository<Transfer, Long> {
 
-    List<Transfer> findByFromAccountIdOrderByTransferDateDesc(Long fromAccountId);
+    /**
+     * Filas que el driver trae por cada viaje al servidor al recorrer streamByTransferDateRange
+     */
+    int EXPORT_FETCH_SIZE = 1000;
 
-}
+    /**
+     * Límites de transfer_date que se pasan a las consultas cuando un extremo del rango queda abierto
+     */
+    LocalDateTime NO_LOWER_BOUND = LocalDateTime.of(1970, 1, 1, 0, 0);
+    LocalDateTime NO_UPPER_BOUND = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    // Reads select the columns straight into TransferView, so no entity enters the persistence context
+    String SELECT_VIEW = "SELECT new com.tlchallenge.bankapi.model.dto.TransferView("
+            + "t.id, t.fromAccountId, t.toAccountId, t.amount, t.transferDate, t.status) FROM Transfer t ";
+
+    /**
+     * Buscar transferencia por ID para lectura
+     */
+    @Query(SELECT_VIEW + "WHERE t.id = :id")
+    Optional<TransferView> findViewById(@Param("id") Long id);
+
+    /**
+     * Transferencias enviadas por una cuenta, de la más reciente a la más antigua
+     */
+    @Query(SELECT_VIEW + "WHERE t.fromAccountId = :fromAccountId ORDER BY t.transferDate DESC")
+    List<TransferView> findViewsByFromAccountId(@Param("fromAccountId") Long fromAccountId);
 
+    /**
+     * Página de transferencias con id mayor que el cursor, recorriendo la clave primaria (sin OFFSET)
+     */
+    @Query(SELECT_VIEW + "WHERE t.id > :after ORDER BY t.id")
+    List<TransferView> findViewsAfter(@Param("after") Long after, Limit limit);
+
+    /**
+     * Movimientos de una cuenta (salientes y entrantes) anteriores al cursor (beforeDate, beforeId),
+     * del más reciente al más antiguo. Cada dirección se lee por su índice (cuenta, transfer_date DESC, id DESC)
+     * y solo se combinan las primeras {@code limit} filas de cada una.
+     */
+    @Query(value = """
+            SELECT id, from_account_id AS "fromAccountId", to_account_id AS "toAccountId", amount,
+                   transfer_date AS "transferDate", status, direction
+            FROM (
+                (SELECT t.*, 'OUT' AS direction FROM transfers t
+                 WHERE t.from_account_id = :accountId AND (t.transfer_date, t.id) < (:beforeDate, :beforeId)
+                 ORDER BY t.transfer_date DESC, t.id DESC LIMIT :limit)
+                UNION ALL
+                (SELECT t.*, 'IN' AS direction FROM transfers t
+                 WHERE t.to_account_id = :accountId AND t.from_account_id <> :accountId
+                   AND (t.transfer_date, t.id) < (:beforeDate, :beforeId)
+                 ORDER BY t.transfer_date DESC, t.id DESC LIMIT :limit)
+            ) movements
+            ORDER BY transfer_date DESC, id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<StatementRow> findStatement(@Param("accountId") Long accountId,
+                                     @Param("beforeDate") LocalDateTime beforeDate,
+                                     @Param("beforeId") Long beforeId,
+                                     @Param("limit") int limit);
+
+    /**
+     * Recorrer las transferencias de un rango de fechas [from, to) con un cursor del servidor.
+     * Debe consumirse dentro de una transacción; PostgreSQL solo usa el cursor con autocommit desactivado.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_VIEW + "WHERE t.transferDate >= :from AND t.transferDate < :to ORDER BY t.id")
+    Stream<TransferView> streamByTransferDateRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Fila de un extracto: la transferencia y su dirección (IN/OUT) respecto de la cuenta consultada
+     */
+    interface StatementRow {
+        Long getId();
+        Long getFromAccountId();
+        Long getToAccountId();
+        BigDecimal getAmount();
+        LocalDateTime getTransferDate();
+        String getStatus();
+        String getDirection();
+    }
+}
@@ -2,14 +2,21 @@ package com.tlchallenge.bankapi.service;
 
 import com.tlchallenge.bankapi.model.Account;
 import com.tlchallenge.bankapi.model.dto.AccountDto;
+import com.tlchallenge.bankapi.model.dto.AccountView;
+import com.tlchallenge.bankapi.model.dto.CursorPage;
+import com.tlchallenge.bankapi.model.dto.DailySummary;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 public interface AccountService {
-    Optional<Account> getAccountById(Long id);
+    Optional<AccountView> getAccountById(Long id);
+    AccountView getAccountByNumber(String accountNumber);
     Account createAccount(AccountDto dto);
     Account updateAccount(Long id, AccountDto dto);
     boolean deleteAccount(Long id);
-    List<Account> getAllAccounts();
+    CursorPage<AccountView> getAccounts(Long after, int limit);
+    Account configureBalanceSlots(Long id, int slots);
+    List<DailySummary> getDailySummary(Long id, LocalDate from, LocalDate to);
 }
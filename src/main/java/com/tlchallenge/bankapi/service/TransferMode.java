@@ -0,0 +1,27 @@
+package com.tlchallenge.bankapi.service;
+
+/**
+ * Estrategia usada por createTransfer para mover saldo entre cuentas.
+ * Se selecciona con la propiedad {@code bankapi.transfer.mode}.
+ */
+public enum TransferMode {
+
+    /**
+     * Bloquea ambas filas (SELECT ... FOR UPDATE) en orden ascendente de id, valida el saldo
+     * en Java y guarda las entidades.
+     */
+    ENTITY,
+
+    /**
+     * Debita con un único UPDATE condicionado al saldo y acredita con otro UPDATE,
+     * sin cargar las entidades.
+     */
+    CONDITIONAL_UPDATE,
+
+    /**
+     * Como ENTITY, pero serializa con pg_advisory_xact_lock sobre los ids de las cuentas, en orden
+     * ascendente, y después lee las filas sin FOR UPDATE. La espera ocurre en la tabla de locks y no
+     * en las tuplas, así que no genera tuple locks ni MultiXacts en las cuentas más disputadas.
+     */
+    ADVISORY_LOCK
+}
@@ -0,0 +1,63 @@
+package com.tlchallenge.bankapi.service;
+
+import com.tlchallenge.bankapi.exception.TransferRejectedException;
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.dto.TransferDto;
+
+/**
+ * Resultado de una transferencia aplicada dentro de un grupo: la transferencia guardada
+ * (COMPLETED o REJECTED) o el motivo por el que no se pudo registrar.
+ */
+public class TransferOutcome {
+
+    private final Transfer transfer;
+    private final String reason;
+    private final boolean accountMissing;
+
+    private TransferOutcome(Transfer transfer, String reason, boolean accountMissing) {
+        this.transfer = transfer;
+        this.reason = reason;
+        this.accountMissing = accountMissing;
+    }
+
+    public static TransferOutcome completed(Transfer transfer) {
+        return new TransferOutcome(transfer, null, false);
+    }
+
+    public static TransferOutcome rejected(Transfer transfer, String reason) {
+        return new TransferOutcome(transfer, reason, false);
+    }
+
+    public static TransferOutcome accountMissing(String reason) {
+        return new TransferOutcome(null, reason, true);
+    }
+
+    public Transfer getTransfer() {
+        return transfer;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public String getStatus() {
+        return transfer != null ? transfer.getStatus() : "REJECTED";
+    }
+
+    public Long getTransferId() {
+        return transfer != null ? transfer.getId() : null;
+    }
+
+    /**
+     * Devolver la transferencia completada o lanzar la misma excepción que createTransfer
+     */
+    public Transfer toResponse(TransferDto dto) {
+        if (accountMissing) {
+            throw new IllegalArgumentException(reason);
+        }
+        if (reason != null) {
+            throw new TransferRejectedException(dto.getFromAccountId(), dto.getToAccountId(), reason);
+        }
+        return transfer;
+    }
+}
@@ -1,17 +1,23 @@
 package com.tlchallenge.bankapi.service;
 
 import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.dto.AccountStatementPage;
+import com.tlchallenge.bankapi.model.dto.CursorPage;
+import com.tlchallenge.bankapi.model.dto.TransferBatchItemResult;
 import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.model.dto.TransferView;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
 public interface TransferService {
-    Optional<Transfer> getTransferById(Long id);
+    Optional<TransferView> getTransferById(Long id);
     Transfer createTransfer(TransferDto dto);
-    List<Transfer> getAllTransfers();
+    List<TransferBatchItemResult> createTransfers(List<TransferDto> dtos);
+    CursorPage<TransferView> getTransfers(Long after, int limit);
     BigDecimal getAccountBalance(Long accountId);
-    List<Transfer> getTransfersByFromAccountId(Long fromAccountId);
+    List<TransferView> getTransfersByFromAccountId(Long fromAccountId);
+    AccountStatementPage getAccountStatement(Long accountId, String cursor, int limit);
 }
 
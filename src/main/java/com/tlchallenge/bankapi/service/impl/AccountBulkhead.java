@@ -0,0 +1,198 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.exception.AccountBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admisión por cuenta antes de abrir la transacción de una transferencia. Cada cuenta cae, por hash de
+ * su id, en una de {@code bankapi.transfer.bulkhead.stripes} franjas con {@code permits} permisos. Las
+ * transferencias de una cuenta muy solicitada esperan aquí, en memoria, en lugar de ocupar conexiones
+ * del pool esperando el bloqueo de su fila. Si no hay permiso en {@code timeout-ms} se responde 429.
+ * Los grupos de transferencias (trozos de lote y group commit) pasan por una admisión aparte de
+ * {@code bulk-permits} permisos y no ocupan franjas, para no dejar sin turno a las transferencias sueltas.
+ */
+@Component
+public class AccountBulkhead {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountBulkhead.class);
+
+    public static final String HOTTEST_METRIC = "bankapi.transfer.bulkhead.hottest";
+    public static final String REJECTED_METRIC = "bankapi.transfer.bulkhead.rejected";
+
+    static final int HOTTEST_RANKS = 5;
+
+    private static final Permit NONE = new Permit(new Semaphore[0]);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bankapi.transfer.bulkhead.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${bankapi.transfer.bulkhead.stripes:1024}")
+    private int stripeCount = 1024;
+
+    @Value("${bankapi.transfer.bulkhead.permits:2}")
+    private int permits = 2;
+
+    @Value("${bankapi.transfer.bulkhead.timeout-ms:5000}")
+    private long timeoutMs = 5000;
+
+    @Value("${bankapi.transfer.bulkhead.bulk-permits:2}")
+    private int bulkPermits = 2;
+
+    private Semaphore[] stripes;
+    private Semaphore bulk;
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        stripes = new Semaphore[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Semaphore(permits, true);
+        }
+        bulk = new Semaphore(bulkPermits, true);
+        if (!enabled) {
+            return;
+        }
+        for (int rank = 1; rank <= HOTTEST_RANKS; rank++) {
+            int index = rank - 1;
+            Gauge.builder(HOTTEST_METRIC, this, bulkhead -> bulkhead.hottestDemand()[index])
+                    .description("Transfers holding or waiting for the permits of the n-th busiest account stripe")
+                    .tag("rank", String.valueOf(rank))
+                    .register(meterRegistry);
+        }
+        rejected = Counter.builder(REJECTED_METRIC)
+                .description("Transfers rejected because their account stripe stayed busy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tomar los permisos de las franjas de ambas cuentas (una cuenta null se ignora), en orden de franja
+     * para que dos transferencias cruzadas no se bloqueen entre sí. Se liberan al cerrar el permiso
+     */
+    public Permit acquire(Long fromAccountId, Long toAccountId) {
+        if (!enabled) {
+            return NONE;
+        }
+        // First account of each stripe, by ascending stripe, so every caller takes them in the same order
+        SortedMap<Integer, Long> order = new TreeMap<>();
+        for (Long accountId : Arrays.asList(fromAccountId, toAccountId)) {
+            if (accountId != null) {
+                order.putIfAbsent(stripeOf(accountId), accountId);
+            }
+        }
+        if (order.isEmpty()) {
+            return NONE;
+        }
+
+        Semaphore[] taken = new Semaphore[order.size()];
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        int count = 0;
+        try {
+            for (Map.Entry<Integer, Long> entry : order.entrySet()) {
+                int stripe = entry.getKey();
+                if (!stripes[stripe].tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    log.warn("Account {} stayed busy for {}ms (stripe {}, {} waiting)",
+                            entry.getValue(), timeoutMs, stripe, stripes[stripe].getQueueLength());
+                    rejected.increment();
+                    throw new AccountBusyException(entry.getValue());
+                }
+                taken[count++] = stripes[stripe];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountBusyException(order.get(order.firstKey()));
+        } finally {
+            if (count < taken.length) {
+                for (int i = 0; i < count; i++) {
+                    taken[i].release();
+                }
+            }
+        }
+        return new Permit(taken);
+    }
+
+    /**
+     * Tomar uno de los permisos de grupo para un grupo de transferencias sobre las cuentas dadas. Un grupo
+     * no toma permisos de franja: si lo hiciera, retendría las franjas de todas sus cuentas a la vez
+     */
+    public Permit acquireBulk(Collection<Long> accountIds) {
+        if (!enabled) {
+            return NONE;
+        }
+        try {
+            if (!bulk.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Transfer groups stayed busy for {}ms ({} waiting)", timeoutMs, bulk.getQueueLength());
+                rejected.increment();
+                throw new AccountBusyException(firstAccount(accountIds));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountBusyException(firstAccount(accountIds));
+        }
+        return new Permit(new Semaphore[] {bulk});
+    }
+
+    private static Long firstAccount(Collection<Long> accountIds) {
+        return accountIds.stream().filter(Objects::nonNull).findFirst().orElse(null);
+    }
+
+    int stripeOf(long accountId) {
+        // Fibonacci hashing spreads consecutive ids across the stripes
+        return (int) (((accountId * 0x9E3779B97F4A7C15L) >>> 32) % stripeCount);
+    }
+
+    /**
+     * Demanda (permisos en uso más transferencias esperando) de las franjas más ocupadas, de mayor a menor
+     */
+    long[] hottestDemand() {
+        long[] demand = new long[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            demand[i] = permits - stripes[i].availablePermits() + stripes[i].getQueueLength();
+        }
+        Arrays.sort(demand);
+        long[] hottest = new long[HOTTEST_RANKS];
+        for (int rank = 0; rank < HOTTEST_RANKS && rank < demand.length; rank++) {
+            hottest[rank] = demand[demand.length - 1 - rank];
+        }
+        return hottest;
+    }
+
+    public static final class Permit implements AutoCloseable {
+        private final Semaphore[] taken;
+        private boolean released;
+
+        private Permit(Semaphore[] taken) {
+            this.taken = taken;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            for (int i = taken.length - 1; i >= 0; i--) {
+                taken[i].release();
+            }
+        }
+    }
+}
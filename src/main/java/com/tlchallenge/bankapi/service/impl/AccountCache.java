@@ -0,0 +1,92 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tlchallenge.bankapi.model.dto.AccountView;
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Caché en memoria de cuentas para las lecturas (GET /api/v1/accounts/{id} y el saldo), acotada por
+ * tamaño ({@code bankapi.account.cache.max-size}) y por tiempo ({@code bankapi.account.cache.ttl-ms}).
+ * Todo lo que modifica una cuenta la invalida tras el commit con {@link #evictAfterCommit}, así que en
+ * este nodo una lectura nunca ve un saldo anterior a la última transferencia confirmada. El TTL acota
+ * cuánto tardan en verse los cambios hechos por otras instancias.
+ */
+@Component
+public class AccountCache {
+
+    public static final String CACHE_NAME = "accounts";
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bankapi.account.cache.max-size:10000}")
+    private long maxSize = 10000;
+
+    @Value("${bankapi.account.cache.ttl-ms:30000}")
+    private long ttlMs = 30000;
+
+    private Cache<Long, AccountView> accounts;
+
+    @PostConstruct
+    public void init() {
+        accounts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, accounts, CACHE_NAME);
+    }
+
+    /**
+     * Obtener la cuenta desde la caché o, si no está, desde la base de datos
+     */
+    public Optional<AccountView> findById(Long id) {
+        // The load runs under the entry's lock, so an eviction of the same id waits for it: a row read
+        // before a commit cannot stay cached after that commit's eviction
+        return Optional.ofNullable(accounts.get(id, key -> accountRepository.findViewById(key).orElse(null)));
+    }
+
+    /**
+     * Invalidar las cuentas cuando la transacción actual se confirme (al momento si no hay transacción).
+     * Si la transacción se revierte no se invalida nada, porque las filas no han cambiado.
+     */
+    public void evictAfterCommit(Collection<Long> ids) {
+        List<Long> keys = ids.stream().filter(Objects::nonNull).toList();
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accounts.invalidateAll(keys);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accounts.invalidateAll(keys);
+            }
+        });
+    }
+
+    public void evictAfterCommit(Long... ids) {
+        evictAfterCommit(Arrays.asList(ids));
+    }
+}
@@ -0,0 +1,185 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria accountNumber → id. Se carga entero al arrancar y se mantiene al día tras el commit
+ * de cada alta, modificación y baja de cuenta, así que resolver un número de cuenta no consulta la base
+ * de datos. Un número que no está en el índice (una cuenta creada por otra instancia) se busca una vez y
+ * se añade; la recarga periódica ({@code bankapi.account.number-index.refresh-interval-ms}) recoge los
+ * cambios y bajas hechos por otras instancias. Las escrituras resuelven el número contra la base de datos
+ * con {@link #resolveForWrite(String)}, ya que una entrada del índice puede estar desfasada.
+ */
+@Component
+public class AccountNumberIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountNumberIndex.class);
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile Map<String, Long> ids = new ConcurrentHashMap<>();
+
+    // Changes to the index take the read side; a reload swaps in its snapshot under the write side
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    // Numbers changed while a reload was reading the table, or null when no reload is running
+    private Set<String> changedDuringLoad;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("bankapi.account.number.index.size", this, index -> index.ids.size())
+                .description("Account numbers held in the in-memory index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        trackChanges(ConcurrentHashMap.newKeySet());
+        Map<String, Long> loaded = new ConcurrentHashMap<>();
+        try {
+            for (AccountRepository.AccountNumberRow row : accountRepository.findAllAccountNumbers()) {
+                loaded.put(row.getAccountNumber(), row.getId());
+            }
+        } catch (RuntimeException e) {
+            trackChanges(null);
+            throw e;
+        }
+
+        swapLock.writeLock().lock();
+        try {
+            // A number changed after the snapshot was read keeps its current entry instead of the snapshot's
+            for (String accountNumber : changedDuringLoad) {
+                Long current = ids.get(accountNumber);
+                if (current != null) {
+                    loaded.put(accountNumber, current);
+                } else {
+                    loaded.remove(accountNumber);
+                }
+            }
+            ids = loaded;
+            changedDuringLoad = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        log.info("Account number index loaded with {} accounts", loaded.size());
+    }
+
+    @Scheduled(initialDelayString = "${bankapi.account.number-index.refresh-interval-ms:300000}",
+            fixedDelayString = "${bankapi.account.number-index.refresh-interval-ms:300000}")
+    public void refresh() {
+        load();
+    }
+
+    /**
+     * Obtener el id de la cuenta con ese número, o vacío si no existe
+     */
+    public Optional<Long> resolve(String accountNumber) {
+        if (accountNumber == null) {
+            return Optional.empty();
+        }
+        Long id = ids.get(accountNumber);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        // Unknown numbers are not remembered, so a missing account costs a query on each lookup
+        Optional<Long> found = accountRepository.findIdByAccountNumber(accountNumber);
+        found.ifPresent(value -> change(accountNumber, () -> ids.putIfAbsent(accountNumber, value)));
+        return found;
+    }
+
+    /**
+     * Obtener el id de la cuenta con ese número desde la base de datos, para mover dinero con él: el índice
+     * puede no haber visto aún un cambio de número hecho en otra instancia. Corrige la entrada si estaba desfasada.
+     */
+    public Optional<Long> resolveForWrite(String accountNumber) {
+        if (accountNumber == null) {
+            return Optional.empty();
+        }
+        Optional<Long> found = accountRepository.findIdByAccountNumber(accountNumber);
+        Long cached = ids.get(accountNumber);
+        if (cached != null && !found.equals(Optional.of(cached))) {
+            forget(accountNumber, cached);
+        }
+        found.ifPresent(value -> change(accountNumber, () -> ids.putIfAbsent(accountNumber, value)));
+        return found;
+    }
+
+    /**
+     * Registrar el número de una cuenta cuando la transacción actual se confirme
+     */
+    public void putAfterCommit(String accountNumber, Long id) {
+        afterCommit(() -> change(accountNumber, () -> ids.put(accountNumber, id)));
+    }
+
+    /**
+     * Quitar el número de una cuenta cuando la transacción actual se confirme. Solo se quita si sigue
+     * apuntando a esa cuenta, para no borrar el número si ya lo ha tomado otra.
+     */
+    public void removeAfterCommit(String accountNumber, Long id) {
+        afterCommit(() -> change(accountNumber, () -> ids.remove(accountNumber, id)));
+    }
+
+    /**
+     * Olvidar una entrada que ha resultado no estar al día
+     */
+    public void forget(String accountNumber, Long id) {
+        change(accountNumber, () -> ids.remove(accountNumber, id));
+    }
+
+    private void change(String accountNumber, Runnable action) {
+        swapLock.readLock().lock();
+        try {
+            action.run();
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(accountNumber);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void trackChanges(Set<String> changed) {
+        swapLock.writeLock().lock();
+        try {
+            changedDuringLoad = changed;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
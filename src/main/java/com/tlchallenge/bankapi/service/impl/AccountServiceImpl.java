@@ -1,15 +1,26 @@
 package com.tlchallenge.bankapi.service.impl;
 
+import com.tlchallenge.bankapi.exception.AccountManagedByLedgerException;
 import com.tlchallenge.bankapi.exception.AccountNotFoundException;
 import com.tlchallenge.bankapi.exception.InvalidAccountDataException;
+import com.tlchallenge.bankapi.metrics.AccountConflictMetrics;
 import com.tlchallenge.bankapi.model.Account;
 import com.tlchallenge.bankapi.model.dto.AccountDto;
+import com.tlchallenge.bankapi.model.dto.AccountView;
+import com.tlchallenge.bankapi.model.dto.CursorPage;
+import com.tlchallenge.bankapi.model.dto.DailySummary;
 import com.tlchallenge.bankapi.repository.AccountRepository;
 import com.tlchallenge.bankapi.service.AccountService;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -20,18 +31,58 @@ public class AccountServiceImpl implements AccountService {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private AccountConflictMetrics accountConflictMetrics;
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private AccountNumberIndex accountNumberIndex;
+
+    @Value("${bankapi.pagination.max-limit:1000}")
+    private int maxPageSize = 1000;
+
+    // With the ledger engine the balances are owned by its partitions; writes here would be overwritten or,
+    // for a deleted account, leave journal entries that can never be applied
+    @Value("${bankapi.transfer.engine:database}")
+    private String transferEngine = "database";
+
     /**
      * Obtener cuenta por ID
      */
     @CircuitBreaker(name = "account-service", fallbackMethod = "fallbackGetAccount")
-    public Optional<Account> getAccountById(Long id) {
-        return Optional.ofNullable(accountRepository.findById(id).orElseThrow(() -> new AccountNotFoundException(id)));
+    public Optional<AccountView> getAccountById(Long id) {
+        return Optional.ofNullable(accountCache.findById(id).orElseThrow(() -> new AccountNotFoundException(id)));
+    }
+
+    /**
+     * Obtener cuenta por número de cuenta, resolviendo el id con el índice en memoria
+     */
+    @Override
+    public AccountView getAccountByNumber(String accountNumber) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Optional<Long> id = accountNumberIndex.resolve(accountNumber);
+            if (id.isEmpty()) {
+                break;
+            }
+            Optional<AccountView> account = accountCache.findById(id.get());
+            if (account.isPresent() && account.get().accountNumber().equals(accountNumber)) {
+                return account.get();
+            }
+            // The entry was stale (the account was renamed or deleted on another instance): drop it and look again
+            accountNumberIndex.forget(accountNumber, id.get());
+        }
+        throw new AccountNotFoundException(accountNumber);
     }
 
     /**
      * Fallback method for getAccountById
      */
-    public Optional<Account> fallbackGetAccount(Long id, Exception ex) {
+    public Optional<AccountView> fallbackGetAccount(Long id, Exception ex) {
         // Log the fallback and return empty optional
         return Optional.empty();
     }
@@ -53,12 +104,15 @@ public class AccountServiceImpl implements AccountService {
         account.setCreatedAt(LocalDateTime.now());
         account.setUpdatedAt(LocalDateTime.now());
 
-        return accountRepository.save(account);
+        Account saved = accountRepository.save(account);
+        accountNumberIndex.putAfterCommit(saved.getAccountNumber(), saved.getId());
+        return saved;
     }
 
     /**
      * Actualizar cuenta existente
      */
+    @Transactional
     public Account updateAccount(Long id, AccountDto dto) {
         Account account = accountRepository.findById(id).orElseThrow(() -> new AccountNotFoundException(id));
 
@@ -69,11 +123,42 @@ public class AccountServiceImpl implements AccountService {
             throw new InvalidAccountDataException("account balance", "Balance must be non-negative");
         }
 
-        account.setAccountNumber(dto.getAccountNumber());
-        account.setBalance(dto.getBalance());
-        account.setUpdatedAt(LocalDateTime.now());
-
-        return accountRepository.save(account);
+        try {
+            if (dto.getVersion() != null && !dto.getVersion().equals(account.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Account.class, id);
+            }
+
+            if (ledgerEngine()) {
+                BigDecimal stored = account.getBalanceSlots() > 0
+                        ? account.getBalance().add(stripedBalanceService.slotBalance(id))
+                        : account.getBalance();
+                if (dto.getBalance().compareTo(stored) != 0) {
+                    throw new AccountManagedByLedgerException(id,
+                            "The balance of account " + id + " can only change through transfers while the ledger engine is on");
+                }
+            }
+
+            if (account.getBalanceSlots() > 0) {
+                // The new balance replaces the whole balance, including what sits in the slots
+                stripedBalanceService.drainSlots(id);
+            }
+
+            String previousNumber = account.getAccountNumber();
+            account.setAccountNumber(dto.getAccountNumber());
+            account.setBalance(dto.getBalance());
+            account.setUpdatedAt(LocalDateTime.now());
+            accountCache.evictAfterCommit(id);
+
+            Account saved = accountRepository.save(account);
+            if (!dto.getAccountNumber().equals(previousNumber)) {
+                accountNumberIndex.removeAfterCommit(previousNumber, id);
+                accountNumberIndex.putAfterCommit(dto.getAccountNumber(), id);
+            }
+            return saved;
+        } catch (ObjectOptimisticLockingFailureException e) {
+            accountConflictMetrics.recordConflict(e, "update");
+            throw e;
+        }
     }
 
     /**
@@ -81,16 +166,59 @@ public class AccountServiceImpl implements AccountService {
      */
     public boolean deleteAccount(Long id) {
         Account account = accountRepository.findById(id).orElseThrow(() -> new AccountNotFoundException(id));
+        if (ledgerEngine()) {
+            throw new AccountManagedByLedgerException(id,
+                    "Account " + id + " cannot be deleted while the ledger engine is on");
+        }
         accountRepository.delete(account);
+        accountCache.evictAfterCommit(id);
+        accountNumberIndex.removeAfterCommit(account.getAccountNumber(), id);
 
         return true;
     }
 
     /**
-     * Obtener todas las cuentas
+     * Obtener una página de cuentas ordenadas por id, a partir del cursor {@code after}
      */
-    public List<Account> getAllAccounts() {
-        return accountRepository.findAll();
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<AccountView> getAccounts(Long after, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), maxPageSize);
+        List<AccountView> rows = accountRepository.findViewsAfter(after != null ? after : 0L, Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, AccountView::id);
+    }
+
+    /**
+     * Configurar el número de slots de saldo de una cuenta (0 lo desactiva)
+     */
+    @Override
+    public Account configureBalanceSlots(Long id, int slots) {
+        if (ledgerEngine()) {
+            throw new AccountManagedByLedgerException(id,
+                    "Balance slots of account " + id + " cannot be changed while the ledger engine is on");
+        }
+        return stripedBalanceService.configureSlots(id, slots);
     }
-}
 
+    private boolean ledgerEngine() {
+        return "ledger".equals(transferEngine);
+    }
+
+    /**
+     * Obtener los totales diarios de una cuenta entre dos fechas, ambas incluidas
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailySummary> getDailySummary(Long id, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new InvalidAccountDataException("date range", "from must not be after to");
+        }
+        if (!accountRepository.existsById(id)) {
+            throw new AccountNotFoundException(id);
+        }
+        return accountRepository.findDailySummary(id, from, to).stream()
+                .map(row -> new DailySummary(row.getSummaryDate(), row.getDebitTotal(), row.getDebitCount(),
+                        row.getCreditTotal(), row.getCreditCount(), row.getClosingBalance()))
+                .toList();
+    }
+}
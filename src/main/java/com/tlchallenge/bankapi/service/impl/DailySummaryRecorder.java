@@ -0,0 +1,139 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mantiene daily_account_summary (débitos, créditos y saldo de cierre por cuenta y día) en la misma
+ * transacción que las transferencias. Las transferencias completadas se acumulan en memoria durante la
+ * transacción y justo antes del commit se escriben con un único upsert por lotes, en orden de
+ * (cuenta, día) para que dos transacciones nunca se bloqueen en orden cruzado. El saldo de cierre se
+ * vuelve a leer después, cuando el upsert ya tiene bloqueadas las filas del resumen.
+ */
+@Component
+public class DailySummaryRecorder {
+
+    static final String UPSERT = "INSERT INTO daily_account_summary "
+            + "(account_id, summary_date, debit_total, debit_count, credit_total, credit_count, closing_balance) "
+            + "SELECT a.id, ?, ?, ?, ?, ?, "
+            + "a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0) "
+            + "FROM accounts a WHERE a.id = ? "
+            + "ON CONFLICT (account_id, summary_date) DO UPDATE SET "
+            + "debit_total = daily_account_summary.debit_total + EXCLUDED.debit_total, "
+            + "debit_count = daily_account_summary.debit_count + EXCLUDED.debit_count, "
+            + "credit_total = daily_account_summary.credit_total + EXCLUDED.credit_total, "
+            + "credit_count = daily_account_summary.credit_count + EXCLUDED.credit_count, "
+            + "closing_balance = EXCLUDED.closing_balance";
+
+    // Runs once UPSERT holds the summary rows. In READ COMMITTED each statement takes a new snapshot, so this one
+    // sees every transfer that wrote the same rows and committed first; UPSERT's own value could predate them.
+    static final String REFRESH_CLOSING_BALANCE = "UPDATE daily_account_summary d SET closing_balance = "
+            + "a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0) "
+            + "FROM accounts a WHERE a.id = d.account_id AND d.account_id = ? AND d.summary_date = ?";
+
+    private static final Comparator<DayKey> KEY_ORDER =
+            Comparator.comparing(DayKey::accountId).thenComparing(DayKey::date);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    /**
+     * Sumar las transferencias completadas al resumen diario de sus cuentas. Con una transacción activa
+     * se escriben antes de su commit; sin transacción, al momento.
+     */
+    public void record(Collection<Transfer> transfers) {
+        List<Transfer> completed = transfers.stream().filter(t -> "COMPLETED".equals(t.getStatus())).toList();
+        if (completed.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingSummary pending = new PendingSummary();
+            completed.forEach(pending::add);
+            write(pending.totals);
+            return;
+        }
+        PendingSummary pending = (PendingSummary) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingSummary();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        completed.forEach(pending::add);
+    }
+
+    public void record(Transfer transfer) {
+        record(List.of(transfer));
+    }
+
+    private void write(Map<DayKey, DayTotals> totals) {
+        List<Map.Entry<DayKey, DayTotals>> rows = new ArrayList<>(totals.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT, rows, rows.size(), (ps, row) -> {
+            DayTotals day = row.getValue();
+            ps.setDate(1, Date.valueOf(row.getKey().date()));
+            ps.setBigDecimal(2, day.debitTotal);
+            ps.setInt(3, day.debitCount);
+            ps.setBigDecimal(4, day.creditTotal);
+            ps.setInt(5, day.creditCount);
+            ps.setLong(6, row.getKey().accountId());
+        });
+        jdbcTemplate.batchUpdate(REFRESH_CLOSING_BALANCE, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getKey().accountId());
+            ps.setDate(2, Date.valueOf(row.getKey().date()));
+        });
+    }
+
+    record DayKey(Long accountId, LocalDate date) {
+    }
+
+    static final class DayTotals {
+        BigDecimal debitTotal = BigDecimal.ZERO;
+        int debitCount;
+        BigDecimal creditTotal = BigDecimal.ZERO;
+        int creditCount;
+    }
+
+    private final class PendingSummary implements TransactionSynchronization {
+
+        private final Map<DayKey, DayTotals> totals = new TreeMap<>(KEY_ORDER);
+
+        void add(Transfer transfer) {
+            LocalDate date = transfer.getTransferDate().toLocalDate();
+            DayTotals from = totals.computeIfAbsent(new DayKey(transfer.getFromAccountId(), date), key -> new DayTotals());
+            from.debitTotal = from.debitTotal.add(transfer.getAmount());
+            from.debitCount++;
+            DayTotals to = totals.computeIfAbsent(new DayKey(transfer.getToAccountId(), date), key -> new DayTotals());
+            to.creditTotal = to.creditTotal.add(transfer.getAmount());
+            to.creditCount++;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Balance changes made through the entities must reach the database before the closing balance is read
+            accountRepository.flush();
+            write(totals);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DailySummaryRecorder.this);
+        }
+    }
+}
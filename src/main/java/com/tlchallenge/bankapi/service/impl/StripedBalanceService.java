@@ -0,0 +1,194 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tlchallenge.bankapi.exception.AccountNotFoundException;
+import com.tlchallenge.bankapi.exception.InvalidAccountDataException;
+import com.tlchallenge.bankapi.model.Account;
+import com.tlchallenge.bankapi.model.AccountBalanceSlot;
+import com.tlchallenge.bankapi.repository.AccountBalanceSlotRepository;
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Saldo repartido ("striped") para cuentas muy calientes. El saldo total de una cuenta con slots es
+ * accounts.balance más la suma de sus filas en account_balance_slots. Los créditos caen en un slot
+ * aleatorio y no bloquean la fila de la cuenta; los débitos siguen usando la fila de la cuenta y,
+ * si no alcanza, consolidan antes los slots en ella.
+ */
+@Service
+public class StripedBalanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(StripedBalanceService.class);
+
+    public static final int MAX_BALANCE_SLOTS = 64;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Value("${bankapi.striping.slots-ttl-ms:5000}")
+    private long slotsTtlMs = 5000;
+
+    // accountId -> number of slots (0 when not striped), read on demand from accounts.balance_slots. The TTL
+    // bounds how long a change made on another instance goes unnoticed here.
+    private Cache<Long, Integer> slotCounts;
+
+    @PostConstruct
+    public void init() {
+        slotCounts = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(slotsTtlMs))
+                .build();
+    }
+
+    public boolean isStriped(Long accountId) {
+        return accountId != null && slotCount(accountId) > 0;
+    }
+
+    private int slotCount(Long accountId) {
+        return slotCounts.get(accountId, id -> accountRepository.findBalanceSlotsById(id).orElse(0));
+    }
+
+    /**
+     * Acreditar en un slot aleatorio de la cuenta. Devuelve false si la cuenta no tiene slots,
+     * en cuyo caso el llamador debe acreditar la fila de la cuenta.
+     */
+    public boolean credit(Long accountId, BigDecimal amount) {
+        int slots = slotCount(accountId);
+        if (slots == 0) {
+            return false;
+        }
+        return slotRepository.credit(accountId, ThreadLocalRandom.current().nextInt(slots), amount) == 1;
+    }
+
+    /**
+     * Saldo acumulado en los slots de la cuenta
+     */
+    public BigDecimal slotBalance(Long accountId) {
+        return slotRepository.sumBalance(accountId);
+    }
+
+    /**
+     * Vaciar los slots de la cuenta y devolver la suma retirada. El llamador debe tener bloqueada
+     * la fila de la cuenta y sumarle el importe devuelto en la misma transacción.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BigDecimal drainSlots(Long accountId) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (AccountBalanceSlot slot : slotRepository.findByAccountIdForUpdate(accountId)) {
+            total = total.add(slot.getBalance());
+            slot.setBalance(BigDecimal.ZERO);
+        }
+        return total;
+    }
+
+    /**
+     * Consolidar: mover el saldo de los slots a la fila de la cuenta. Bloquea primero la cuenta
+     * y después los slots, el mismo orden que usan los débitos.
+     */
+    @Transactional
+    public void consolidate(Long accountId) {
+        accountRepository.findByIdForUpdate(accountId).ifPresent(account -> {
+            BigDecimal drained = drainSlots(accountId);
+            if (drained.signum() != 0) {
+                account.setBalance(account.getBalance().add(drained));
+                accountCache.evictAfterCommit(accountId);
+            }
+        });
+    }
+
+    /**
+     * Consolidación periódica de todas las cuentas con slots
+     */
+    @Scheduled(fixedDelayString = "${bankapi.striping.consolidation-interval-ms:60000}",
+            initialDelayString = "${bankapi.striping.consolidation-interval-ms:60000}")
+    public void consolidateAll() {
+        for (Account account : accountRepository.findByBalanceSlotsGreaterThan(0)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> consolidate(account.getId()));
+            } catch (Exception e) {
+                log.warn("Could not consolidate balance slots of account id={}", account.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Configurar el número de slots de una cuenta; 0 desactiva el reparto. El saldo de los slots
+     * se consolida en la cuenta antes del cambio, así que el saldo total no varía.
+     */
+    @Transactional
+    public Account configureSlots(Long accountId, int slots) {
+        if (slots < 0 || slots > MAX_BALANCE_SLOTS) {
+            throw new InvalidAccountDataException("balance slots",
+                    "Balance slots must be between 0 and " + MAX_BALANCE_SLOTS);
+        }
+        Account account = accountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+
+        List<AccountBalanceSlot> existing = slotRepository.findByAccountIdForUpdate(accountId);
+        BigDecimal drained = BigDecimal.ZERO;
+        List<AccountBalanceSlot> removed = new ArrayList<>();
+        for (AccountBalanceSlot slot : existing) {
+            drained = drained.add(slot.getBalance());
+            slot.setBalance(BigDecimal.ZERO);
+            if (slot.getSlot() >= slots) {
+                removed.add(slot);
+            }
+        }
+        slotRepository.deleteAll(removed);
+
+        List<AccountBalanceSlot> created = new ArrayList<>();
+        for (int slot = existing.size() - removed.size(); slot < slots; slot++) {
+            created.add(new AccountBalanceSlot(accountId, slot));
+        }
+        slotRepository.saveAll(created);
+
+        account.setBalance(account.getBalance().add(drained));
+        account.setBalanceSlots(slots);
+        accountCache.evictAfterCommit(accountId);
+
+        afterCommit(() -> slotCounts.invalidate(accountId));
+        log.info("Account id={} now uses {} balance slots", accountId, slots);
+
+        return account;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,164 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.repository.TransferRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro asíncrono de transferencias rechazadas o fallidas. createTransfer las encola en una cola
+ * acotada ({@code bankapi.transfer.audit.queue-capacity}) y un hilo en segundo plano las inserta por
+ * lotes en su propia transacción, de modo que el rollback de la transferencia no borra la auditoría.
+ * Si la cola está llena, el llamador espera como mucho {@code offer-timeout-ms} y el registro se descarta.
+ */
+@Component
+public class TransferAuditWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferAuditWriter.class);
+
+    public static final String QUEUE_METRIC = "bankapi.transfer.audit.queue";
+    public static final String WRITTEN_METRIC = "bankapi.transfer.audit.written";
+    public static final String DROPPED_METRIC = "bankapi.transfer.audit.dropped";
+    public static final String FAILED_METRIC = "bankapi.transfer.audit.failed";
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bankapi.transfer.audit.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    @Value("${bankapi.transfer.audit.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${bankapi.transfer.audit.offer-timeout-ms:10}")
+    private long offerTimeoutMs = 10;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads = false;
+
+    private BlockingQueue<Transfer> queue;
+    private TransactionTemplate writeTransaction;
+    private Thread writer;
+    private volatile boolean running;
+
+    private Counter written;
+    private Counter dropped;
+    private Counter failed;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Gauge.builder(QUEUE_METRIC, queue, BlockingQueue::size)
+                .description("Audit records waiting to be written")
+                .register(meterRegistry);
+        written = Counter.builder(WRITTEN_METRIC)
+                .description("Rejected or failed transfers written to the audit trail")
+                .register(meterRegistry);
+        dropped = Counter.builder(DROPPED_METRIC)
+                .description("Audit records discarded because the queue was full")
+                .register(meterRegistry);
+        failed = Counter.builder(FAILED_METRIC)
+                .description("Audit records the database refused")
+                .register(meterRegistry);
+
+        running = true;
+        writer = (virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform())
+                .name("transfer-audit-writer")
+                .start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join();
+    }
+
+    /**
+     * Encolar una transferencia rechazada o fallida para escribirla fuera de la transacción actual
+     */
+    public void record(Transfer transfer) {
+        if (transfer.getAmount() == null) {
+            // amount is NOT NULL in the transfers table; such a request never reached an account
+            return;
+        }
+        try {
+            if (!queue.offer(transfer, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                dropped.increment();
+                log.warn("Audit queue full; dropped {} transfer {} -> {}",
+                        transfer.getStatus(), transfer.getFromAccountId(), transfer.getToAccountId());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+        }
+    }
+
+    private void run() {
+        List<Transfer> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Transfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Audit writer failed", e);
+            }
+            batch.clear();
+        }
+    }
+
+    void write(List<Transfer> batch) {
+        try {
+            writeTransaction.executeWithoutResult(status -> transferRepository.saveAll(batch));
+            written.increment(batch.size());
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Audit batch of {} transfers failed; writing them one by one", batch.size(), e);
+        }
+        for (Transfer transfer : batch) {
+            // The rolled-back batch may have assigned an id; let the sequence hand out a fresh one
+            transfer.setId(null);
+            try {
+                writeTransaction.executeWithoutResult(status -> transferRepository.save(transfer));
+                written.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Could not write audit record for {} transfer {} -> {}",
+                        transfer.getStatus(), transfer.getFromAccountId(), transfer.getToAccountId(), e);
+            }
+        }
+    }
+}
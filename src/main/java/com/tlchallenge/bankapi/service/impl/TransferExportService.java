@@ -0,0 +1,59 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tlchallenge.bankapi.model.dto.TransferView;
+import com.tlchallenge.bankapi.repository.TransferRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de transferencias en NDJSON (un objeto JSON por línea). Las filas se leen con un cursor
+ * del servidor como proyecciones, que no entran en el contexto de persistencia, y se escriben
+ * directamente en la salida, de modo que la memoria usada no depende del número de filas.
+ */
+@Service
+public class TransferExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferExportService.class);
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Escribir en {@code out} las transferencias con fecha en [from, to), ordenadas por id.
+     * Devuelve el número de transferencias exportadas.
+     */
+    @Transactional(readOnly = true)
+    public long export(LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        long rows = 0;
+        try (Stream<TransferView> transfers = transferRepository.streamByTransferDateRange(
+                from != null ? from : TransferRepository.NO_LOWER_BOUND, to != null ? to : TransferRepository.NO_UPPER_BOUND);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // The response stream belongs to the caller, and lines are separated by '\n' alone
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            Iterator<TransferView> iterator = transfers.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                generator.writeRaw('\n');
+                rows++;
+            }
+        }
+        log.info("Exported {} transfers between {} and {}", rows, from, to);
+        return rows;
+    }
+}
@@ -0,0 +1,226 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.exception.TransferQueueFullException;
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.service.TransferOutcome;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit de transferencias individuales ({@code bankapi.transfer.group-commit.enabled}).
+ * Las peticiones que llegan dentro de una ventana corta ({@code window-us}) o hasta completar
+ * {@code max-size} se aplican en una única transacción con
+ * {@link TransferServiceImpl#createTransfersInOneTransaction(List)}; cada llamador recibe su propio
+ * resultado. Si la transacción del grupo falla, sus transferencias se repiten una a una para que
+ * una transferencia problemática no arrastre al resto. Un llamador espera como máximo {@code timeout-ms}.
+ */
+@Component
+public class TransferGroupCommitter {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferGroupCommitter.class);
+
+    public static final String GROUP_SIZE_METRIC = "bankapi.transfer.group.size";
+    public static final String GROUP_COMMIT_METRIC = "bankapi.transfer.group.commit";
+
+    @Autowired
+    private TransferServiceImpl transferService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bankapi.transfer.group-commit.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${bankapi.transfer.group-commit.window-us:1000}")
+    private long windowMicros = 1000;
+
+    @Value("${bankapi.transfer.group-commit.max-size:64}")
+    private int maxSize = 64;
+
+    @Value("${bankapi.transfer.group-commit.workers:2}")
+    private int workerCount = 2;
+
+    @Value("${bankapi.transfer.group-commit.timeout-ms:30000}")
+    private long timeoutMs = 30000;
+
+    @Value("${bankapi.transfer.engine:database}")
+    private String engine = "database";
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads = false;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private DistributionSummary groupSize;
+    private Timer groupCommit;
+
+    @PostConstruct
+    public void start() {
+        if (enabled && "ledger".equals(engine)) {
+            log.warn("Group commit ignored: the ledger engine already groups journal writes");
+            enabled = false;
+        }
+        if (!enabled) {
+            return;
+        }
+        groupSize = DistributionSummary.builder(GROUP_SIZE_METRIC)
+                .description("Transfers committed per group transaction")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        groupCommit = Timer.builder(GROUP_COMMIT_METRIC)
+                .description("Duration of one group transaction")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            // The workers spend their time waiting on JDBC, so they follow the application's threading mode
+            Thread worker = (virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform())
+                    .name("transfer-group-commit-" + i)
+                    .start(this::run);
+            workers.add(worker);
+        }
+        log.info("Group commit enabled: window={}us, max size={}, workers={}", windowMicros, maxSize, workerCount);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(timeoutMs);
+            if (worker.isAlive()) {
+                log.warn("Group commit worker {} did not stop within {} ms; interrupting it", worker.getName(), timeoutMs);
+                worker.interrupt();
+            }
+        }
+        // Nothing will pick these up any more: answer their callers instead of leaving them waiting
+        Pending left;
+        while ((left = queue.poll()) != null) {
+            left.result.completeExceptionally(new TransferQueueFullException("Group commit is stopped", 1));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Añadir la transferencia al grupo en curso y esperar a que su transacción termine
+     */
+    public Transfer createTransfer(TransferDto dto) {
+        Pending pending = new Pending(dto);
+        queue.add(pending);
+        if (!running && queue.remove(pending)) {
+            throw new TransferQueueFullException("Group commit is stopped", 1);
+        }
+        try {
+            return pending.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            if (queue.remove(pending)) {
+                // No worker took it, so nothing was applied and the caller can safely retry
+                throw new TransferQueueFullException("Transfer waited more than " + timeoutMs + " ms for a group commit", 1);
+            }
+            throw new IllegalStateException("Group commit did not answer within " + timeoutMs
+                    + " ms; the transfer may still be applied", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the group commit", e);
+        }
+    }
+
+    private void run() {
+        List<Pending> group = new ArrayList<>(maxSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(windowMicros);
+                while (group.size() < maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                    queue.drainTo(group, maxSize - group.size());
+                }
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                group.forEach(pending -> pending.result.completeExceptionally(e));
+                return;
+            } catch (Throwable t) {
+                // Keep the worker alive; callers whose result is already set are left untouched
+                log.error("Group commit of {} transfers failed unexpectedly", group.size(), t);
+                group.forEach(pending -> pending.result.completeExceptionally(t));
+            }
+            group.clear();
+        }
+    }
+
+    private void commit(List<Pending> group) {
+        List<TransferDto> dtos = new ArrayList<>(group.size());
+        for (Pending pending : group) {
+            dtos.add(pending.dto);
+        }
+        groupSize.record(group.size());
+
+        List<TransferOutcome> outcomes;
+        try {
+            outcomes = groupCommit.record(() -> transferService.createTransfersInOneTransaction(dtos));
+        } catch (RuntimeException e) {
+            log.warn("Group transaction of {} transfers failed; applying them one by one", group.size(), e);
+            for (Pending pending : group) {
+                try {
+                    pending.result.complete(transferService.createTransfer(pending.dto));
+                } catch (RuntimeException individual) {
+                    pending.result.completeExceptionally(individual);
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+            Pending pending = group.get(i);
+            try {
+                pending.result.complete(outcomes.get(i).toResponse(pending.dto));
+            } catch (RuntimeException rejection) {
+                pending.result.completeExceptionally(rejection);
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final TransferDto dto;
+        private final CompletableFuture<Transfer> result = new CompletableFuture<>();
+
+        private Pending(TransferDto dto) {
+            this.dto = dto;
+        }
+    }
+}
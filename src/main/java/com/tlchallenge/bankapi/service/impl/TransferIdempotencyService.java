@@ -0,0 +1,340 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tlchallenge.bankapi.exception.AccountBusyException;
+import com.tlchallenge.bankapi.exception.AccountNotFoundException;
+import com.tlchallenge.bankapi.exception.IdempotencyKeyInProgressException;
+import com.tlchallenge.bankapi.exception.IdempotencyKeyReusedException;
+import com.tlchallenge.bankapi.exception.InvalidIdempotencyKeyException;
+import com.tlchallenge.bankapi.exception.TransferRejectedException;
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.TransferIdempotencyKey;
+import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.repository.TransferIdempotencyKeyRepository;
+import com.tlchallenge.bankapi.service.TransferService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Idempotency-Key para POST /api/v1/transfers. La clave se reserva primero con una fila PENDING en
+ * transfer_idempotency_keys, en una transacción corta propia y con un token. Con el motor de base de datos
+ * la respuesta se guarda en la misma transacción que la transferencia, solo si el token sigue reservando la
+ * clave; con el ledger se guarda en otra transacción corta cuando la transferencia es durable. Las repeticiones
+ * se contestan con la respuesta guardada (primero desde una caché acotada en memoria) sin volver a tocar las
+ * cuentas, y una petición con la misma clave que llega mientras la primera se ejecuta espera su resultado.
+ * <p>
+ * Solo una transferencia rechazada con seguridad libera la clave; si el resultado es desconocido la clave
+ * sigue PENDING. Con el motor de base de datos otra petición puede quedarse con ella cuando vence
+ * {@code bankapi.idempotency.claim-lease-ms}: si la transferencia se hubiera aplicado, la clave estaría COMPLETED.
+ */
+@Service
+public class TransferIdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferIdempotencyService.class);
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private static final long PENDING_POLL_MILLIS = 50;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransferServiceImpl databaseTransferService;
+
+    @Autowired
+    private TransferIdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${bankapi.idempotency.cache-size:10000}")
+    private long cacheSize = 10000;
+
+    @Value("${bankapi.idempotency.retention-hours:24}")
+    private long retentionHours = 24;
+
+    // How long a request waits for a key claimed by another instance before answering 409
+    @Value("${bankapi.idempotency.pending-wait-ms:5000}")
+    private long pendingWaitMs = 5000;
+
+    // How long a PENDING claim is left to its holder before a retry may take it over (database engine only)
+    @Value("${bankapi.idempotency.claim-lease-ms:60000}")
+    private long claimLeaseMs = 60000;
+
+    @Value("${bankapi.transfer.engine:database}")
+    private String engine = "database";
+
+    private Cache<String, StoredResponse> recentKeys;
+
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        recentKeys = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofHours(retentionHours))
+                .build();
+    }
+
+    /**
+     * Crear transferencia asociada a una Idempotency-Key
+     */
+    public Transfer createTransfer(String key, TransferDto dto) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String fingerprint = fingerprint(dto);
+
+        StoredResponse stored = recentKeys.getIfPresent(key);
+        if (stored != null) {
+            return replay(key, stored, fingerprint);
+        }
+
+        InFlight mine = new InFlight(fingerprint);
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            if (!running.fingerprint.equals(fingerprint)) {
+                throw new IdempotencyKeyReusedException(key);
+            }
+            log.info("Waiting for in-flight transfer with idempotency key {}", key);
+            return replay(key, await(running.response), fingerprint);
+        }
+
+        try {
+            stored = execute(key, dto, fingerprint);
+            recentKeys.put(key, stored);
+            mine.response.complete(stored);
+        } catch (RuntimeException e) {
+            mine.response.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+        return replay(key, stored, fingerprint);
+    }
+
+    /**
+     * Eliminar las claves más antiguas que el periodo de retención
+     */
+    @Scheduled(fixedDelayString = "${bankapi.idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpiredKeys() {
+        // With the ledger a stale PENDING key may stand for an applied transfer, so it is kept for reconciliation
+        int purged = idempotencyKeyRepository.deleteExpired(LocalDateTime.now().minusHours(retentionHours), !isLedger());
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private StoredResponse execute(String key, TransferDto dto, String fingerprint) {
+        long deadline = System.nanoTime() + Duration.ofMillis(pendingWaitMs).toNanos();
+        boolean staleReported = false;
+        while (true) {
+            String token = UUID.randomUUID().toString();
+            LocalDateTime now = LocalDateTime.now();
+            Integer claimed = transactionTemplate.execute(status ->
+                    idempotencyKeyRepository.claim(key, fingerprint, token, now));
+            if (claimed != null && claimed == 1) {
+                return executeClaimed(key, token, dto, fingerprint);
+            }
+            Optional<TransferIdempotencyKey> row = idempotencyKeyRepository.findById(key);
+            if (row.isEmpty()) {
+                // The claim was released after a failed transfer: try to claim it again
+                continue;
+            }
+            if (!row.get().getRequestFingerprint().equals(fingerprint)) {
+                throw new IdempotencyKeyReusedException(key);
+            }
+            if (TransferIdempotencyKey.COMPLETED.equals(row.get().getStatus())) {
+                return new StoredResponse(fingerprint, row.get().getResponseBody());
+            }
+            LocalDateTime staleBefore = now.minus(Duration.ofMillis(claimLeaseMs));
+            LocalDateTime claimedAt = row.get().getClaimedAt();
+            if (claimedAt != null && claimedAt.isBefore(staleBefore)) {
+                if (!isLedger()) {
+                    Integer taken = transactionTemplate.execute(status ->
+                            idempotencyKeyRepository.takeOver(key, fingerprint, token, now, staleBefore));
+                    if (taken != null && taken == 1) {
+                        log.warn("Taking over idempotency key {} claimed at {}: its lease expired and no transfer "
+                                + "was stored for it", key, claimedAt);
+                        return executeClaimed(key, token, dto, fingerprint);
+                    }
+                    // Completed, released or taken over meanwhile: look again
+                    continue;
+                }
+                if (!staleReported) {
+                    staleReported = true;
+                    log.error("Idempotency key {} has been PENDING since {}. The ledger engine cannot tell whether its "
+                            + "transfer was applied; reconcile it by hand", key, claimedAt);
+                }
+            }
+            // Claimed by another request whose transfer is still running, or whose outcome is unknown
+            if (System.nanoTime() - deadline >= 0) {
+                throw new IdempotencyKeyInProgressException(key);
+            }
+            try {
+                Thread.sleep(PENDING_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyKeyInProgressException(key);
+            }
+        }
+    }
+
+    private StoredResponse executeClaimed(String key, String token, TransferDto dto, String fingerprint) {
+        // No transaction around the call: the transfer's own retries and the ledger engine see a clean context
+        Transfer transfer;
+        try {
+            transfer = isLedger()
+                    ? transferService.createTransfer(dto)
+                    : databaseTransferService.createTransfer(dto, created -> storeResponse(key, token, created));
+        } catch (IdempotencyKeyInProgressException e) {
+            // Another request took the key over after its lease expired, and this transfer was rolled back
+            throw e;
+        } catch (RuntimeException e) {
+            if (rejectedBeforeApplying(e)) {
+                release(key, token, e);
+            } else {
+                // A retry gets 409 until the claim is completed, or taken over once its lease expires
+                log.warn("Transfer with idempotency key {} failed with an unknown outcome; the key stays claimed", key);
+            }
+            throw e;
+        }
+
+        String body = toJson(transfer);
+        if (isLedger()) {
+            try {
+                Integer completed = transactionTemplate.execute(status ->
+                        idempotencyKeyRepository.complete(key, token, transfer.getId(), body));
+                if (completed == null || completed != 1) {
+                    log.warn("Idempotency key {} was purged before transfer {} was stored", key, transfer.getId());
+                }
+            } catch (RuntimeException e) {
+                // The transfer is durable, so the caller still gets it; the key stays PENDING for reconciliation
+                log.error("Could not store transfer {} for idempotency key {}", transfer.getId(), key, e);
+            }
+        }
+        return new StoredResponse(fingerprint, body);
+    }
+
+    /**
+     * Guardar la respuesta dentro de la transacción de la transferencia. Si otra petición se quedó con la
+     * clave, falla y la transferencia se revierte
+     */
+    private void storeResponse(String key, String token, Transfer transfer) {
+        if (idempotencyKeyRepository.complete(key, token, transfer.getId(), toJson(transfer)) != 1) {
+            throw new IdempotencyKeyInProgressException(key);
+        }
+    }
+
+    private void release(String key, String token, RuntimeException failure) {
+        try {
+            transactionTemplate.execute(status -> idempotencyKeyRepository.release(key, token));
+        } catch (RuntimeException releaseFailure) {
+            log.error("Could not release idempotency key {}", key, releaseFailure);
+            failure.addSuppressed(releaseFailure);
+        }
+    }
+
+    /**
+     * Errores que garantizan que la transferencia no se aplicó. Cualquier otro (un commit cortado, un fallo
+     * del journal) puede haberla aplicado, así que la clave no se libera
+     */
+    private boolean rejectedBeforeApplying(RuntimeException e) {
+        if (e instanceof TransferRejectedException || e instanceof IllegalArgumentException
+                || e instanceof AccountNotFoundException || e instanceof AccountBusyException) {
+            return true;
+        }
+        // In the database engine these are raised by a statement or the flush, before the commit
+        return !isLedger() && e instanceof ConcurrencyFailureException;
+    }
+
+    private boolean isLedger() {
+        return "ledger".equals(engine);
+    }
+
+    private Transfer replay(String key, StoredResponse stored, String fingerprint) {
+        if (!stored.fingerprint.equals(fingerprint)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        try {
+            return objectMapper.readValue(stored.body, Transfer.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response for idempotency key " + key + " is unreadable", e);
+        }
+    }
+
+    private String toJson(Transfer transfer) {
+        try {
+            return objectMapper.writeValueAsString(transfer);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize transfer " + transfer.getId(), e);
+        }
+    }
+
+    private static StoredResponse await(CompletableFuture<StoredResponse> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static String fingerprint(TransferDto dto) {
+        String amount = dto.getAmount() == null ? "" : dto.getAmount().stripTrailingZeros().toPlainString();
+        String payload = dto.getFromAccountId() + "|" + dto.getToAccountId() + "|" + amount;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(payload.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class StoredResponse {
+        private final String fingerprint;
+        private final String body;
+
+        private StoredResponse(String fingerprint, String body) {
+            this.fingerprint = fingerprint;
+            this.body = body;
+        }
+    }
+
+    private static final class InFlight {
+        private final String fingerprint;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+        private InFlight(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mantenimiento de las particiones mensuales de transfers (ver 10-partition-transfers.sql): crea con
+ * antelación las de los próximos {@code bankapi.transfer.partitions.months-ahead} meses y, si
+ * {@code bankapi.transfer.partitions.retention-months} es mayor que 0, separa de la tabla las particiones
+ * más antiguas. Una partición separada sigue existiendo como tabla normal (transfers_YYYY_MM) y, si se
+ * configura {@code bankapi.transfer.partitions.archive-tablespace}, se mueve a ese tablespace. Quien inserte
+ * transferencias con fechas arbitrarias (el ledger al volcar o reproducir su journal) llama antes a
+ * {@link #ensurePartitions(LocalDateTime, LocalDateTime)}.
+ */
+@Component
+public class TransferPartitionMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferPartitionMaintainer.class);
+
+    static final String PARTITION_PREFIX = "transfers_";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${bankapi.transfer.partitions.months-ahead:3}")
+    private int monthsAhead = 3;
+
+    @Value("${bankapi.transfer.partitions.retention-months:0}")
+    private int retentionMonths = 0;
+
+    @Value("${bankapi.transfer.partitions.archive-tablespace:}")
+    private String archiveTablespace = "";
+
+    // Months this instance has already created or found, so ensurePartitions only goes to the database for new ones
+    private final Set<YearMonth> knownMonths = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Crear las particiones que falten y archivar las que hayan salido del periodo de retención
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${bankapi.transfer.partitions.maintenance-interval-ms:3600000}",
+            fixedDelayString = "${bankapi.transfer.partitions.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        try {
+            createFuturePartitions();
+            if (retentionMonths > 0) {
+                archivePartitionsBefore(YearMonth.now().minusMonths(retentionMonths));
+            }
+        } catch (RuntimeException e) {
+            log.error("Transfer partition maintenance failed", e);
+        }
+    }
+
+    void createFuturePartitions() {
+        LocalDate today = LocalDate.now();
+        createPartitions(YearMonth.from(today), YearMonth.from(today.plusMonths(monthsAhead)));
+    }
+
+    /**
+     * Asegurar que existen las particiones de los meses entre {@code from} y {@code to}, ambos incluidos
+     */
+    public void ensurePartitions(LocalDateTime from, LocalDateTime to) {
+        YearMonth first = YearMonth.from(from);
+        YearMonth last = YearMonth.from(to);
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            if (!knownMonths.contains(month)) {
+                createPartitions(first, last);
+                return;
+            }
+        }
+    }
+
+    private void createPartitions(YearMonth first, YearMonth last) {
+        Integer created = jdbcTemplate.queryForObject("SELECT create_transfer_partitions(?, ?)", Integer.class,
+                Date.valueOf(first.atDay(1)), Date.valueOf(last.atDay(1)));
+        if (created != null && created > 0) {
+            log.info("Created {} transfer partitions from {} to {}", created, first, last);
+        }
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            knownMonths.add(month);
+        }
+    }
+
+    /**
+     * Separar de transfers las particiones de los meses anteriores a {@code cutoff} y terminar las
+     * separaciones que quedaron a medias
+     */
+    void archivePartitionsBefore(YearMonth cutoff) {
+        List<Map<String, Object>> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname, i.inhdetachpending FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'transfers'::regclass ORDER BY c.relname");
+        for (Map<String, Object> row : partitions) {
+            String partition = (String) row.get("relname");
+            YearMonth month = monthOf(partition);
+            if (Boolean.TRUE.equals(row.get("inhdetachpending"))) {
+                // A DETACH ... CONCURRENTLY that was interrupted (cancelled, connection lost) leaves the partition
+                // half detached, and no other partition can be detached concurrently until it is finalized
+                jdbcTemplate.execute("ALTER TABLE transfers DETACH PARTITION " + partition + " FINALIZE");
+            } else if (month == null || !month.isBefore(cutoff)) {
+                continue;
+            } else {
+                // CONCURRENTLY only takes a SHARE UPDATE EXCLUSIVE lock on transfers, so writes keep flowing.
+                // It cannot run inside a transaction block, so each statement runs on its own in autocommit.
+                jdbcTemplate.execute("ALTER TABLE transfers DETACH PARTITION " + partition + " CONCURRENTLY");
+            }
+            if (!archiveTablespace.isBlank()) {
+                jdbcTemplate.execute("ALTER TABLE " + partition + " SET TABLESPACE " + archiveTablespace);
+            }
+            if (month != null) {
+                knownMonths.remove(month);
+            }
+            log.info("Archived transfer partition {}", partition);
+        }
+    }
+
+    /**
+     * Mes de una partición por su nombre (transfers_YYYY_MM), o null si no sigue ese formato
+     */
+    static YearMonth monthOf(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -1,23 +1,44 @@
 package com.tlchallenge.bankapi.service.impl;
 
+import com.tlchallenge.bankapi.exception.AccountNotFoundException;
+import com.tlchallenge.bankapi.exception.InvalidCursorException;
 import com.tlchallenge.bankapi.exception.TransferRejectedException;
 import com.tlchallenge.bankapi.model.Account;
 import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.dto.AccountStatementPage;
+import com.tlchallenge.bankapi.model.dto.CursorPage;
+import com.tlchallenge.bankapi.model.dto.StatementEntry;
+import com.tlchallenge.bankapi.model.dto.TransferBatchItemResult;
 import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.model.dto.TransferView;
 import com.tlchallenge.bankapi.repository.AccountRepository;
 import com.tlchallenge.bankapi.repository.TransferRepository;
+import com.tlchallenge.bankapi.service.TransferMode;
+import com.tlchallenge.bankapi.service.TransferOutcome;
 import com.tlchallenge.bankapi.service.TransferService;
 import io.github.resilience4j.retry.annotation.Retry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 
 @Service
 public class TransferServiceImpl implements TransferService {
@@ -30,33 +51,115 @@ public class TransferServiceImpl implements TransferService {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private TransferAuditWriter transferAuditWriter;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private DailySummaryRecorder dailySummaryRecorder;
+
+    @Autowired
+    private AccountBulkhead accountBulkhead;
+
+    @Value("${bankapi.transfer.mode:ENTITY}")
+    private TransferMode transferMode = TransferMode.ENTITY;
+
+    @Value("${bankapi.transfer.batch.chunk-size:1000}")
+    private int batchChunkSize = 1000;
+
+    // Statement cursors are "<transferDate>_<id>" of the last entry returned
+    private static final String STATEMENT_CURSOR_SEPARATOR = "_";
+
+    @Value("${bankapi.pagination.max-limit:1000}")
+    private int maxPageSize = 1000;
+
     /**
      * Obtener transferencia por ID
      */
-    public Optional<Transfer> getTransferById(Long id) {
-        return transferRepository.findById(id);
+    @Transactional(readOnly = true)
+    public Optional<TransferView> getTransferById(Long id) {
+        return transferRepository.findViewById(id);
     }
 
     /**
      * Crear nueva transferencia de forma atómica
      */
     @Retry(name = "transfer-service")
-    @Transactional(rollbackFor = Exception.class, isolation = org.springframework.transaction.annotation.Isolation.READ_COMMITTED)
     public Transfer createTransfer(TransferDto dto) {
-        Account fromAccount = accountRepository.findById(dto.getFromAccountId()).orElseThrow(() -> new IllegalArgumentException("From account not found"));
-        Account toAccount = accountRepository.findById(dto.getToAccountId()).orElseThrow(() -> new IllegalArgumentException("To account not found"));
+        return createTransferInTransaction(dto, transfer -> { });
+    }
+
+    /**
+     * Crear nueva transferencia y ejecutar {@code inTransaction} con ella en la misma transacción, antes
+     * del commit. Si {@code inTransaction} falla, la transferencia tampoco se aplica
+     */
+    @Retry(name = "transfer-service")
+    public Transfer createTransfer(TransferDto dto, Consumer<Transfer> inTransaction) {
+        return createTransferInTransaction(dto, inTransaction);
+    }
+
+    private Transfer createTransferInTransaction(TransferDto dto, Consumer<Transfer> inTransaction) {
+        // Admission per account comes before the transaction borrows a connection, so transfers of a hot
+        // account queue in memory. A striped destination is credited without locking its row, so only
+        // the source counts for it.
+        Long lockedToAccountId = stripedBalanceService.isStriped(dto.getToAccountId()) ? null : dto.getToAccountId();
+        try (AccountBulkhead.Permit permit = accountBulkhead.acquire(dto.getFromAccountId(), lockedToAccountId)) {
+            // Runs at the default isolation, which is READ COMMITTED on Postgres
+            return transactionTemplate.execute(status -> {
+                Transfer transfer = executeTransfer(dto);
+                inTransaction.accept(transfer);
+                return transfer;
+            });
+        }
+    }
+
+    private Transfer executeTransfer(TransferDto dto) {
+        accountCache.evictAfterCommit(dto.getFromAccountId(), dto.getToAccountId());
+
+        if (transferMode == TransferMode.CONDITIONAL_UPDATE) {
+            return createTransferWithConditionalUpdates(dto);
+        }
+
+        boolean creditToSlots = !dto.getFromAccountId().equals(dto.getToAccountId())
+                && stripedBalanceService.isStriped(dto.getToAccountId());
+
+        if (transferMode == TransferMode.ADVISORY_LOCK) {
+            advisoryLock(dto.getFromAccountId(), creditToSlots ? null : dto.getToAccountId());
+        }
+
+        Account fromAccount;
+        Account toAccount = null;
+        if (creditToSlots) {
+            // The credit goes to one of the destination's balance slots, so its row is not locked
+            fromAccount = lockAccount(dto.getFromAccountId(), "From account not found");
+        } else if (dto.getFromAccountId() <= dto.getToAccountId()) {
+            // Lock both rows in ascending id order so that A->B and B->A transfers never deadlock
+            fromAccount = lockAccount(dto.getFromAccountId(), "From account not found");
+            toAccount = dto.getFromAccountId().equals(dto.getToAccountId())
+                    ? fromAccount
+                    : lockAccount(dto.getToAccountId(), "To account not found");
+        } else {
+            toAccount = lockAccount(dto.getToAccountId(), "To account not found");
+            fromAccount = lockAccount(dto.getFromAccountId(), "From account not found");
+        }
 
         Transfer transfer = new Transfer();
-        transfer.setFromAccountId(fromAccount.getId());
-        transfer.setToAccountId(toAccount.getId());
+        transfer.setFromAccountId(dto.getFromAccountId());
+        transfer.setToAccountId(dto.getToAccountId());
         transfer.setAmount(dto.getAmount());
         transfer.setTransferDate(LocalDateTime.now());
         transfer.setStatus("PENDING");
 
         try {
             if (dto.getAmount() == null || dto.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-                transfer.setStatus("REJECTED");
-                transferRepository.save(transfer);
                 throw new TransferRejectedException(
                         dto.getFromAccountId(),
                         dto.getToAccountId(),
@@ -64,9 +167,12 @@ public class TransferServiceImpl implements TransferService {
                 );
             }
 
+            if (fromAccount.getBalance().compareTo(dto.getAmount()) < 0 && fromAccount.getBalanceSlots() > 0) {
+                // Part of the balance may still sit in the slots: fold them into the row before deciding
+                fromAccount.setBalance(fromAccount.getBalance().add(stripedBalanceService.drainSlots(fromAccount.getId())));
+            }
+
             if (fromAccount.getBalance().compareTo(dto.getAmount()) < 0) {
-                transfer.setStatus("REJECTED");
-                transferRepository.save(transfer);
                 throw new TransferRejectedException(
                         dto.getFromAccountId(),
                         dto.getToAccountId(),
@@ -75,45 +181,412 @@ public class TransferServiceImpl implements TransferService {
             }
 
             fromAccount.setBalance(fromAccount.getBalance().subtract(dto.getAmount()));
-            toAccount.setBalance(toAccount.getBalance().add(dto.getAmount()));
-
             accountRepository.save(fromAccount);
-            accountRepository.save(toAccount);
+
+            if (creditToSlots) {
+                creditOrFail(dto);
+            } else {
+                toAccount.setBalance(toAccount.getBalance().add(dto.getAmount()));
+                accountRepository.save(toAccount);
+            }
 
             transfer.setStatus("COMPLETED");
+            dailySummaryRecorder.record(transfer);
             return transferRepository.save(transfer);
 
         } catch (TransferRejectedException e) {
             log.warn("Transfer rejected: {}", e.getMessage());
+            audit(transfer, "REJECTED");
+            throw e;
+        } catch (IllegalArgumentException | OptimisticLockingFailureException e) {
+            // Left unwrapped so the transfer-service retry can replay the transaction
             throw e;
         } catch (Exception e) {
-            transfer.setStatus("FAILED");
-            transferRepository.save(transfer);
+            audit(transfer, "FAILED");
             log.error("Unexpected error while executing transfer", e);
             throw new RuntimeException("Unexpected error while executing transfer", e);
         }
     }
 
+    private Account lockAccount(Long id, String notFoundMessage) {
+        // With advisory locks the accounts are already serialized, so the rows are read without FOR UPDATE.
+        // The version check still catches writers that bypass the advisory locks.
+        Optional<Account> account = transferMode == TransferMode.ADVISORY_LOCK
+                ? accountRepository.findById(id)
+                : accountRepository.findByIdForUpdate(id);
+        return account.orElseThrow(() -> new IllegalArgumentException(notFoundMessage));
+    }
+
+    /**
+     * Tomar los advisory locks de las cuentas. Una cuenta null se omite
+     */
+    private void advisoryLock(Long fromAccountId, Long toAccountId) {
+        Set<Long> accountIds = new TreeSet<>();
+        accountIds.add(fromAccountId);
+        if (toAccountId != null) {
+            accountIds.add(toAccountId);
+        }
+        advisoryLock(accountIds);
+    }
+
+    /**
+     * Tomar los advisory locks de las cuentas en orden ascendente de clave, para que A->B y B->A no se
+     * bloqueen mutuamente
+     */
+    private void advisoryLock(Collection<Long> accountIds) {
+        // Ordered by lock key rather than by id, so ids that share a key are still taken in one global order
+        Set<Integer> keys = new TreeSet<>();
+        for (Long accountId : accountIds) {
+            keys.add(advisoryLockKey(accountId));
+        }
+        for (int key : keys) {
+            accountRepository.advisoryLock(AccountRepository.ACCOUNT_LOCK_NAMESPACE, key);
+        }
+    }
+
+    /**
+     * Clave del advisory lock de una cuenta dentro de {@link AccountRepository#ACCOUNT_LOCK_NAMESPACE}. Hasta
+     * 2^31 ids cada cuenta tiene la suya; más allá dos cuentas pueden compartirla, lo que solo serializa de más
+     */
+    static int advisoryLockKey(long accountId) {
+        return Long.hashCode(accountId);
+    }
+
+    /**
+     * Ejecutar la transferencia con un UPDATE condicionado para el débito y otro para el crédito.
+     * Ambos se aplican en orden ascendente de id para que transferencias cruzadas bloqueen
+     * las filas en el mismo orden.
+     */
+    private Transfer createTransferWithConditionalUpdates(TransferDto dto) {
+        Transfer transfer = new Transfer();
+        transfer.setFromAccountId(dto.getFromAccountId());
+        transfer.setToAccountId(dto.getToAccountId());
+        transfer.setAmount(dto.getAmount());
+        transfer.setTransferDate(LocalDateTime.now());
+        transfer.setStatus("PENDING");
+
+        try {
+            if (dto.getAmount() == null || dto.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new TransferRejectedException(dto.getFromAccountId(), dto.getToAccountId(), "Invalid amount");
+            }
+
+            if (dto.getFromAccountId() <= dto.getToAccountId()) {
+                debitOrReject(dto);
+                creditOrFail(dto);
+            } else {
+                creditOrFail(dto);
+                debitOrReject(dto);
+            }
+
+            transfer.setStatus("COMPLETED");
+            dailySummaryRecorder.record(transfer);
+            return transferRepository.save(transfer);
+
+        } catch (TransferRejectedException e) {
+            log.warn("Transfer rejected: {}", e.getMessage());
+            audit(transfer, "REJECTED");
+            throw e;
+        } catch (IllegalArgumentException | OptimisticLockingFailureException e) {
+            throw e;
+        } catch (Exception e) {
+            audit(transfer, "FAILED");
+            log.error("Unexpected error while executing transfer", e);
+            throw new RuntimeException("Unexpected error while executing transfer", e);
+        }
+    }
+
+    /**
+     * Registrar la transferencia en la auditoría asíncrona. La transacción actual se revierte,
+     * así que el registro se escribe en otra transacción.
+     */
+    private void audit(Transfer transfer, String status) {
+        transfer.setStatus(status);
+        transferAuditWriter.record(transfer);
+    }
+
+    private void debitOrReject(TransferDto dto) {
+        if (accountRepository.debitIfSufficientFunds(dto.getFromAccountId(), dto.getAmount()) == 1) {
+            return;
+        }
+        if (stripedBalanceService.isStriped(dto.getFromAccountId())) {
+            // Fold the balance slots into the row and try the guarded debit once more
+            stripedBalanceService.consolidate(dto.getFromAccountId());
+            if (accountRepository.debitIfSufficientFunds(dto.getFromAccountId(), dto.getAmount()) == 1) {
+                return;
+            }
+        }
+        if (!accountRepository.existsById(dto.getFromAccountId())) {
+            throw new IllegalArgumentException("From account not found");
+        }
+        throw new TransferRejectedException(dto.getFromAccountId(), dto.getToAccountId(), "Insufficient funds");
+    }
+
+    private void creditOrFail(TransferDto dto) {
+        if (stripedBalanceService.credit(dto.getToAccountId(), dto.getAmount())) {
+            return;
+        }
+        if (accountRepository.credit(dto.getToAccountId(), dto.getAmount()) == 0) {
+            throw new IllegalArgumentException("To account not found");
+        }
+    }
+
+    /**
+     * Crear un lote de transferencias. Se aplican en bloques de {@code bankapi.transfer.batch.chunk-size},
+     * cada bloque en su propia transacción; un rechazo no afecta al resto del lote. Si la transacción
+     * de un bloque falla, sus transferencias se repiten una a una.
+     */
+    @Override
+    public List<TransferBatchItemResult> createTransfers(List<TransferDto> dtos) {
+        List<TransferBatchItemResult> results = new ArrayList<>(dtos.size());
+
+        for (int start = 0; start < dtos.size(); start += batchChunkSize) {
+            int end = Math.min(start + batchChunkSize, dtos.size());
+            int offset = start;
+            List<TransferDto> chunk = dtos.subList(start, end);
+
+            try {
+                List<TransferOutcome> outcomes = createTransfersInOneTransaction(chunk);
+                for (int i = 0; i < outcomes.size(); i++) {
+                    TransferOutcome outcome = outcomes.get(i);
+                    results.add(new TransferBatchItemResult(offset + i, outcome.getStatus(), outcome.getTransferId(), outcome.getReason()));
+                }
+            } catch (Exception e) {
+                // One bad transfer must not fail its neighbours: replay the chunk one transfer at a time
+                log.warn("Transaction of transfers [{}, {}) of batch failed; applying them one by one", start, end, e);
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(createTransferOfBatch(offset + i, chunk.get(i)));
+                }
+            }
+        }
+
+        return results;
+    }
+
+    private TransferBatchItemResult createTransferOfBatch(int index, TransferDto dto) {
+        try {
+            Transfer transfer = createTransfer(dto);
+            return new TransferBatchItemResult(index, transfer.getStatus(), transfer.getId(), null);
+        } catch (TransferRejectedException e) {
+            return new TransferBatchItemResult(index, "REJECTED", null, e.getReason());
+        } catch (IllegalArgumentException e) {
+            return new TransferBatchItemResult(index, "REJECTED", null, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Unexpected error while executing transfer {} of batch", index, e);
+            return new TransferBatchItemResult(index, "FAILED", null, "Unexpected error while executing transfer");
+        }
+    }
+
+    /**
+     * Aplicar un grupo de transferencias en una única transacción: bloquea todas las cuentas implicadas
+     * con una sola consulta IN (en orden ascendente de id), valida y mueve los saldos en memoria e inserta
+     * las transferencias. Con ADVISORY_LOCK las cuentas se serializan con advisory locks en vez de
+     * FOR UPDATE, y con CONDITIONAL_UPDATE cada transferencia se aplica con UPDATE condicionados. Devuelve un resultado por transferencia, en el mismo orden; un error inesperado
+     * deshace el grupo entero y se propaga.
+     */
+    public List<TransferOutcome> createTransfersInOneTransaction(List<TransferDto> chunk) {
+        Set<Long> accountIds = new TreeSet<>();
+        for (TransferDto dto : chunk) {
+            if (dto.getFromAccountId() != null) {
+                accountIds.add(dto.getFromAccountId());
+            }
+            if (dto.getToAccountId() != null) {
+                accountIds.add(dto.getToAccountId());
+            }
+        }
+        // Batch chunks and commit groups have their own admission, taken before the connection, so that
+        // a group never sits on the account stripes that single transfers wait for
+        try (AccountBulkhead.Permit permit = accountBulkhead.acquireBulk(accountIds)) {
+            return transactionTemplate.execute(status -> applyChunk(chunk, accountIds));
+        }
+    }
+
+    private List<TransferOutcome> applyChunk(List<TransferDto> chunk, Set<Long> accountIds) {
+        accountCache.evictAfterCommit(accountIds);
+
+        if (transferMode == TransferMode.CONDITIONAL_UPDATE) {
+            return applyChunkWithConditionalUpdates(chunk, accountIds);
+        }
+
+        List<Account> lockedAccounts;
+        if (transferMode == TransferMode.ADVISORY_LOCK) {
+            // Same lock order as single transfers
+            advisoryLock(accountIds);
+            lockedAccounts = accountRepository.findAllById(accountIds);
+        } else {
+            lockedAccounts = accountRepository.findAllByIdInForUpdate(accountIds);
+        }
+
+        Map<Long, Account> accounts = new HashMap<>();
+        for (Account account : lockedAccounts) {
+            accounts.put(account.getId(), account);
+        }
+
+        List<TransferOutcome> outcomes = new ArrayList<>(chunk.size());
+        List<Transfer> toSave = new ArrayList<>(chunk.size());
+
+        for (TransferDto dto : chunk) {
+            Account fromAccount = accounts.get(dto.getFromAccountId());
+            Account toAccount = accounts.get(dto.getToAccountId());
+
+            if (fromAccount == null) {
+                outcomes.add(TransferOutcome.accountMissing("From account not found"));
+                continue;
+            }
+            if (toAccount == null) {
+                outcomes.add(TransferOutcome.accountMissing("To account not found"));
+                continue;
+            }
+            if (dto.getAmount() == null) {
+                outcomes.add(TransferOutcome.rejected(null, "Invalid amount"));
+                continue;
+            }
+
+            Transfer transfer = new Transfer(fromAccount.getId(), toAccount.getId(), dto.getAmount());
+            if (dto.getAmount().compareTo(BigDecimal.ZERO) > 0 && fromAccount.getBalanceSlots() > 0
+                    && fromAccount.getBalance().compareTo(dto.getAmount()) < 0) {
+                fromAccount.setBalance(fromAccount.getBalance().add(stripedBalanceService.drainSlots(fromAccount.getId())));
+            }
+            if (dto.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                transfer.setStatus("REJECTED");
+                outcomes.add(TransferOutcome.rejected(transfer, "Invalid amount"));
+            } else if (fromAccount.getBalance().compareTo(dto.getAmount()) < 0) {
+                transfer.setStatus("REJECTED");
+                outcomes.add(TransferOutcome.rejected(transfer, "Insufficient funds"));
+            } else {
+                fromAccount.setBalance(fromAccount.getBalance().subtract(dto.getAmount()));
+                toAccount.setBalance(toAccount.getBalance().add(dto.getAmount()));
+                transfer.setStatus("COMPLETED");
+                outcomes.add(TransferOutcome.completed(transfer));
+            }
+            toSave.add(transfer);
+        }
+
+        // Ids are assigned on persist, so the outcomes above see them once saveAll returns
+        transferRepository.saveAll(toSave);
+        dailySummaryRecorder.record(toSave);
+        return outcomes;
+    }
+
+    /**
+     * Aplicar el grupo con UPDATE condicionados. Todas las cuentas del grupo se bloquean antes, con una
+     * sola consulta y en orden de id, así que dos grupos concurrentes no se bloquean entre sí y un débito
+     * aplicado nunca queda sin su crédito.
+     */
+    private List<TransferOutcome> applyChunkWithConditionalUpdates(List<TransferDto> chunk, Set<Long> accountIds) {
+        Set<Long> existingIds = new HashSet<>();
+        for (Account account : accountRepository.findAllByIdInForUpdate(accountIds)) {
+            existingIds.add(account.getId());
+        }
+
+        List<TransferOutcome> outcomes = new ArrayList<>(chunk.size());
+        List<Transfer> toSave = new ArrayList<>(chunk.size());
+
+        for (TransferDto dto : chunk) {
+            if (!existingIds.contains(dto.getFromAccountId())) {
+                outcomes.add(TransferOutcome.accountMissing("From account not found"));
+                continue;
+            }
+            if (!existingIds.contains(dto.getToAccountId())) {
+                outcomes.add(TransferOutcome.accountMissing("To account not found"));
+                continue;
+            }
+            if (dto.getAmount() == null) {
+                outcomes.add(TransferOutcome.rejected(null, "Invalid amount"));
+                continue;
+            }
+
+            Transfer transfer = new Transfer(dto.getFromAccountId(), dto.getToAccountId(), dto.getAmount());
+            if (dto.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                transfer.setStatus("REJECTED");
+                outcomes.add(TransferOutcome.rejected(transfer, "Invalid amount"));
+                toSave.add(transfer);
+                continue;
+            }
+
+            try {
+                debitOrReject(dto);
+                creditOrFail(dto);
+                transfer.setStatus("COMPLETED");
+                outcomes.add(TransferOutcome.completed(transfer));
+            } catch (TransferRejectedException e) {
+                transfer.setStatus("REJECTED");
+                outcomes.add(TransferOutcome.rejected(transfer, e.getReason()));
+            }
+            toSave.add(transfer);
+        }
+
+        transferRepository.saveAll(toSave);
+        dailySummaryRecorder.record(toSave);
+        return outcomes;
+    }
+
     @Override
     public BigDecimal getAccountBalance(Long accountId) {
-        return accountRepository.findById(accountId)
-                .map(Account::getBalance)
+        return accountCache.findById(accountId)
+                .map(account -> account.balance().add(account.slotBalance()))
                 .orElseThrow(() -> new IllegalArgumentException("Account not found"));
     }
 
     /**
-     * Obtener todas las transferencias
+     * Obtener una página de transferencias ordenadas por id, a partir del cursor {@code after}
      */
-    public List<Transfer> getAllTransfers() {
-        return transferRepository.findAll();
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<TransferView> getTransfers(Long after, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), maxPageSize);
+        List<TransferView> rows = transferRepository.findViewsAfter(after != null ? after : 0L, Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, TransferView::id);
     }
 
     /**
      * Obtener transferencias por cuenta de origen
      */
     @Override
-    public List<Transfer> getTransfersByFromAccountId(Long fromAccountId) {
+    @Transactional(readOnly = true)
+    public List<TransferView> getTransfersByFromAccountId(Long fromAccountId) {
         log.info("Fetching transfers for account id={}", fromAccountId);
-        return transferRepository.findByFromAccountIdOrderByTransferDateDesc(fromAccountId);
+        return transferRepository.findViewsByFromAccountId(fromAccountId);
+    }
+
+    /**
+     * Obtener el extracto de una cuenta: transferencias enviadas (OUT) y recibidas (IN), de la más
+     * reciente a la más antigua, paginado por (transferDate, id) a partir del cursor
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public AccountStatementPage getAccountStatement(Long accountId, String cursor, int limit) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new AccountNotFoundException(accountId);
+        }
+        int pageSize = Math.min(Math.max(limit, 1), maxPageSize);
+
+        LocalDateTime beforeDate = TransferRepository.NO_UPPER_BOUND;
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null) {
+            int separator = cursor.lastIndexOf(STATEMENT_CURSOR_SEPARATOR);
+            try {
+                beforeDate = LocalDateTime.parse(cursor.substring(0, separator));
+                beforeId = Long.parseLong(cursor.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException(cursor);
+            }
+        }
+
+        List<TransferRepository.StatementRow> rows =
+                transferRepository.findStatement(accountId, beforeDate, beforeId, pageSize + 1);
+        List<StatementEntry> entries = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (TransferRepository.StatementRow row : rows.subList(0, Math.min(rows.size(), pageSize))) {
+            boolean outgoing = "OUT".equals(row.getDirection());
+            entries.add(new StatementEntry(row.getId(), row.getDirection(),
+                    outgoing ? row.getToAccountId() : row.getFromAccountId(),
+                    row.getAmount(), row.getTransferDate(), row.getStatus()));
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            StatementEntry last = entries.get(pageSize - 1);
+            nextCursor = last.getTransferDate() + STATEMENT_CURSOR_SEPARATOR + last.getTransferId();
+        }
+        return new AccountStatementPage(accountId, entries, nextCursor);
     }
 }
@@ -0,0 +1,189 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.exception.TransferQueueFullException;
+import com.tlchallenge.bankapi.model.Transfer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cola acotada ({@code bankapi.transfer.async.queue-capacity}) delante de la creación de transferencias
+ * para {@code POST /api/v1/transfers/async}. El hilo de la petición solo encola y queda libre; un número
+ * fijo de workers ({@code workers}) ejecuta las transferencias y completa el futuro de cada llamador.
+ * Con la cola llena, o si una transferencia lleva esperando más de {@code max-wait-ms}, se rechaza al
+ * momento con {@link TransferQueueFullException} (429 con Retry-After) en lugar de hacer esperar al cliente.
+ * Un worker que muere por un error inesperado se sustituye por otro.
+ */
+@Component
+public class TransferSubmissionQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferSubmissionQueue.class);
+
+    public static final String QUEUE_METRIC = "bankapi.transfer.async.queue";
+    public static final String WAIT_METRIC = "bankapi.transfer.async.wait";
+    public static final String REJECTED_METRIC = "bankapi.transfer.async.rejected";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bankapi.transfer.async.queue-capacity:1000}")
+    private int queueCapacity = 1000;
+
+    @Value("${bankapi.transfer.async.workers:8}")
+    private int workerCount = 8;
+
+    @Value("${bankapi.transfer.async.max-wait-ms:5000}")
+    private long maxWaitMs = 5000;
+
+    @Value("${bankapi.transfer.async.retry-after-seconds:1}")
+    private long retryAfterSeconds = 1;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads = false;
+
+    private BlockingQueue<Pending> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private Timer waitTime;
+    private Counter rejectedFull;
+    private Counter rejectedExpired;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder(QUEUE_METRIC, queue, BlockingQueue::size)
+                .description("Transfers waiting for an async worker")
+                .register(meterRegistry);
+        waitTime = Timer.builder(WAIT_METRIC)
+                .description("Time a transfer waits in the async queue before a worker takes it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        rejectedFull = Counter.builder(REJECTED_METRIC)
+                .description("Async transfers rejected with 429")
+                .tag("reason", "full")
+                .register(meterRegistry);
+        rejectedExpired = Counter.builder(REJECTED_METRIC)
+                .description("Async transfers rejected with 429")
+                .tag("reason", "expired")
+                .register(meterRegistry);
+
+        running = true;
+        synchronized (workers) {
+            for (int i = 0; i < workerCount; i++) {
+                workers.add(startWorker(i));
+            }
+        }
+        log.info("Async transfer queue started: capacity={}, workers={}, max wait={}ms",
+                queueCapacity, workerCount, maxWaitMs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        List<Thread> stopping;
+        synchronized (workers) {
+            stopping = new ArrayList<>(workers);
+        }
+        for (Thread worker : stopping) {
+            worker.join();
+        }
+    }
+
+    /**
+     * Encolar una transferencia sin bloquear; el futuro se completa cuando un worker la ejecuta
+     */
+    public CompletableFuture<Transfer> submit(Supplier<Transfer> transfer) {
+        Pending pending = new Pending(transfer, System.nanoTime());
+        if (!running || !queue.offer(pending)) {
+            rejectedFull.increment();
+            throw new TransferQueueFullException(
+                    "Transfer queue is full (" + queueCapacity + " waiting), retry later", retryAfterSeconds);
+        }
+        return pending.result;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private Thread startWorker(int index) {
+        return (virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform())
+                .name("transfer-async-" + index)
+                .uncaughtExceptionHandler((thread, error) -> replaceWorker(index, error))
+                .start(this::run);
+    }
+
+    private void replaceWorker(int index, Throwable error) {
+        log.error("Async transfer worker {} died", index, error);
+        synchronized (workers) {
+            if (running) {
+                workers.set(index, startWorker(index));
+            }
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            Pending pending;
+            try {
+                pending = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (pending != null) {
+                execute(pending);
+            }
+        }
+    }
+
+    private void execute(Pending pending) {
+        long waitedNanos = System.nanoTime() - pending.enqueuedAt;
+        waitTime.record(waitedNanos, TimeUnit.NANOSECONDS);
+        // Past this wait the client is better off retrying later than getting a late answer
+        if (waitedNanos > TimeUnit.MILLISECONDS.toNanos(maxWaitMs)) {
+            rejectedExpired.increment();
+            pending.result.completeExceptionally(new TransferQueueFullException(
+                    "Transfer waited more than " + maxWaitMs + "ms in the queue, retry later", retryAfterSeconds));
+            return;
+        }
+        try {
+            pending.result.complete(pending.transfer.get());
+        } catch (Throwable e) {
+            // Errors too, so the caller is answered and the worker goes on with the queue
+            if (!(e instanceof RuntimeException)) {
+                log.error("Async transfer failed unexpectedly", e);
+            }
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class Pending {
+        private final Supplier<Transfer> transfer;
+        private final long enqueuedAt;
+        private final CompletableFuture<Transfer> result = new CompletableFuture<>();
+
+        private Pending(Supplier<Transfer> transfer, long enqueuedAt) {
+            this.transfer = transfer;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
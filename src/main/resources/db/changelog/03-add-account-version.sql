@@ -0,0 +1,6 @@
+--liquibase formatted sql
+
+--changeset you:03-add-account-version
+ALTER TABLE accounts ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+--rollback ALTER TABLE accounts DROP COLUMN version;
@@ -0,0 +1,13 @@
+--liquibase formatted sql
+
+--changeset you:04-pooled-id-sequences
+-- Hibernate's pooled optimizer reserves the block (nextval - 49, nextval], so both sequences
+-- advance by the allocation size. Restarting them at the current maximum keeps existing ids
+-- and makes the first reserved block start right above them.
+ALTER SEQUENCE accounts_id_seq INCREMENT BY 50;
+SELECT setval('accounts_id_seq', (SELECT COALESCE(MAX(id), 1) FROM accounts));
+
+ALTER SEQUENCE transfers_id_seq INCREMENT BY 50;
+SELECT setval('transfers_id_seq', (SELECT COALESCE(MAX(id), 1) FROM transfers));
+
+--rollback ALTER SEQUENCE accounts_id_seq INCREMENT BY 1; ALTER SEQUENCE transfers_id_seq INCREMENT BY 1;
@@ -0,0 +1,14 @@
+--liquibase formatted sql
+
+--changeset you:05-account-balance-slots
+ALTER TABLE accounts ADD COLUMN balance_slots INT DEFAULT 0 NOT NULL;
+
+CREATE TABLE account_balance_slots (
+    account_id BIGINT NOT NULL,
+    slot INT NOT NULL,
+    balance NUMERIC(15,2) DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_account_balance_slots PRIMARY KEY (account_id, slot),
+    CONSTRAINT fk_balance_slot_account FOREIGN KEY (account_id) REFERENCES accounts (id) ON DELETE CASCADE
+);
+
+--rollback DROP TABLE account_balance_slots; ALTER TABLE accounts DROP COLUMN balance_slots;
@@ -0,0 +1,13 @@
+--liquibase formatted sql
+
+--changeset you:06-ledger-checkpoint
+-- Last journal sequence of the in-memory ledger engine already applied to accounts and transfers.
+-- Updated in the same transaction as the applied entries, so a restart replays exactly the rest.
+CREATE TABLE ledger_checkpoint (
+    id SMALLINT PRIMARY KEY,
+    journal_seq BIGINT NOT NULL
+);
+
+INSERT INTO ledger_checkpoint (id, journal_seq) VALUES (1, 0);
+
+--rollback DROP TABLE ledger_checkpoint;
@@ -0,0 +1,18 @@
+--liquibase formatted sql
+
+--changeset you:07-transfer-idempotency-keys
+--validCheckSum: ANY
+-- One row per Idempotency-Key accepted by POST /api/v1/transfers, with the response it produced. The row
+-- is written in its own transaction after the transfer; 12 and 13 change how it is kept consistent with it.
+-- No foreign key to transfers, so the ledger engine can record keys before its flush.
+CREATE TABLE transfer_idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    request_fingerprint VARCHAR(64) NOT NULL,
+    transfer_id BIGINT NOT NULL,
+    response_body TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_transfer_idempotency_keys_created_at ON transfer_idempotency_keys (created_at);
+
+--rollback DROP TABLE transfer_idempotency_keys;
@@ -0,0 +1,12 @@
+--liquibase formatted sql
+
+--changeset you:08-transfer-statement-indexes runInTransaction:false
+-- Account statements read each direction newest first and page with (transfer_date, id) as the key.
+-- Built CONCURRENTLY so an existing transfers table keeps accepting writes while they are created.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transfers_from_account_date
+    ON transfers (from_account_id, transfer_date DESC, id DESC);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transfers_to_account_date
+    ON transfers (to_account_id, transfer_date DESC, id DESC);
+
+--rollback DROP INDEX IF EXISTS idx_transfers_to_account_date; DROP INDEX IF EXISTS idx_transfers_from_account_date;
@@ -0,0 +1,39 @@
+--liquibase formatted sql
+
+--changeset you:09-daily-account-summary
+-- Debits and credits per account and day, kept up to date by every transfer commit
+CREATE TABLE daily_account_summary (
+    account_id BIGINT NOT NULL,
+    summary_date DATE NOT NULL,
+    debit_total NUMERIC(15,2) DEFAULT 0 NOT NULL,
+    debit_count INT DEFAULT 0 NOT NULL,
+    credit_total NUMERIC(15,2) DEFAULT 0 NOT NULL,
+    credit_count INT DEFAULT 0 NOT NULL,
+    closing_balance NUMERIC(15,2) NOT NULL,
+    CONSTRAINT pk_daily_account_summary PRIMARY KEY (account_id, summary_date),
+    CONSTRAINT fk_daily_summary_account FOREIGN KEY (account_id) REFERENCES accounts (id) ON DELETE CASCADE
+);
+
+-- Backfill from the transfers already stored. The closing balance of each past day is derived from the
+-- current balance by undoing the transfers of the later days.
+INSERT INTO daily_account_summary (account_id, summary_date, debit_total, debit_count, credit_total, credit_count, closing_balance)
+SELECT d.account_id, d.summary_date, d.debit_total, d.debit_count, d.credit_total, d.credit_count,
+       a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0)
+           - COALESCE(SUM(d.credit_total - d.debit_total) OVER (PARTITION BY d.account_id ORDER BY d.summary_date DESC
+               ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), 0)
+FROM (
+    SELECT account_id, summary_date,
+           SUM(debit) AS debit_total, COUNT(*) FILTER (WHERE debit > 0) AS debit_count,
+           SUM(credit) AS credit_total, COUNT(*) FILTER (WHERE credit > 0) AS credit_count
+    FROM (
+        SELECT from_account_id AS account_id, CAST(transfer_date AS DATE) AS summary_date, amount AS debit, 0 AS credit
+        FROM transfers WHERE status = 'COMPLETED'
+        UNION ALL
+        SELECT to_account_id, CAST(transfer_date AS DATE), 0, amount
+        FROM transfers WHERE status = 'COMPLETED'
+    ) flows
+    GROUP BY account_id, summary_date
+) d
+JOIN accounts a ON a.id = d.account_id;
+
+--rollback DROP TABLE daily_account_summary;
@@ -0,0 +1,72 @@
+--liquibase formatted sql
+
+--changeset you:10-create-transfer-partitions-function splitStatements:false
+-- Create the monthly partitions of transfers covering [from_month, to_month] that do not exist yet.
+-- Partitions are named transfers_YYYY_MM. Returns how many were created.
+CREATE OR REPLACE FUNCTION create_transfer_partitions(from_month DATE, to_month DATE) RETURNS INT AS $$
+DECLARE
+    month DATE := date_trunc('month', from_month);
+    created INT := 0;
+BEGIN
+    WHILE month <= date_trunc('month', to_month) LOOP
+        IF to_regclass('transfers_' || to_char(month, 'YYYY_MM')) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF transfers FOR VALUES FROM (%L) TO (%L)',
+                    'transfers_' || to_char(month, 'YYYY_MM'), month, month + INTERVAL '1 month');
+            created := created + 1;
+        END IF;
+        month := month + INTERVAL '1 month';
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+--rollback DROP FUNCTION create_transfer_partitions(DATE, DATE);
+
+--changeset you:10-partition-transfers
+-- transfers becomes a table partitioned by month on transfer_date. A partitioned table's primary key
+-- must include the partition key, so it is (id, transfer_date); ids still come from transfers_id_seq.
+-- There is no default partition: it would rule out DETACH PARTITION CONCURRENTLY when archiving.
+ALTER TABLE transfers RENAME TO transfers_unpartitioned;
+ALTER TABLE transfers_unpartitioned RENAME CONSTRAINT transfers_pkey TO transfers_unpartitioned_pkey;
+ALTER SEQUENCE transfers_id_seq OWNED BY NONE;
+DROP INDEX IF EXISTS idx_transfers_from_account_date;
+DROP INDEX IF EXISTS idx_transfers_to_account_date;
+
+CREATE TABLE transfers (
+    id BIGINT DEFAULT nextval('transfers_id_seq') NOT NULL,
+    from_account_id BIGINT NOT NULL,
+    to_account_id BIGINT NOT NULL,
+    amount NUMERIC(15,2) NOT NULL,
+    transfer_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    CONSTRAINT pk_transfers PRIMARY KEY (id, transfer_date),
+    CONSTRAINT fk_transfer_from_account FOREIGN KEY (from_account_id) REFERENCES accounts (id),
+    CONSTRAINT fk_transfer_to_account FOREIGN KEY (to_account_id) REFERENCES accounts (id)
+) PARTITION BY RANGE (transfer_date);
+
+ALTER SEQUENCE transfers_id_seq OWNED BY transfers.id;
+
+CREATE INDEX idx_transfers_from_account_date ON transfers (from_account_id, transfer_date DESC, id DESC);
+CREATE INDEX idx_transfers_to_account_date ON transfers (to_account_id, transfer_date DESC, id DESC);
+
+-- One partition per month from the oldest transfer up to three months ahead; the application keeps
+-- creating the next ones (see TransferPartitionMaintainer)
+SELECT create_transfer_partitions(
+        CAST(COALESCE((SELECT MIN(transfer_date) FROM transfers_unpartitioned), CURRENT_DATE) AS DATE),
+        CAST(CURRENT_DATE + INTERVAL '3 months' AS DATE));
+
+INSERT INTO transfers (id, from_account_id, to_account_id, amount, transfer_date, status)
+SELECT id, from_account_id, to_account_id, amount, transfer_date, status FROM transfers_unpartitioned;
+
+DROP TABLE transfers_unpartitioned;
+
+--rollback ALTER TABLE transfers RENAME TO transfers_partitioned;
+--rollback ALTER SEQUENCE transfers_id_seq OWNED BY NONE;
+--rollback DROP INDEX idx_transfers_from_account_date;
+--rollback DROP INDEX idx_transfers_to_account_date;
+--rollback CREATE TABLE transfers (id BIGINT DEFAULT nextval('transfers_id_seq') PRIMARY KEY, from_account_id BIGINT NOT NULL, to_account_id BIGINT NOT NULL, amount NUMERIC(15,2) NOT NULL, transfer_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL, status VARCHAR(20) NOT NULL, CONSTRAINT fk_transfer_from_account FOREIGN KEY (from_account_id) REFERENCES accounts (id), CONSTRAINT fk_transfer_to_account FOREIGN KEY (to_account_id) REFERENCES accounts (id));
+--rollback INSERT INTO transfers SELECT id, from_account_id, to_account_id, amount, transfer_date, status FROM transfers_partitioned;
+--rollback ALTER SEQUENCE transfers_id_seq OWNED BY transfers.id;
+--rollback DROP TABLE transfers_partitioned;
+--rollback CREATE INDEX idx_transfers_from_account_date ON transfers (from_account_id, transfer_date DESC, id DESC);
+--rollback CREATE INDEX idx_transfers_to_account_date ON transfers (to_account_id, transfer_date DESC, id DESC);
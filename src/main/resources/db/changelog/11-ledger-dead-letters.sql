@@ -0,0 +1,19 @@
+--liquibase formatted sql
+
+--changeset you:11-ledger-dead-letters
+-- Journal entries the ledger engine could not apply to the database for a reason other than a transient
+-- failure, e.g. an account deleted since or a transfer_date without a partition. Each is moved here in the
+-- same transaction that advances ledger_checkpoint past it, so the flush goes on with the next entries.
+CREATE TABLE ledger_dead_letters (
+    journal_seq BIGINT PRIMARY KEY,
+    transfer_id BIGINT NOT NULL,
+    from_account_id BIGINT NOT NULL,
+    to_account_id BIGINT NOT NULL,
+    amount NUMERIC(15,2) NOT NULL,
+    transfer_date TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    error TEXT NOT NULL,
+    failed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+--rollback DROP TABLE ledger_dead_letters;
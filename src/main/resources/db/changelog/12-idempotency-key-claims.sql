@@ -0,0 +1,13 @@
+--liquibase formatted sql
+
+--changeset you:12-idempotency-key-claims
+-- A key is now claimed with a PENDING row before its transfer runs, and the response is stored in a second
+-- short transaction once the transfer is done. Rows written before this change are complete responses.
+ALTER TABLE transfer_idempotency_keys ADD COLUMN status VARCHAR(20) DEFAULT 'COMPLETED' NOT NULL;
+ALTER TABLE transfer_idempotency_keys ALTER COLUMN transfer_id DROP NOT NULL;
+ALTER TABLE transfer_idempotency_keys ALTER COLUMN response_body DROP NOT NULL;
+
+--rollback DELETE FROM transfer_idempotency_keys WHERE status = 'PENDING';
+--rollback ALTER TABLE transfer_idempotency_keys ALTER COLUMN response_body SET NOT NULL;
+--rollback ALTER TABLE transfer_idempotency_keys ALTER COLUMN transfer_id SET NOT NULL;
+--rollback ALTER TABLE transfer_idempotency_keys DROP COLUMN status;
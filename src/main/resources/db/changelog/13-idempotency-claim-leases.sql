@@ -0,0 +1,12 @@
+--liquibase formatted sql
+
+--changeset you:13-idempotency-claim-leases
+-- A PENDING claim now carries a token and the time it was taken. With the database engine the response is
+-- stored in the transfer's own transaction, only while the token still holds the claim, so a claim whose
+-- lease has expired can be taken over safely: had its transfer committed, the row would be COMPLETED.
+ALTER TABLE transfer_idempotency_keys ADD COLUMN claim_token VARCHAR(36);
+ALTER TABLE transfer_idempotency_keys ADD COLUMN claimed_at TIMESTAMP;
+UPDATE transfer_idempotency_keys SET claimed_at = created_at WHERE status = 'PENDING';
+
+--rollback ALTER TABLE transfer_idempotency_keys DROP COLUMN claimed_at;
+--rollback ALTER TABLE transfer_idempotency_keys DROP COLUMN claim_token;
@@ -0,0 +1,95 @@
+package com.tlchallenge.bankapi.benchmark;
+
+import com.tlchallenge.bankapi.integration.PostgresIntegrationTest;
+import com.tlchallenge.bankapi.model.dto.AccountStatementPage;
+import com.tlchallenge.bankapi.model.dto.StatementEntry;
+import com.tlchallenge.bankapi.repository.TransferRepository;
+import com.tlchallenge.bankapi.service.TransferService;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plan (EXPLAIN ANALYZE) y latencia del extracto de cuenta sobre datos sembrados: una cuenta caliente con
+ * una parte grande de las transferencias, leída en su primera página y en una página profunda
+ */
+class AccountStatementBenchmark extends PostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountStatementBenchmark.class);
+
+    private static final int ACCOUNTS = 100;
+    private static final int TRANSFERS = 200_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int READS = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Test
+    void explainAndTimeStatementPages() throws Exception {
+        List<Long> accounts = jdbcTemplate.queryForList("INSERT INTO accounts (account_number, balance, created_at, version, balance_slots) "
+                + "SELECT 'ST-' || gen_random_uuid(), 1000000, now(), 0, 0 FROM generate_series(1, " + ACCOUNTS + ") RETURNING id", Long.class);
+        Long hot = accounts.get(0);
+        Long first = accounts.get(1);
+        // One transfer in five leaves the hot account; the rest are spread over the other accounts.
+        // Dates start at the current month, which always has a partition.
+        jdbcTemplate.update("INSERT INTO transfers (from_account_id, to_account_id, amount, transfer_date, status) "
+                + "SELECT CASE WHEN g % 5 = 0 THEN ? ELSE ? + (g % ?) END, ? + ((g + 7) % ?), 1, "
+                + "date_trunc('month', now()) + g * INTERVAL '1 second', 'COMPLETED' FROM generate_series(1, ?) g",
+                hot, first, ACCOUNTS - 1, first, ACCOUNTS - 1, TRANSFERS);
+        jdbcTemplate.execute("ANALYZE transfers");
+
+        AccountStatementPage firstPage = transferService.getAccountStatement(hot, null, PAGE_SIZE);
+        assertEquals(PAGE_SIZE, firstPage.getEntries().size());
+        StatementEntry newest = firstPage.getEntries().get(0);
+        LocalDateTime deepDate = newest.getTransferDate().minusSeconds(TRANSFERS / 2);
+
+        explain("first page", hot, TransferRepository.NO_UPPER_BOUND, Long.MAX_VALUE);
+        explain("deep page", hot, deepDate, Long.MAX_VALUE);
+
+        time("first page", () -> transferService.getAccountStatement(hot, null, PAGE_SIZE));
+        String deepCursor = deepDate + "_" + Long.MAX_VALUE;
+        time("deep page", () -> transferService.getAccountStatement(hot, deepCursor, PAGE_SIZE));
+    }
+
+    private void explain(String label, Long accountId, LocalDateTime beforeDate, long beforeId) throws Exception {
+        String sql = TransferRepository.class
+                .getMethod("findStatement", Long.class, LocalDateTime.class, Long.class, int.class)
+                .getAnnotation(Query.class).value();
+        List<String> plan = new NamedParameterJdbcTemplate(jdbcTemplate).queryForList(
+                "EXPLAIN (ANALYZE, BUFFERS) " + sql,
+                Map.of("accountId", accountId, "beforeDate", beforeDate, "beforeId", beforeId, "limit", PAGE_SIZE + 1),
+                String.class);
+        log.info("Statement plan, {}:\n{}", label, String.join("\n", plan));
+        // Both directions must be read newest first from their index, never by scanning a partition
+        assertTrue(plan.stream().noneMatch(line -> line.contains("Seq Scan")), String.join("\n", plan));
+    }
+
+    private static void time(String label, Runnable read) {
+        for (int i = 0; i < READS / 10; i++) {
+            read.run();
+        }
+        LatencyRecorder recorder = new LatencyRecorder(READS);
+        recorder.start();
+        for (int i = 0; i < READS; i++) {
+            long started = System.nanoTime();
+            read.run();
+            recorder.record(System.nanoTime() - started);
+        }
+        recorder.stop();
+        log.info("Statement {}: {}", label, recorder.summary());
+    }
+}
@@ -0,0 +1,109 @@
+package com.tlchallenge.bankapi.benchmark;
+
+import com.tlchallenge.bankapi.integration.PostgresIntegrationTest;
+import com.tlchallenge.bankapi.model.Account;
+import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import com.tlchallenge.bankapi.service.impl.TransferGroupCommitter;
+import com.tlchallenge.bankapi.service.impl.TransferServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Medir throughput y latencia de transferencias individuales concurrentes sin group commit y con
+ * distintas ventanas ({@code window-us}), junto con el tamaño medio de grupo que da cada ventana
+ */
+class GroupCommitWindowBenchmark extends PostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitWindowBenchmark.class);
+
+    private static final int CLIENTS = 32;
+    private static final int TRANSFERS_PER_CLIENT = 100;
+    private static final long[] WINDOWS_MICROS = {100, 500, 1000, 5000};
+
+    @Autowired
+    private TransferServiceImpl transferService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void compareGroupCommitWindows() throws Exception {
+        List<Long> accounts = new ArrayList<>();
+        for (int i = 0; i < CLIENTS * 2; i++) {
+            accounts.add(accountRepository.save(new Account("GC-" + UUID.randomUUID(), new BigDecimal("1000000.00"))).getId());
+        }
+
+        // The first run warms up the JIT, the connection pool and the statement cache
+        run(accounts, transferService::createTransfer);
+        log.info("no group commit: {}", run(accounts, transferService::createTransfer).summary());
+
+        for (long window : WINDOWS_MICROS) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            TransferGroupCommitter committer = committer(window, registry);
+            committer.start();
+            try {
+                LatencyRecorder recorder = run(accounts, committer::createTransfer);
+                log.info("window={}us: {}, mean group size={}", window, recorder.summary(),
+                        String.format("%.1f", registry.get(TransferGroupCommitter.GROUP_SIZE_METRIC).summary().mean()));
+            } finally {
+                committer.stop();
+            }
+        }
+    }
+
+    private TransferGroupCommitter committer(long windowMicros, SimpleMeterRegistry registry) {
+        TransferGroupCommitter committer = new TransferGroupCommitter();
+        ReflectionTestUtils.setField(committer, "transferService", transferService);
+        ReflectionTestUtils.setField(committer, "meterRegistry", registry);
+        ReflectionTestUtils.setField(committer, "enabled", true);
+        ReflectionTestUtils.setField(committer, "windowMicros", windowMicros);
+        return committer;
+    }
+
+    private LatencyRecorder run(List<Long> accounts, Function<TransferDto, ?> create) throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder(CLIENTS * TRANSFERS_PER_CLIENT);
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            recorder.start();
+            for (int c = 0; c < CLIENTS; c++) {
+                // Each client moves money between its own pair of accounts, so only the grouping is measured
+                TransferDto dto = new TransferDto();
+                dto.setFromAccountId(accounts.get(2 * c));
+                dto.setToAccountId(accounts.get(2 * c + 1));
+                dto.setAmount(BigDecimal.ONE);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < TRANSFERS_PER_CLIENT; i++) {
+                        long started = System.nanoTime();
+                        create.apply(dto);
+                        recorder.record(System.nanoTime() - started);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            recorder.stop();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(CLIENTS * TRANSFERS_PER_CLIENT, recorder.count());
+        return recorder;
+    }
+}
@@ -0,0 +1,159 @@
+package com.tlchallenge.bankapi.benchmark;
+
+import com.tlchallenge.bankapi.integration.PostgresIntegrationTest;
+import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.service.TransferMode;
+import com.tlchallenge.bankapi.service.impl.TransferServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contención sobre una cuenta caliente con el modo ENTITY (FOR UPDATE) y con ADVISORY_LOCK: latencia,
+ * tuple locks y esperas vistos en pg_locks durante la carga, y MultiXacts consumidos según
+ * pg_control_checkpoint() antes y después de cada ejecución
+ */
+@TestPropertySource(properties = "bankapi.transfer.bulkhead.enabled=false")
+class HotAccountLockBenchmark extends PostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(HotAccountLockBenchmark.class);
+
+    private static final int CLIENTS = 32;
+    private static final int TRANSFERS_PER_CLIENT = 100;
+    private static final long SAMPLE_INTERVAL_MILLIS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransferServiceImpl transferService;
+
+    @Test
+    void compareEntityWithAdvisoryLocks() throws Exception {
+        // The bulkhead is off so that every client reaches the database and contends on the hot account
+        Object target = AopTestUtils.getUltimateTargetObject(transferService);
+        Object previousMode = ReflectionTestUtils.getField(target, "transferMode");
+        try {
+            for (TransferMode mode : List.of(TransferMode.ENTITY, TransferMode.ADVISORY_LOCK)) {
+                ReflectionTestUtils.setField(target, "transferMode", mode);
+                // The first run warms up the JIT, the connection pool and the statement cache
+                run(mode, false);
+                run(mode, true);
+            }
+        } finally {
+            ReflectionTestUtils.setField(target, "transferMode", previousMode);
+        }
+    }
+
+    private void run(TransferMode mode, boolean measured) throws Exception {
+        List<Long> accounts = jdbcTemplate.queryForList("INSERT INTO accounts (account_number, balance, created_at, version, balance_slots) "
+                + "SELECT 'HL-' || gen_random_uuid(), 1000000, now(), 0, 0 FROM generate_series(1, " + (CLIENTS + 1) + ") RETURNING id", Long.class);
+        Long hot = accounts.get(0);
+        long multiXactBefore = nextMultiXactId();
+
+        LockSampler sampler = new LockSampler();
+        Thread sampling = Thread.ofPlatform().name("pg-locks-sampler").start(sampler);
+        LatencyRecorder recorder = new LatencyRecorder(CLIENTS * TRANSFERS_PER_CLIENT);
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            recorder.start();
+            for (int c = 0; c < CLIENTS; c++) {
+                Long cold = accounts.get(c + 1);
+                // Half the clients pay into the hot account and half are paid from it
+                TransferDto dto = new TransferDto();
+                dto.setFromAccountId(c % 2 == 0 ? cold : hot);
+                dto.setToAccountId(c % 2 == 0 ? hot : cold);
+                dto.setAmount(BigDecimal.ONE);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < TRANSFERS_PER_CLIENT; i++) {
+                        long started = System.nanoTime();
+                        transferService.createTransfer(dto);
+                        recorder.record(System.nanoTime() - started);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            recorder.stop();
+        } finally {
+            executor.shutdown();
+            sampler.running.set(false);
+            sampling.join();
+        }
+        assertEquals(CLIENTS * TRANSFERS_PER_CLIENT, recorder.count());
+
+        if (measured) {
+            log.info("{}: {}, tuple locks max={} mean={}, lock waits max={} mean={}, MultiXacts used={}",
+                    mode, recorder.summary(), sampler.maxTupleLocks, String.format("%.1f", sampler.meanTupleLocks()),
+                    sampler.maxWaiting, String.format("%.1f", sampler.meanWaiting()), nextMultiXactId() - multiXactBefore);
+        }
+    }
+
+    private long nextMultiXactId() {
+        // pg_control_checkpoint() reports the counters as of the last checkpoint, so take one first
+        jdbcTemplate.execute("CHECKPOINT");
+        Long next = jdbcTemplate.queryForObject("SELECT next_multixact_id::text::bigint FROM pg_control_checkpoint()", Long.class);
+        return next == null ? 0 : next;
+    }
+
+    /**
+     * Muestrear pg_locks mientras dura la carga: tuple locks concedidos o esperados y locks sin conceder
+     */
+    private final class LockSampler implements Runnable {
+
+        // The counters are only read after the sampling thread has been joined
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private long maxTupleLocks;
+        private long maxWaiting;
+        private long tupleLocks;
+        private long waiting;
+        private long samples;
+
+        @Override
+        public void run() {
+            while (running.get()) {
+                Map<String, Object> row = jdbcTemplate.queryForMap("SELECT count(*) FILTER (WHERE locktype = 'tuple') AS tuple_locks, "
+                        + "count(*) FILTER (WHERE NOT granted) AS waiting FROM pg_locks WHERE pid <> pg_backend_pid()");
+                long tuple = ((Number) row.get("tuple_locks")).longValue();
+                long notGranted = ((Number) row.get("waiting")).longValue();
+                maxTupleLocks = Math.max(maxTupleLocks, tuple);
+                maxWaiting = Math.max(maxWaiting, notGranted);
+                tupleLocks += tuple;
+                waiting += notGranted;
+                samples++;
+                try {
+                    Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        double meanTupleLocks() {
+            return samples == 0 ? 0 : tupleLocks / (double) samples;
+        }
+
+        double meanWaiting() {
+            return samples == 0 ? 0 : waiting / (double) samples;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.tlchallenge.bankapi.benchmark;
+
+import com.tlchallenge.bankapi.integration.PostgresIntegrationTest;
+import com.tlchallenge.bankapi.model.Account;
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import com.tlchallenge.bankapi.repository.TransferRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparar el throughput de inserción de cuentas y transferencias fila a fila con INSERT ... RETURNING id,
+ * que es lo que IDENTITY obliga a hacer a Hibernate, frente a saveAll con secuencias pooled y batching JDBC
+ */
+class InsertBatchingBenchmark extends PostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InsertBatchingBenchmark.class);
+
+    private static final int ROWS = 5000;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Test
+    void compareRowByRowInsertsWithBatchedInserts() {
+        Long from = accountRepository.save(new Account("IB-" + UUID.randomUUID(), new BigDecimal("1000000.00"))).getId();
+        Long to = accountRepository.save(new Account("IB-" + UUID.randomUUID(), BigDecimal.ZERO)).getId();
+
+        // The first round warms up the JIT, the connection pool and the statement cache
+        for (int round = 0; round <= ROUNDS; round++) {
+            boolean measured = round > 0;
+            report(measured, "accounts, row by row (before)", time(() -> insertAccountsOneByOne()));
+            report(measured, "accounts, saveAll batched (after)", time(() -> insertAccountsBatched()));
+            report(measured, "transfers, row by row (before)", time(() -> insertTransfersOneByOne(from, to)));
+            report(measured, "transfers, saveAll batched (after)", time(() -> insertTransfersBatched(from, to)));
+        }
+    }
+
+    private void insertAccountsOneByOne() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                jdbcTemplate.queryForObject("INSERT INTO accounts (account_number, balance, created_at, version, balance_slots) "
+                        + "VALUES (?, ?, ?, 0, 0) RETURNING id", Long.class,
+                        "IB-" + UUID.randomUUID(), BigDecimal.TEN, Timestamp.valueOf(LocalDateTime.now()));
+            }
+        });
+    }
+
+    private void insertAccountsBatched() {
+        List<Account> accounts = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            accounts.add(new Account("IB-" + UUID.randomUUID(), BigDecimal.TEN));
+        }
+        transactionTemplate.executeWithoutResult(status -> accountRepository.saveAll(accounts));
+    }
+
+    private void insertTransfersOneByOne(Long from, Long to) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                jdbcTemplate.queryForObject("INSERT INTO transfers (from_account_id, to_account_id, amount, transfer_date, status) "
+                        + "VALUES (?, ?, ?, ?, 'COMPLETED') RETURNING id", Long.class,
+                        from, to, BigDecimal.ONE, Timestamp.valueOf(LocalDateTime.now()));
+            }
+        });
+    }
+
+    private void insertTransfersBatched(Long from, Long to) {
+        List<Transfer> transfers = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Transfer transfer = new Transfer(from, to, BigDecimal.ONE);
+            transfer.setStatus("COMPLETED");
+            transfers.add(transfer);
+        }
+        transactionTemplate.executeWithoutResult(status -> transferRepository.saveAll(transfers));
+    }
+
+    private static long time(Runnable run) {
+        long started = System.nanoTime();
+        run.run();
+        return System.nanoTime() - started;
+    }
+
+    private static void report(boolean measured, String label, long nanos) {
+        if (measured) {
+            log.info("{}: {} rows in {} ms, {} rows/s", label, ROWS, TimeUnit.NANOSECONDS.toMillis(nanos),
+                    Math.round(ROWS / (nanos / (double) TimeUnit.SECONDS.toNanos(1))));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.tlchallenge.bankapi.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registrar latencias de una ejecución de benchmark y resumirlas en throughput y percentiles
+ */
+class LatencyRecorder {
+
+    private final long[] samples;
+    private final AtomicInteger count = new AtomicInteger();
+    private long startNanos;
+    private long endNanos;
+
+    LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    void stop() {
+        endNanos = System.nanoTime();
+    }
+
+    void record(long nanos) {
+        int index = count.getAndIncrement();
+        if (index < samples.length) {
+            samples[index] = nanos;
+        }
+    }
+
+    int count() {
+        return Math.min(count.get(), samples.length);
+    }
+
+    double throughputPerSecond() {
+        return count() / ((endNanos - startNanos) / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    double percentileMillis(double percentile) {
+        long[] sorted = Arrays.copyOf(samples, count());
+        if (sorted.length == 0) {
+            return 0;
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    String summary() {
+        return String.format("ops=%d, throughput=%.1f/s, p50=%.2fms, p99=%.2fms, max=%.2fms",
+                count(), throughputPerSecond(), percentileMillis(50), percentileMillis(99), percentileMillis(100));
+    }
+}
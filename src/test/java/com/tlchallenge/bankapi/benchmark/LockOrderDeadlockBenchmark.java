@@ -0,0 +1,134 @@
+package com.tlchallenge.bankapi.benchmark;
+
+import com.tlchallenge.bankapi.integration.PostgresIntegrationTest;
+import com.tlchallenge.bankapi.model.Account;
+import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import com.tlchallenge.bankapi.service.TransferMode;
+import com.tlchallenge.bankapi.service.impl.TransferServiceImpl;
+import io.github.resilience4j.retry.Retry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contar deadlocks de Postgres (pg_stat_database y SQLSTATE 40P01) y reintentos con transferencias
+ * cruzadas A->B / B->A hechas con TransferServiceImpl.createTransfer en modo ENTITY
+ */
+@TestPropertySource(properties = "bankapi.transfer.bulkhead.enabled=false")
+class LockOrderDeadlockBenchmark extends PostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LockOrderDeadlockBenchmark.class);
+
+    private static final String DEADLOCK_DETECTED = "40P01";
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransferServiceImpl transferService;
+
+    @Autowired
+    private Retry transferServiceRetry;
+
+    @Test
+    void crossingTransfersThroughTheService() throws Exception {
+        // The bulkhead is off so that crossing transfers reach the row locks at the same time
+        Object target = AopTestUtils.getUltimateTargetObject(transferService);
+        Object previousMode = ReflectionTestUtils.getField(target, "transferMode");
+        ReflectionTestUtils.setField(target, "transferMode", TransferMode.ENTITY);
+        try {
+            Long a = accountRepository.save(new Account("DL-" + UUID.randomUUID(), new BigDecimal("1000000.00"))).getId();
+            Long b = accountRepository.save(new Account("DL-" + UUID.randomUUID(), new BigDecimal("1000000.00"))).getId();
+            long deadlocksBefore = databaseDeadlocks();
+            Retry.Metrics retries = transferServiceRetry.getMetrics();
+            long retriedBefore = retries.getNumberOfSuccessfulCallsWithRetryAttempt() + retries.getNumberOfFailedCallsWithRetryAttempt();
+            AtomicInteger failedWithDeadlock = new AtomicInteger();
+            LatencyRecorder recorder = new LatencyRecorder(THREADS * TRANSFERS_PER_THREAD);
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                recorder.start();
+                for (int t = 0; t < THREADS; t++) {
+                    TransferDto dto = new TransferDto();
+                    dto.setFromAccountId(t % 2 == 0 ? a : b);
+                    dto.setToAccountId(t % 2 == 0 ? b : a);
+                    dto.setAmount(BigDecimal.ONE);
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                            long started = System.nanoTime();
+                            try {
+                                transferService.createTransfer(dto);
+                            } catch (DataAccessException e) {
+                                if (!DEADLOCK_DETECTED.equals(sqlState(e))) {
+                                    throw e;
+                                }
+                                failedWithDeadlock.incrementAndGet();
+                            }
+                            recorder.record(System.nanoTime() - started);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.MINUTES);
+                }
+                recorder.stop();
+            } finally {
+                executor.shutdownNow();
+            }
+
+            long deadlocks = databaseDeadlocks() - deadlocksBefore;
+            long retried = retries.getNumberOfSuccessfulCallsWithRetryAttempt() + retries.getNumberOfFailedCallsWithRetryAttempt()
+                    - retriedBefore;
+            log.info("{} threads x {} crossing transfers in ENTITY mode: deadlocks={}, failed with 40P01={}, calls retried={}, {}",
+                    THREADS, TRANSFERS_PER_THREAD, deadlocks, failedWithDeadlock.get(), retried, recorder.summary());
+            assertEquals(0, deadlocks);
+            assertEquals(0, failedWithDeadlock.get());
+        } finally {
+            ReflectionTestUtils.setField(target, "transferMode", previousMode);
+        }
+    }
+
+    private long databaseDeadlocks() throws InterruptedException {
+        // Backends flush their statistics about once a second while idle, so give them time and read a fresh snapshot
+        Thread.sleep(2000);
+        jdbcTemplate.execute("SELECT pg_stat_clear_snapshot()");
+        Long deadlocks = jdbcTemplate.queryForObject(
+                "SELECT deadlocks FROM pg_stat_database WHERE datname = current_database()", Long.class);
+        return deadlocks == null ? 0 : deadlocks;
+    }
+
+    private static String sqlState(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                return sqlException.getSQLState();
+            }
+        }
+        return null;
+    }
+}
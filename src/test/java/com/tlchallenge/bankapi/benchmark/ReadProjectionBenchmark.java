@@ -0,0 +1,91 @@
+package com.tlchallenge.bankapi.benchmark;
+
+import com.tlchallenge.bankapi.integration.PostgresIntegrationTest;
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.dto.TransferView;
+import com.tlchallenge.bankapi.repository.TransferRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comparar latencia y memoria reservada por página al leer transferencias como entidades gestionadas
+ * (antes) y como proyecciones TransferView (ahora), dentro de la misma transacción de lectura
+ */
+class ReadProjectionBenchmark extends PostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadProjectionBenchmark.class);
+
+    private static final int TRANSFERS = 50_000;
+    private static final int PAGE_SIZE = 1000;
+    private static final int ROUNDS = 200;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Test
+    void compareEntityPagesWithProjectionPages() {
+        List<Long> accounts = jdbcTemplate.queryForList("INSERT INTO accounts (account_number, balance, created_at, version, balance_slots) "
+                + "SELECT 'RP-' || gen_random_uuid(), 1000000, now(), 0, 0 FROM generate_series(1, 2) RETURNING id", Long.class);
+        // Dates start at the current month, which always has a partition
+        jdbcTemplate.update("INSERT INTO transfers (from_account_id, to_account_id, amount, transfer_date, status) "
+                + "SELECT ?, ?, 1, date_trunc('month', now()) + g * INTERVAL '1 second', 'COMPLETED' "
+                + "FROM generate_series(1, ?) g", accounts.get(0), accounts.get(1), TRANSFERS);
+        Long after = jdbcTemplate.queryForObject("SELECT MAX(id) FROM transfers", Long.class) - TRANSFERS;
+
+        Supplier<List<?>> entities = () -> entityManager
+                .createQuery("SELECT t FROM Transfer t WHERE t.id > :after ORDER BY t.id", Transfer.class)
+                .setParameter("after", after)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+        Supplier<List<?>> views = () -> transferRepository.findViewsAfter(after, Limit.of(PAGE_SIZE));
+
+        // The first pass of each warms up the JIT, the connection pool and the statement cache
+        run("entities (before)", entities, false);
+        run("TransferView (after)", views, false);
+        run("entities (before)", entities, true);
+        run("TransferView (after)", views, true);
+        assertInstanceOf(TransferView.class, views.get().get(0));
+    }
+
+    private void run(String label, Supplier<List<?>> page, boolean measured) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        LatencyRecorder recorder = new LatencyRecorder(ROUNDS);
+        long allocated = 0;
+        recorder.start();
+        for (int i = 0; i < ROUNDS; i++) {
+            long bytesBefore = threads.getThreadAllocatedBytes(thread);
+            long started = System.nanoTime();
+            int rows = transactionTemplate.execute(status -> page.get().size());
+            recorder.record(System.nanoTime() - started);
+            allocated += threads.getThreadAllocatedBytes(thread) - bytesBefore;
+            assertEquals(PAGE_SIZE, rows);
+        }
+        recorder.stop();
+        if (measured) {
+            log.info("{}: pages of {} rows, {}, allocated {} KB per page", label, PAGE_SIZE, recorder.summary(),
+                    allocated / ROUNDS / 1024);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.tlchallenge.bankapi.benchmark;
+
+import com.tlchallenge.bankapi.integration.PostgresIntegrationTest;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput y p99 de una carga HTTP mixta (lecturas de cuenta y transferencias) con el servidor en hilos
+ * de plataforma y en hilos virtuales ({@code spring.threads.virtual.enabled}); cada modo arranca su propio contexto
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "bankapi.concurrency-limit.enabled=false")
+class ThreadingModeBenchmark extends PostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadingModeBenchmark.class);
+
+    private static final int ACCOUNTS = 200;
+    // More clients than Tomcat's 200 platform threads, so the platform run has to queue somewhere too
+    private static final int CLIENTS = 400;
+    private static final int REQUESTS_PER_CLIENT = 50;
+    private static final int TRANSFER_PERCENT = 20;
+
+    @Nested
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+    class PlatformThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Test
+        void mixedLoad() throws Exception {
+            run("platform threads", port, jdbcTemplate);
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+    class VirtualThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Test
+        void mixedLoad() throws Exception {
+            run("virtual threads", port, jdbcTemplate);
+        }
+    }
+
+    private static void run(String label, int port, JdbcTemplate jdbcTemplate) throws Exception {
+        List<Long> accounts = jdbcTemplate.queryForList("INSERT INTO accounts (account_number, balance, created_at, version, balance_slots) "
+                + "SELECT 'TM-' || gen_random_uuid(), 1000000, now(), 0, 0 FROM generate_series(1, " + ACCOUNTS + ") RETURNING id", Long.class);
+        String base = "http://localhost:" + port + "/api/v1";
+        AtomicInteger failures = new AtomicInteger();
+        // The first pass warms up the JIT, the connection pool and the statement cache
+        load(base, accounts, failures);
+        failures.set(0);
+        LatencyRecorder recorder = load(base, accounts, failures);
+        log.info("{}: {} clients, {}% transfers, {}, non-2xx={}", label, CLIENTS, TRANSFER_PERCENT, recorder.summary(),
+                failures.get());
+    }
+
+    private static LatencyRecorder load(String base, List<Long> accounts, AtomicInteger failures) throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder(CLIENTS * REQUESTS_PER_CLIENT);
+        // Clients are virtual threads in both runs, so only the server's threading differs
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(clients).build()) {
+            List<Future<?>> futures = new ArrayList<>();
+            recorder.start();
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        HttpRequest request = random.nextInt(100) < TRANSFER_PERCENT
+                                ? transfer(base, accounts, random)
+                                : HttpRequest.newBuilder(URI.create(base + "/accounts/" + accounts.get(random.nextInt(ACCOUNTS)))).build();
+                        long started = System.nanoTime();
+                        HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                        recorder.record(System.nanoTime() - started);
+                        if (response.statusCode() >= 300) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            recorder.stop();
+        }
+        assertEquals(CLIENTS * REQUESTS_PER_CLIENT, recorder.count());
+        return recorder;
+    }
+
+    private static HttpRequest transfer(String base, List<Long> accounts, ThreadLocalRandom random) {
+        int from = random.nextInt(ACCOUNTS);
+        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        String body = "{\"fromAccountId\":" + accounts.get(from) + ",\"toAccountId\":" + accounts.get(to) + ",\"amount\":1.00}";
+        return HttpRequest.newBuilder(URI.create(base + "/transfers"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
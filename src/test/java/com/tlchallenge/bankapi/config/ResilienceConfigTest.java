@@ -0,0 +1,34 @@
+package com.tlchallenge.bankapi.config;
+
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilienceConfigTest {
+
+    private final ResilienceConfig resilienceConfig = new ResilienceConfig();
+
+    @Test
+    void testTransferServiceRetry_registersTheConfiguredInstance() {
+        RetryRegistry registry = RetryRegistry.ofDefaults();
+
+        Retry retry = resilienceConfig.transferServiceRetry(registry, 5, 20, 2.0, 0.5);
+
+        assertSame(retry, registry.retry(ResilienceConfig.TRANSFER_SERVICE_RETRY));
+        assertEquals(5, retry.getRetryConfig().getMaxAttempts());
+    }
+
+    @Test
+    void testTransferServiceRetry_replacesAnInstanceCreatedFromProperties() {
+        RetryRegistry registry = RetryRegistry.ofDefaults();
+        registry.retry(ResilienceConfig.TRANSFER_SERVICE_RETRY, RetryConfig.custom().maxAttempts(7).build());
+
+        Retry retry = resilienceConfig.transferServiceRetry(registry, 3, 20, 2.0, 0.5);
+
+        assertSame(retry, registry.retry(ResilienceConfig.TRANSFER_SERVICE_RETRY));
+        assertEquals(3, registry.retry(ResilienceConfig.TRANSFER_SERVICE_RETRY).getRetryConfig().getMaxAttempts());
+    }
+}
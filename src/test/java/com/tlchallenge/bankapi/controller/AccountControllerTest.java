@@ -4,6 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tlchallenge.bankapi.exception.AccountNotFoundException;
 import com.tlchallenge.bankapi.model.Account;
 import com.tlchallenge.bankapi.model.dto.AccountDto;
+import com.tlchallenge.bankapi.model.dto.AccountView;
+import com.tlchallenge.bankapi.model.dto.CursorPage;
+import com.tlchallenge.bankapi.model.dto.DailySummary;
 import com.tlchallenge.bankapi.service.AccountService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +19,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -23,6 +27,8 @@ import java.util.Optional;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -53,13 +59,49 @@ class AccountControllerTest {
 
     @Test
     void testGetAccount_found() throws Exception {
-        when(accountService.getAccountById(1L)).thenReturn(Optional.of(account));
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(view(account)));
 
         mockMvc.perform(get("/api/v1/accounts/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accountNumber").value("12345"));
     }
 
+    @Test
+    void testGetAccount_sendsETagAndAnswersNotModified() throws Exception {
+        account.setVersion(4L);
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(view(account)));
+
+        mockMvc.perform(get("/api/v1/accounts/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-4\""))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+
+        mockMvc.perform(get("/api/v1/accounts/1").header("If-None-Match", "\"1-4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/v1/accounts/1").header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("12345"));
+    }
+
+    @Test
+    void testGetAccount_stripedAccountETagFollowsSlotCredits() throws Exception {
+        when(accountService.getAccountById(1L))
+                .thenReturn(Optional.of(new AccountView(1L, "12345", BigDecimal.valueOf(1000), null, null, 4L, 8, BigDecimal.valueOf(250))))
+                .thenReturn(Optional.of(new AccountView(1L, "12345", BigDecimal.valueOf(1000), null, null, 4L, 8, new BigDecimal("310.00"))));
+
+        mockMvc.perform(get("/api/v1/accounts/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-4-250\""))
+                .andExpect(jsonPath("$.slotBalance").value(250));
+
+        // A slot credit leaves the row version alone but must still change the ETag
+        mockMvc.perform(get("/api/v1/accounts/1").header("If-None-Match", "\"1-4-250\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-4-310\""));
+    }
+
     @Test
     void testGetAccount_notFound() throws Exception {
         when(accountService.getAccountById(107L)).thenThrow(new AccountNotFoundException(107L));
@@ -68,6 +110,39 @@ class AccountControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testGetAccountByNumber_found() throws Exception {
+        when(accountService.getAccountByNumber("12345")).thenReturn(view(account));
+
+        mockMvc.perform(get("/api/v1/accounts/by-number/12345"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(jsonPath("$.accountNumber").value("12345"));
+    }
+
+    @Test
+    void testGetAccountByNumber_notFound() throws Exception {
+        when(accountService.getAccountByNumber("00000")).thenThrow(new AccountNotFoundException("00000"));
+
+        mockMvc.perform(get("/api/v1/accounts/by-number/00000"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.accountNumber").value("00000"));
+    }
+
+    @Test
+    void testGetDailySummary() throws Exception {
+        LocalDate day = LocalDate.of(2026, 3, 2);
+        when(accountService.getDailySummary(1L, day, day.plusDays(1))).thenReturn(List.of(
+                new DailySummary(day, BigDecimal.valueOf(30), 1, BigDecimal.valueOf(100), 2, BigDecimal.valueOf(1070))));
+
+        mockMvc.perform(get("/api/v1/accounts/1/daily-summary").param("from", "2026-03-02").param("to", "2026-03-03"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].date").value("2026-03-02"))
+                .andExpect(jsonPath("$[0].debitCount").value(1))
+                .andExpect(jsonPath("$[0].creditTotal").value(100))
+                .andExpect(jsonPath("$[0].closingBalance").value(1070));
+    }
+
     @Test
     void testCreateAccount_success() throws Exception {
         AccountDto dto = new AccountDto("67890", BigDecimal.valueOf(500));
@@ -110,10 +185,16 @@ class AccountControllerTest {
 
     @Test
     void testGetAllAccounts() throws Exception {
-        when(accountService.getAllAccounts()).thenReturn(List.of(account));
+        when(accountService.getAccounts(5L, 1)).thenReturn(new CursorPage<>(List.of(view(account)), 6L));
 
-        mockMvc.perform(get("/api/v1/accounts"))
+        mockMvc.perform(get("/api/v1/accounts").param("after", "5").param("limit", "1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].accountNumber").value("12345"));
+                .andExpect(jsonPath("$.items[0].accountNumber").value("12345"))
+                .andExpect(jsonPath("$.nextCursor").value(6L));
+    }
+
+    private static AccountView view(Account account) {
+        return new AccountView(account.getId(), account.getAccountNumber(), account.getBalance(),
+                account.getCreatedAt(), account.getUpdatedAt(), account.getVersion(), account.getBalanceSlots(), BigDecimal.ZERO);
     }
 }
@@ -2,8 +2,22 @@ package com.tlchallenge.bankapi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.dto.AccountStatementPage;
+import com.tlchallenge.bankapi.model.dto.CursorPage;
+import com.tlchallenge.bankapi.model.dto.StatementEntry;
+import com.tlchallenge.bankapi.model.dto.TransferBatchDto;
+import com.tlchallenge.bankapi.model.dto.TransferBatchItemResult;
+import com.tlchallenge.bankapi.model.dto.TransferByNumberDto;
 import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.model.dto.TransferView;
+import com.tlchallenge.bankapi.exception.IdempotencyKeyReusedException;
+import com.tlchallenge.bankapi.exception.TransferQueueFullException;
 import com.tlchallenge.bankapi.service.TransferService;
+import com.tlchallenge.bankapi.service.impl.AccountNumberIndex;
+import com.tlchallenge.bankapi.service.impl.TransferExportService;
+import com.tlchallenge.bankapi.service.impl.TransferGroupCommitter;
+import com.tlchallenge.bankapi.service.impl.TransferIdempotencyService;
+import com.tlchallenge.bankapi.service.impl.TransferSubmissionQueue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,15 +26,29 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -35,6 +63,21 @@ class TransferControllerTest {
     @MockBean
     private TransferService transferService;
 
+    @MockBean
+    private TransferIdempotencyService transferIdempotencyService;
+
+    @MockBean
+    private TransferGroupCommitter transferGroupCommitter;
+
+    @MockBean
+    private TransferExportService transferExportService;
+
+    @MockBean
+    private AccountNumberIndex accountNumberIndex;
+
+    @MockBean
+    private TransferSubmissionQueue transferSubmissionQueue;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -62,7 +105,7 @@ class TransferControllerTest {
 
     @Test
     void testGetTransfer_found() throws Exception {
-        when(transferService.getTransferById(1L)).thenReturn(Optional.of(transfer1));
+        when(transferService.getTransferById(1L)).thenReturn(Optional.of(view(transfer1)));
 
         mockMvc.perform(get("/api/v1/transfers/1"))
                 .andExpect(status().isOk())
@@ -74,6 +117,31 @@ class TransferControllerTest {
                 .andExpect(jsonPath("$.status").value("COMPLETED"));
     }
 
+    @Test
+    void testGetTransfer_completedIsCacheableAndAnswersNotModified() throws Exception {
+        when(transferService.getTransferById(1L)).thenReturn(Optional.of(view(transfer1)));
+
+        mockMvc.perform(get("/api/v1/transfers/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-COMPLETED\""))
+                .andExpect(header().string("Cache-Control", "max-age=31536000, private, immutable"));
+
+        mockMvc.perform(get("/api/v1/transfers/1").header("If-None-Match", "\"1-COMPLETED\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testGetTransfer_pendingMustRevalidate() throws Exception {
+        transfer1.setStatus("PENDING");
+        when(transferService.getTransferById(1L)).thenReturn(Optional.of(view(transfer1)));
+
+        mockMvc.perform(get("/api/v1/transfers/1").header("If-None-Match", "\"1-COMPLETED\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-PENDING\""))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
     @Test
     void testGetTransfer_notFound() throws Exception {
         when(transferService.getTransferById(99L)).thenReturn(Optional.empty());
@@ -104,31 +172,205 @@ class TransferControllerTest {
     }
 
     @Test
-    void testGetAllTransfers_success() throws Exception {
-        List<Transfer> transfers = Arrays.asList(transfer1, transfer2);
-        when(transferService.getAllTransfers()).thenReturn(transfers);
+    @SuppressWarnings("unchecked")
+    void testCreateTransferAsync_answersWhenTheWorkerFinishes() throws Exception {
+        TransferDto transferDto = new TransferDto();
+        transferDto.setFromAccountId(1L);
+        transferDto.setToAccountId(2L);
+        transferDto.setAmount(BigDecimal.valueOf(100));
+
+        when(transferService.createTransfer(any(TransferDto.class))).thenReturn(transfer1);
+        when(transferSubmissionQueue.submit(any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(((Supplier<Transfer>) invocation.getArgument(0)).get()));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/transfers/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferDto)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(jsonPath("$.status").value("COMPLETED"));
+    }
+
+    @Test
+    void testCreateTransferAsync_queueFull() throws Exception {
+        TransferDto transferDto = new TransferDto();
+        transferDto.setFromAccountId(1L);
+        transferDto.setToAccountId(2L);
+        transferDto.setAmount(BigDecimal.valueOf(100));
+
+        when(transferSubmissionQueue.submit(any()))
+                .thenThrow(new TransferQueueFullException("Transfer queue is full", 1));
+
+        mockMvc.perform(post("/api/v1/transfers/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferDto)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+
+        verify(transferService, never()).createTransfer(any(TransferDto.class));
+    }
+
+    @Test
+    void testCreateTransferByNumber_resolvesAccountNumbers() throws Exception {
+        TransferByNumberDto transferDto = new TransferByNumberDto();
+        transferDto.setFromAccountNumber("12345");
+        transferDto.setToAccountNumber("67890");
+        transferDto.setAmount(BigDecimal.valueOf(100));
+
+        when(accountNumberIndex.resolveForWrite("12345")).thenReturn(Optional.of(1L));
+        when(accountNumberIndex.resolveForWrite("67890")).thenReturn(Optional.of(2L));
+        when(transferService.createTransfer(any(TransferDto.class))).thenReturn(transfer1);
+
+        mockMvc.perform(post("/api/v1/transfers/by-number")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferDto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1L));
+
+        verify(transferService).createTransfer(argThat(dto -> dto.getFromAccountId() == 1L
+                && dto.getToAccountId() == 2L && dto.getAmount().compareTo(BigDecimal.valueOf(100)) == 0));
+    }
+
+    @Test
+    void testCreateTransferByNumber_unknownAccountNumber() throws Exception {
+        TransferByNumberDto transferDto = new TransferByNumberDto();
+        transferDto.setFromAccountNumber("12345");
+        transferDto.setToAccountNumber("00000");
+        transferDto.setAmount(BigDecimal.valueOf(100));
+
+        when(accountNumberIndex.resolveForWrite("12345")).thenReturn(Optional.of(1L));
+        when(accountNumberIndex.resolveForWrite("00000")).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/v1/transfers/by-number")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferDto)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.accountNumber").value("00000"));
+
+        verify(transferService, never()).createTransfer(any(TransferDto.class));
+    }
+
+    @Test
+    void testCreateTransfer_groupCommitEnabled() throws Exception {
+        TransferDto transferDto = new TransferDto();
+        transferDto.setFromAccountId(1L);
+        transferDto.setToAccountId(2L);
+        transferDto.setAmount(BigDecimal.valueOf(100));
+
+        when(transferGroupCommitter.isEnabled()).thenReturn(true);
+        when(transferGroupCommitter.createTransfer(any(TransferDto.class))).thenReturn(transfer1);
+
+        mockMvc.perform(post("/api/v1/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferDto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1L));
+
+        verify(transferService, never()).createTransfer(any(TransferDto.class));
+    }
+
+    @Test
+    void testCreateTransfer_withIdempotencyKey() throws Exception {
+        TransferDto transferDto = new TransferDto();
+        transferDto.setFromAccountId(1L);
+        transferDto.setToAccountId(2L);
+        transferDto.setAmount(BigDecimal.valueOf(100));
+
+        when(transferIdempotencyService.createTransfer(eq("key-1"), any(TransferDto.class))).thenReturn(transfer1);
+
+        mockMvc.perform(post("/api/v1/transfers")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferDto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1L));
+
+        verify(transferService, never()).createTransfer(any(TransferDto.class));
+    }
+
+    @Test
+    void testCreateTransfer_idempotencyKeyReused() throws Exception {
+        TransferDto transferDto = new TransferDto();
+        transferDto.setFromAccountId(1L);
+        transferDto.setToAccountId(2L);
+        transferDto.setAmount(BigDecimal.valueOf(100));
+
+        when(transferIdempotencyService.createTransfer(eq("key-1"), any(TransferDto.class)))
+                .thenThrow(new IdempotencyKeyReusedException("key-1"));
+
+        mockMvc.perform(post("/api/v1/transfers")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferDto)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.idempotencyKey").value("key-1"));
+    }
+
+    @Test
+    void testGetTransfers_success() throws Exception {
+        CursorPage<TransferView> page = new CursorPage<>(Arrays.asList(view(transfer1), view(transfer2)), 2L);
+        when(transferService.getTransfers(null, 100)).thenReturn(page);
 
         mockMvc.perform(get("/api/v1/transfers"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType("application/json"))
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].id").value(1L))
-                .andExpect(jsonPath("$[1].id").value(2L));
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.items[1].id").value(2L))
+                .andExpect(jsonPath("$.nextCursor").value(2L));
     }
 
     @Test
-    void testGetAllTransfers_emptyList() throws Exception {
-        when(transferService.getAllTransfers()).thenReturn(Arrays.asList());
+    void testGetTransfers_afterCursor() throws Exception {
+        when(transferService.getTransfers(2L, 10)).thenReturn(new CursorPage<>(Arrays.asList(), null));
 
-        mockMvc.perform(get("/api/v1/transfers"))
+        mockMvc.perform(get("/api/v1/transfers").param("after", "2").param("limit", "10"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType("application/json"))
-                .andExpect(jsonPath("$.length()").value(0));
+                .andExpect(jsonPath("$.items.length()").value(0))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void testExportTransfers_ndjson() throws Exception {
+        when(transferExportService.export(eq(LocalDateTime.of(2025, 1, 1, 0, 0)), eq(null), any(OutputStream.class)))
+                .thenAnswer(invocation -> {
+                    invocation.<OutputStream>getArgument(2).write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        mockMvc.perform(get("/api/v1/transfers/export").param("from", "2025-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    @Test
+    void testExportTransfers_gzip() throws Exception {
+        when(transferExportService.export(eq(null), eq(null), any(OutputStream.class)))
+                .thenAnswer(invocation -> {
+                    invocation.<OutputStream>getArgument(2).write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        byte[] body = mockMvc.perform(get("/api/v1/transfers/export").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("{\"id\":1}\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
     }
 
     @Test
     void testGetTransfersByFromAccountId_success() throws Exception {
-        List<Transfer> transfers = Arrays.asList(transfer2, transfer1);
+        List<TransferView> transfers = Arrays.asList(view(transfer2), view(transfer1));
         when(transferService.getTransfersByFromAccountId(1L)).thenReturn(transfers);
 
         mockMvc.perform(get("/api/v1/transfers/account/1"))
@@ -156,4 +398,67 @@ class TransferControllerTest {
                 .andExpect(content().contentType("application/json"))
                 .andExpect(jsonPath("$.length()").value(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetAccountStatement() throws Exception {
+        StatementEntry entry = new StatementEntry(2L, "IN", 3L, BigDecimal.valueOf(200),
+                LocalDateTime.of(2026, 1, 1, 10, 0), "COMPLETED");
+        when(transferService.getAccountStatement(1L, "2026-01-02T10:00_9", 1))
+                .thenReturn(new AccountStatementPage(1L, List.of(entry), "2026-01-01T10:00_2"));
+
+        mockMvc.perform(get("/api/v1/transfers/account/1/statement")
+                        .param("cursor", "2026-01-02T10:00_9")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountId").value(1L))
+                .andExpect(jsonPath("$.entries[0].transferId").value(2L))
+                .andExpect(jsonPath("$.entries[0].direction").value("IN"))
+                .andExpect(jsonPath("$.entries[0].counterpartyAccountId").value(3L))
+                .andExpect(jsonPath("$.nextCursor").value("2026-01-01T10:00_2"));
+    }
+
+    @Test
+    void testCreateTransfers_batch() throws Exception {
+        TransferDto first = new TransferDto();
+        first.setFromAccountId(1L);
+        first.setToAccountId(2L);
+        first.setAmount(BigDecimal.valueOf(100));
+        TransferDto second = new TransferDto();
+        second.setFromAccountId(2L);
+        second.setToAccountId(1L);
+        second.setAmount(BigDecimal.valueOf(5000));
+
+        when(transferService.createTransfers(anyList())).thenReturn(List.of(
+                new TransferBatchItemResult(0, "COMPLETED", 10L, null),
+                new TransferBatchItemResult(1, "REJECTED", 11L, "Insufficient funds")));
+
+        mockMvc.perform(post("/api/v1/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TransferBatchDto(List.of(first, second)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].status").value("COMPLETED"))
+                .andExpect(jsonPath("$[0].transferId").value(10L))
+                .andExpect(jsonPath("$[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$[1].reason").value("Insufficient funds"));
+    }
+
+    @Test
+    void testCreateTransfers_batchValidatesAllItems() throws Exception {
+        TransferDto invalid = new TransferDto();
+        invalid.setFromAccountId(1L);
+        invalid.setToAccountId(2L);
+
+        mockMvc.perform(post("/api/v1/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TransferBatchDto(List.of(invalid)))))
+                .andExpect(status().isBadRequest());
+
+        verify(transferService, never()).createTransfers(anyList());
+    }
+
+    private static TransferView view(Transfer transfer) {
+        return new TransferView(transfer.getId(), transfer.getFromAccountId(), transfer.getToAccountId(),
+                transfer.getAmount(), transfer.getTransferDate(), transfer.getStatus());
+    }
+}
@@ -0,0 +1,112 @@
+package com.tlchallenge.bankapi.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConnectionAdmissionDataSourceTest {
+
+    private final DataSource pool = mock(DataSource.class);
+
+    private final ConnectionAdmissionDataSource admission = new ConnectionAdmissionDataSource("primary", pool, 2, 50);
+
+    @Test
+    void closingAConnectionReturnsItsPermitOnce() throws SQLException {
+        Connection physical = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(physical);
+
+        Connection connection = admission.getConnection();
+        assertEquals(1, admission.getInUse());
+
+        connection.close();
+        connection.close();
+
+        assertEquals(0, admission.getInUse());
+        verify(physical, times(2)).close();
+    }
+
+    @Test
+    void callsAreForwardedToThePooledConnection() throws SQLException {
+        Connection physical = mock(Connection.class);
+        when(physical.getAutoCommit()).thenReturn(false);
+        when(pool.getConnection()).thenReturn(physical);
+
+        try (Connection connection = admission.getConnection()) {
+            assertFalse(connection.getAutoCommit());
+        }
+    }
+
+    @Test
+    void callersBeyondThePermitsWaitInsteadOfReachingThePool() throws Exception {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConnectionAdmissionDataSource slowTimeout = new ConnectionAdmissionDataSource("primary", pool, 2, 5000);
+        Connection first = slowTimeout.getConnection();
+        slowTimeout.getConnection();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            CompletableFuture<Connection> third = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return slowTimeout.getConnection();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, executor);
+
+            while (slowTimeout.getWaiting() == 0) {
+                Thread.sleep(1);
+            }
+            verify(pool, times(2)).getConnection();
+
+            first.close();
+            assertNotNull(third.get(5, TimeUnit.SECONDS));
+            verify(pool, times(3)).getConnection();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void waitingLongerThanTheTimeoutFails() throws SQLException {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        admission.getConnection();
+        admission.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, admission::getConnection);
+        verify(pool, times(2)).getConnection();
+    }
+
+    @Test
+    void poolFailureReleasesThePermit() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLTransientConnectionException("pool exhausted"));
+
+        assertThrows(SQLTransientConnectionException.class, admission::getConnection);
+        assertEquals(0, admission.getInUse());
+    }
+
+    @Test
+    void postProcessorMatchesPermitsToTheHikariPool() {
+        HikariDataSource hikari = new HikariDataSource();
+        hikari.setPoolName("primary");
+        hikari.setMaximumPoolSize(7);
+
+        Object wrapped = ConnectionAdmissionConfig.connectionAdmissionPostProcessor()
+                .postProcessAfterInitialization(hikari, "dataSource");
+
+        ConnectionAdmissionDataSource admission = assertInstanceOf(ConnectionAdmissionDataSource.class, wrapped);
+        assertEquals(7, admission.getMaxConcurrent());
+        assertEquals("primary", admission.getName());
+        assertSame(hikari, admission.getTargetDataSource());
+    }
+}
@@ -0,0 +1,84 @@
+package com.tlchallenge.bankapi.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReplicaLagMonitorTest {
+
+    @Mock
+    private DataSource replicaDataSource;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        replicaLagMonitor.init();
+        ReflectionTestUtils.setField(replicaLagMonitor, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    void checkLag_replicaWithinLimitIsUsed() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1500L);
+
+        replicaLagMonitor.checkLag();
+
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+        assertEquals(1.5, meterRegistry.get(ReplicaLagMonitor.LAG_METRIC).gauge().value());
+        assertEquals(1.0, meterRegistry.get(ReplicaLagMonitor.IN_USE_METRIC).gauge().value());
+    }
+
+    @Test
+    void checkLag_laggingReplicaFallsBackToPrimary() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1500L, 8000L);
+
+        replicaLagMonitor.checkLag();
+        replicaLagMonitor.checkLag();
+
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+        assertEquals(8.0, meterRegistry.get(ReplicaLagMonitor.LAG_METRIC).gauge().value());
+        assertEquals(0.0, meterRegistry.get(ReplicaLagMonitor.IN_USE_METRIC).gauge().value());
+    }
+
+    @Test
+    void checkLag_unreachableReplicaFallsBackToPrimary() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class)))
+                .thenReturn(0L)
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        replicaLagMonitor.checkLag();
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+
+        replicaLagMonitor.checkLag();
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+        assertEquals(-1.0, meterRegistry.get(ReplicaLagMonitor.LAG_METRIC).gauge().value());
+    }
+
+    @Test
+    void isReplicaUsable_falseBeforeFirstCheck() {
+        assertFalse(replicaLagMonitor.isReplicaUsable());
+    }
+}
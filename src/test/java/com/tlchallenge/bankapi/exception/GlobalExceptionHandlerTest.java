@@ -1,15 +1,19 @@
 package com.tlchallenge.bankapi.exception;
 
+import com.tlchallenge.bankapi.model.Account;
 import com.tlchallenge.bankapi.model.ErrorResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 import java.util.Arrays;
 import java.util.Map;
@@ -106,6 +110,20 @@ class GlobalExceptionHandlerTest {
         assertNotNull(body.get("message"));
     }
 
+    @Test
+    void testHandleAccountNotFound_byNumber() {
+        AccountNotFoundException exception = new AccountNotFoundException("00000");
+
+        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleAccountNotFound(exception);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        Map<String, Object> body = response.getBody();
+        assertNotNull(body);
+        assertEquals("00000", body.get("accountNumber"));
+        assertFalse(body.containsKey("accountId"));
+        assertEquals("Account with number 00000 not found", body.get("message"));
+    }
+
     @Test
     void testHandleInvalidAccountData() {
         InvalidAccountDataException exception = new InvalidAccountDataException("accountNumber", "Account number must be unique");
@@ -122,4 +140,141 @@ class GlobalExceptionHandlerTest {
         assertEquals("Account number must be unique", body.get("message"));
         assertNotNull(body.get("timestamp"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testHandleInvalidCursor() {
+        InvalidCursorException exception = new InvalidCursorException("garbage");
+
+        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleInvalidCursor(exception);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+
+        Map<String, Object> body = response.getBody();
+        assertEquals(HttpStatus.BAD_REQUEST.value(), body.get("status"));
+        assertEquals("Invalid Cursor", body.get("error"));
+        assertEquals("Invalid cursor: garbage", body.get("message"));
+        assertNotNull(body.get("timestamp"));
+    }
+
+    @Test
+    void testHandleOptimisticLockingFailure() {
+        ObjectOptimisticLockingFailureException exception =
+                new ObjectOptimisticLockingFailureException(Account.class, 7L);
+
+        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleOptimisticLockingFailure(exception);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertNotNull(response.getBody());
+
+        Map<String, Object> body = response.getBody();
+        assertEquals(HttpStatus.CONFLICT.value(), body.get("status"));
+        assertEquals("Concurrent Modification", body.get("error"));
+        assertEquals("7", body.get("id"));
+        assertNotNull(body.get("timestamp"));
+    }
+
+    @Test
+    void testHandleIdempotencyKeyReused() {
+        IdempotencyKeyReusedException exception = new IdempotencyKeyReusedException("key-1");
+
+        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleIdempotencyKeyReused(exception);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertNotNull(response.getBody());
+
+        Map<String, Object> body = response.getBody();
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), body.get("status"));
+        assertEquals("Idempotency Key Reused", body.get("error"));
+        assertEquals("key-1", body.get("idempotencyKey"));
+        assertNotNull(body.get("timestamp"));
+    }
+
+    @Test
+    void testHandleIdempotencyKeyInProgress() {
+        IdempotencyKeyInProgressException exception = new IdempotencyKeyInProgressException("key-1");
+
+        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleIdempotencyKeyInProgress(exception);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNotNull(response.getBody());
+
+        Map<String, Object> body = response.getBody();
+        assertEquals("Idempotency Key In Progress", body.get("error"));
+        assertEquals("key-1", body.get("idempotencyKey"));
+    }
+
+    @Test
+    void testHandleTransferQueueFull() {
+        TransferQueueFullException exception = new TransferQueueFullException("Transfer queue is full", 2);
+
+        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleTransferQueueFull(exception);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("2", response.getHeaders().getFirst("Retry-After"));
+        assertNotNull(response.getBody());
+
+        Map<String, Object> body = response.getBody();
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), body.get("status"));
+        assertEquals("Too Many Requests", body.get("error"));
+        assertEquals("Transfer queue is full", body.get("message"));
+    }
+
+    @Test
+    void testHandleAsyncRequestTimeout() {
+        ResponseEntity<Map<String, Object>> response =
+                globalExceptionHandler.handleAsyncRequestTimeout(new AsyncRequestTimeoutException());
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNotNull(response.getBody());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getBody().get("status"));
+    }
+
+    @Test
+    void testHandleConcurrencyLimitExceeded() {
+        ConcurrencyLimitExceededException exception = new ConcurrencyLimitExceededException("transfers", 12);
+
+        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleConcurrencyLimitExceeded(exception);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+        assertNotNull(response.getBody());
+
+        Map<String, Object> body = response.getBody();
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), body.get("status"));
+        assertEquals("Too Many Requests", body.get("error"));
+        assertEquals(12, body.get("limit"));
+    }
+
+    @Test
+    void testHandleAccountBusy() {
+        AccountBusyException exception = new AccountBusyException(7L);
+
+        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleAccountBusy(exception);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+        assertNotNull(response.getBody());
+
+        Map<String, Object> body = response.getBody();
+        assertEquals("Account Busy", body.get("error"));
+        assertEquals(7L, body.get("accountId"));
+    }
+
+    @Test
+    void testHandleAccountManagedByLedger() {
+        AccountManagedByLedgerException exception = new AccountManagedByLedgerException(7L, "Account 7 cannot be deleted");
+
+        ResponseEntity<Map<String, Object>> response = globalExceptionHandler.handleAccountManagedByLedger(exception);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertNotNull(response.getBody());
+
+        Map<String, Object> body = response.getBody();
+        assertEquals("Account Managed By Ledger", body.get("error"));
+        assertEquals("Account 7 cannot be deleted", body.get("message"));
+        assertEquals(7L, body.get("accountId"));
+    }
+}
@@ -0,0 +1,171 @@
+package com.tlchallenge.bankapi.integration;
+
+import com.tlchallenge.bankapi.exception.TransferRejectedException;
+import com.tlchallenge.bankapi.model.Account;
+import com.tlchallenge.bankapi.model.dto.TransferBatchItemResult;
+import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import com.tlchallenge.bankapi.service.TransferMode;
+import com.tlchallenge.bankapi.service.impl.StripedBalanceService;
+import com.tlchallenge.bankapi.service.impl.TransferServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConditionalUpdateTransferIntegrationTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private TransferServiceImpl transferService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(transferService), "transferMode", TransferMode.CONDITIONAL_UPDATE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(transferService), "transferMode", TransferMode.ENTITY);
+    }
+
+    @Test
+    void testConcurrentCrossingTransfersConserveMoneyAndNeverOverdraw() throws Exception {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            accounts.add(accountRepository.save(new Account("CU-" + UUID.randomUUID(), new BigDecimal("100.00"))));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            // Every pair is used in both directions, and the amounts are large enough to drain accounts
+            Account from = accounts.get(i % 4);
+            Account to = accounts.get((i / 4 + 1 + i) % 4);
+            if (from.getId().equals(to.getId())) {
+                continue;
+            }
+            TransferDto dto = transferDto(from.getId(), to.getId(), new BigDecimal("35.00"));
+            futures.add(executor.submit(() -> {
+                try {
+                    transferService.createTransfer(dto);
+                    completed.incrementAndGet();
+                } catch (TransferRejectedException e) {
+                    rejected.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : accounts) {
+            Account stored = accountRepository.findById(account.getId()).orElseThrow();
+            assertTrue(stored.getBalance().signum() >= 0, "Balance of " + stored.getId() + " went negative");
+            total = total.add(stored.getBalance());
+            if (stored.getVersion() > 0) {
+                // The guarded UPDATEs bypass the entity, so they must stamp updated_at themselves
+                assertNotNull(stored.getUpdatedAt(), "updated_at of " + stored.getId() + " was not set");
+            }
+        }
+        assertEquals(0, new BigDecimal("400.00").compareTo(total));
+        assertEquals(futures.size(), completed.get() + rejected.get());
+        assertTrue(completed.get() > 0);
+    }
+
+    @Test
+    void testInsufficientFundsLeavesBothRowsUntouched() {
+        Account from = accountRepository.save(new Account("CU-" + UUID.randomUUID(), new BigDecimal("10.00")));
+        Account to = accountRepository.save(new Account("CU-" + UUID.randomUUID(), new BigDecimal("0.00")));
+
+        assertThrows(TransferRejectedException.class,
+                () -> transferService.createTransfer(transferDto(from.getId(), to.getId(), new BigDecimal("10.01"))));
+
+        assertEquals(0, new BigDecimal("10.00").compareTo(accountRepository.findById(from.getId()).orElseThrow().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findById(to.getId()).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void testConcurrentCrossingBatchesDoNotDeadlock() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ids.add(accountRepository.save(new Account("CU-" + UUID.randomUUID(), new BigDecimal("1000.00"))).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<TransferBatchItemResult>>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            // Half the batches walk the accounts upwards and half downwards, so per-item locking would cross
+            boolean upwards = t % 2 == 0;
+            List<TransferDto> batch = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                int from = upwards ? i % 8 : 7 - i % 8;
+                int to = upwards ? (i + 1) % 8 : 7 - (i + 1) % 8;
+                batch.add(transferDto(ids.get(from), ids.get(to), new BigDecimal("1.00")));
+            }
+            futures.add(executor.submit(() -> transferService.createTransfers(batch)));
+        }
+        for (Future<List<TransferBatchItemResult>> future : futures) {
+            assertTrue(future.get(60, TimeUnit.SECONDS).stream().allMatch(result -> "COMPLETED".equals(result.getStatus())));
+        }
+        executor.shutdown();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Long id : ids) {
+            total = total.add(accountRepository.findById(id).orElseThrow().getBalance());
+        }
+        assertEquals(0, new BigDecimal("8000.00").compareTo(total));
+    }
+
+    @Test
+    void testBatchConsolidatesAStripedAccountTwiceFromFreshState() {
+        Account striped = accountRepository.save(new Account("CU-" + UUID.randomUUID(), new BigDecimal("0.00")));
+        Account funder = accountRepository.save(new Account("CU-" + UUID.randomUUID(), new BigDecimal("1000.00")));
+        Account payee = accountRepository.save(new Account("CU-" + UUID.randomUUID(), new BigDecimal("0.00")));
+        stripedBalanceService.configureSlots(striped.getId(), 4);
+
+        // Each debit of the striped account only succeeds after folding the credits in its slots into the row
+        List<TransferBatchItemResult> results = transferService.createTransfers(List.of(
+                transferDto(funder.getId(), striped.getId(), new BigDecimal("100.00")),
+                transferDto(striped.getId(), payee.getId(), new BigDecimal("100.00")),
+                transferDto(funder.getId(), striped.getId(), new BigDecimal("50.00")),
+                transferDto(striped.getId(), payee.getId(), new BigDecimal("50.00"))));
+
+        assertTrue(results.stream().allMatch(result -> "COMPLETED".equals(result.getStatus())));
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findById(striped.getId()).orElseThrow().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(stripedBalanceService.slotBalance(striped.getId())));
+        assertEquals(0, new BigDecimal("150.00").compareTo(accountRepository.findById(payee.getId()).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("850.00").compareTo(accountRepository.findById(funder.getId()).orElseThrow().getBalance()));
+    }
+
+    private TransferDto transferDto(Long fromAccountId, Long toAccountId, BigDecimal amount) {
+        TransferDto dto = new TransferDto();
+        dto.setFromAccountId(fromAccountId);
+        dto.setToAccountId(toAccountId);
+        dto.setAmount(amount);
+        return dto;
+    }
+}
@@ -0,0 +1,62 @@
+package com.tlchallenge.bankapi.integration;
+
+import com.tlchallenge.bankapi.model.Account;
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledIdSequenceMigrationIntegrationTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void testSequencesAdvanceByTheAllocationSize() {
+        for (String sequence : List.of("accounts_id_seq", "transfers_id_seq")) {
+            Long incrementBy = jdbcTemplate.queryForObject(
+                    "SELECT increment_by FROM pg_sequences WHERE sequencename = ?", Long.class, sequence);
+            assertEquals(50L, incrementBy, sequence);
+        }
+    }
+
+    @Test
+    void testSeedIdsAreKeptAndSequencesStartAboveThem() {
+        assertEquals(List.of(1L, 2L, 3L), jdbcTemplate.queryForList(
+                "SELECT id FROM accounts WHERE account_number IN ('ACC1001', 'ACC1002', 'ACC1003') ORDER BY id", Long.class));
+
+        Long accountsLast = jdbcTemplate.queryForObject("SELECT last_value FROM accounts_id_seq", Long.class);
+        Long transfersLast = jdbcTemplate.queryForObject("SELECT last_value FROM transfers_id_seq", Long.class);
+        assertTrue(accountsLast >= jdbcTemplate.queryForObject("SELECT MAX(id) FROM accounts", Long.class));
+        assertTrue(transfersLast >= jdbcTemplate.queryForObject("SELECT MAX(id) FROM transfers", Long.class));
+    }
+
+    @Test
+    void testNewAccountsGetFreshIdsAcrossAllocationBlocks() {
+        long maxBefore = jdbcTemplate.queryForObject("SELECT MAX(id) FROM accounts", Long.class);
+
+        // More than one allocation block, so the second nextval is exercised as well
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            accounts.add(new Account("SEQ-" + UUID.randomUUID(), BigDecimal.TEN));
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Account account : accountRepository.saveAll(accounts)) {
+            assertTrue(account.getId() > maxBefore, "id " + account.getId() + " reuses an existing id");
+            ids.add(account.getId());
+        }
+        assertEquals(120, ids.size());
+    }
+}
@@ -0,0 +1,118 @@
+package com.tlchallenge.bankapi.ledger;
+
+import com.tlchallenge.bankapi.model.Transfer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppendAndRecover_returnsEntriesAfterCheckpoint() throws IOException {
+        List<LedgerEntry> durable = new ArrayList<>();
+        LedgerJournal journal = new LedgerJournal(directory, 1024 * 1024, 100, durable::addAll);
+        journal.recover(0);
+        journal.start();
+
+        List<CompletableFuture<LedgerEntry>> futures = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            futures.add(journal.append(transfer(id, "COMPLETED")));
+        }
+        futures.forEach(CompletableFuture::join);
+        journal.close();
+
+        assertEquals(3, durable.size());
+        assertEquals(List.of(1L, 2L, 3L), durable.stream().map(LedgerEntry::getSeq).toList());
+
+        LedgerJournal reopened = new LedgerJournal(directory, 1024 * 1024, 100, entries -> { });
+        List<LedgerEntry> pending = reopened.recover(1);
+        reopened.close();
+
+        assertEquals(2, pending.size());
+        assertEquals(2L, pending.get(0).getTransfer().getId());
+        assertEquals(new BigDecimal("10.50"), pending.get(0).getTransfer().getAmount());
+        assertEquals("COMPLETED", pending.get(1).getTransfer().getStatus());
+    }
+
+    @Test
+    void testRecover_truncatesTornTail() throws IOException {
+        LedgerJournal journal = new LedgerJournal(directory, 1024 * 1024, 100, entries -> { });
+        journal.recover(0);
+        journal.start();
+        journal.append(transfer(1L, "COMPLETED")).join();
+        journal.close();
+
+        Path segment = segments().get(0);
+        Files.writeString(segment, "2;2;1;2;10.50;COMPL", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        LedgerJournal reopened = new LedgerJournal(directory, 1024 * 1024, 100, entries -> { });
+        List<LedgerEntry> pending = reopened.recover(0);
+        reopened.start();
+        LedgerEntry next = reopened.append(transfer(2L, "REJECTED")).join();
+        reopened.close();
+
+        assertEquals(1, pending.size());
+        assertEquals(2L, next.getSeq());
+        assertFalse(Files.readString(segment).contains("COMPL\n"));
+    }
+
+    @Test
+    void testRecover_rejectsCorruptionBeforeLastSegment() throws IOException {
+        Files.writeString(directory.resolve(String.format("journal-%020d.log", 1)), "garbage\n");
+        Files.writeString(directory.resolve(String.format("journal-%020d.log", 5)), "");
+
+        LedgerJournal journal = new LedgerJournal(directory, 1024 * 1024, 100, entries -> { });
+
+        assertThrows(IOException.class, () -> journal.recover(0));
+    }
+
+    @Test
+    void testPruneThrough_keepsSegmentsAboveCheckpoint() throws IOException {
+        // Every group fills the segment, so each fsync rotates to a new file
+        LedgerJournal journal = new LedgerJournal(directory, 1, 1, entries -> { });
+        journal.recover(0);
+        journal.start();
+        for (long id = 1; id <= 4; id++) {
+            journal.append(transfer(id, "COMPLETED")).join();
+        }
+
+        journal.pruneThrough(2);
+        journal.close();
+
+        List<Path> remaining = segments();
+        assertEquals(String.format("journal-%020d.log", 3), remaining.get(0).getFileName().toString());
+
+        LedgerJournal reopened = new LedgerJournal(directory, 1, 1, entries -> { });
+        List<LedgerEntry> pending = reopened.recover(2);
+        reopened.close();
+        assertEquals(List.of(3L, 4L), pending.stream().map(LedgerEntry::getSeq).toList());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private Transfer transfer(Long id, String status) {
+        Transfer transfer = new Transfer(1L, 2L, new BigDecimal("10.50"));
+        transfer.setId(id);
+        transfer.setStatus(status);
+        return transfer;
+    }
+}
@@ -0,0 +1,308 @@
+package com.tlchallenge.bankapi.ledger;
+
+import com.tlchallenge.bankapi.exception.TransferRejectedException;
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.dto.TransferBatchItemResult;
+import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.service.impl.TransferServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+class LedgerTransferServiceTest {
+
+    @TempDir
+    Path journalDir;
+
+    @Mock
+    private TransferServiceImpl databaseTransferService;
+
+    @Mock
+    private LedgerStore ledgerStore;
+
+    @InjectMocks
+    private LedgerTransferService ledgerTransferService;
+
+    // What the mocked store has applied, standing in for the accounts table
+    private final Map<Long, BigDecimal> storedBalances = new ConcurrentHashMap<>();
+    private final List<LedgerEntry> applied = new CopyOnWriteArrayList<>();
+    private final AtomicLong idBlocks = new AtomicLong();
+    private boolean started;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(ledgerTransferService, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(ledgerTransferService, "flushRetryIntervalMs", 10L);
+
+        storedBalances.put(1L, BigDecimal.valueOf(1000));
+        storedBalances.put(2L, BigDecimal.valueOf(500));
+        when(ledgerStore.loadBalance(anyLong())).thenAnswer(invocation ->
+                Optional.ofNullable(storedBalances.get(invocation.<Long>getArgument(0))));
+        when(ledgerStore.reserveIdBlock()).thenAnswer(invocation ->
+                idBlocks.incrementAndGet() * LedgerStore.ID_BLOCK_SIZE);
+        doAnswer(invocation -> {
+            List<LedgerEntry> entries = invocation.getArgument(0);
+            for (LedgerEntry entry : entries) {
+                Transfer transfer = entry.getTransfer();
+                if ("COMPLETED".equals(transfer.getStatus())) {
+                    storedBalances.merge(transfer.getFromAccountId(), transfer.getAmount().negate(), BigDecimal::add);
+                    storedBalances.merge(transfer.getToAccountId(), transfer.getAmount(), BigDecimal::add);
+                }
+            }
+            applied.addAll(entries);
+            return null;
+        }).when(ledgerStore).apply(any());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (started) {
+            ledgerTransferService.stop();
+        }
+    }
+
+    @Test
+    void testCreateTransfer_success() throws Exception {
+        start();
+
+        Transfer result = ledgerTransferService.createTransfer(transferDto(1L, 2L, 100));
+
+        assertEquals("COMPLETED", result.getStatus());
+        assertEquals(1L, result.getId());
+        assertEquals(BigDecimal.valueOf(900), ledgerTransferService.getAccountBalance(1L));
+
+        stop();
+        assertEquals(1, applied.size());
+        assertEquals(BigDecimal.valueOf(900), storedBalances.get(1L));
+        assertEquals(BigDecimal.valueOf(600), storedBalances.get(2L));
+    }
+
+    @Test
+    void testCreateTransfer_insufficientFundsIsJournaledAsRejected() throws Exception {
+        start();
+
+        TransferRejectedException exception = assertThrows(TransferRejectedException.class,
+                () -> ledgerTransferService.createTransfer(transferDto(2L, 1L, 600)));
+
+        assertEquals("Insufficient funds", exception.getReason());
+        stop();
+        assertEquals("REJECTED", applied.get(0).getTransfer().getStatus());
+        assertEquals(BigDecimal.valueOf(500), storedBalances.get(2L));
+    }
+
+    @Test
+    void testCreateTransfer_unknownAccountAndInvalidAmount() throws Exception {
+        start();
+
+        assertThrows(IllegalArgumentException.class, () -> ledgerTransferService.createTransfer(transferDto(1L, 99L, 10)));
+        TransferRejectedException exception = assertThrows(TransferRejectedException.class,
+                () -> ledgerTransferService.createTransfer(transferDto(1L, 2L, 0)));
+        assertEquals("Invalid amount", exception.getReason());
+
+        stop();
+        assertTrue(applied.isEmpty());
+    }
+
+    @Test
+    void testCreateTransfers_reportsEachItem() throws Exception {
+        start();
+
+        List<TransferBatchItemResult> results = ledgerTransferService.createTransfers(List.of(
+                transferDto(1L, 2L, 100), transferDto(2L, 1L, 5000), transferDto(99L, 1L, 10)));
+
+        assertEquals("COMPLETED", results.get(0).getStatus());
+        assertEquals("REJECTED", results.get(1).getStatus());
+        assertEquals("Insufficient funds", results.get(1).getReason());
+        assertEquals("From account not found", results.get(2).getReason());
+    }
+
+    @Test
+    void testConcurrentTransfers_conserveBalancesInMemoryAndInStore() throws Exception {
+        for (long id = 1; id <= 8; id++) {
+            storedBalances.put(id, BigDecimal.valueOf(1000));
+        }
+        start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int worker = 0; worker < 8; worker++) {
+            long seed = worker;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 500; i++) {
+                    long from = 1 + random.nextInt(8);
+                    long to = 1 + random.nextInt(8);
+                    try {
+                        ledgerTransferService.createTransfer(transferDto(from, to, 1 + random.nextInt(300)));
+                    } catch (TransferRejectedException e) {
+                        // Expected when the source runs dry
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        BigDecimal inMemory = BigDecimal.ZERO;
+        for (long id = 1; id <= 8; id++) {
+            BigDecimal balance = ledgerTransferService.getAccountBalance(id);
+            assertTrue(balance.signum() >= 0, "Negative balance on account " + id);
+            inMemory = inMemory.add(balance);
+        }
+        stop();
+
+        assertEquals(BigDecimal.valueOf(8000), inMemory);
+        assertEquals(BigDecimal.valueOf(8000), storedBalances.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add));
+        assertEquals(4000, applied.size());
+        assertEquals(4000, applied.stream().map(entry -> entry.getTransfer().getId()).distinct().count());
+    }
+
+    @Test
+    void testStart_replaysJournalEntriesMissingFromTheDatabase() throws Exception {
+        doThrow(new DataAccessResourceFailureException("database down")).when(ledgerStore).apply(any());
+        start();
+        ledgerTransferService.createTransfer(transferDto(1L, 2L, 100));
+        ledgerTransferService.createTransfer(transferDto(1L, 2L, 50));
+        stop();
+        assertEquals(BigDecimal.valueOf(1000), storedBalances.get(1L));
+
+        // Database is back; a fresh instance recovers from the journal
+        LedgerTransferService restarted = new LedgerTransferService();
+        ReflectionTestUtils.setField(restarted, "ledgerStore", ledgerStore);
+        ReflectionTestUtils.setField(restarted, "journalDir", journalDir.toString());
+        doAnswer(invocation -> {
+            applied.addAll(invocation.getArgument(0));
+            return null;
+        }).when(ledgerStore).apply(any());
+        when(ledgerStore.loadCheckpoint()).thenReturn(0L);
+
+        restarted.start();
+        restarted.stop();
+
+        assertEquals(List.of(1L, 2L), applied.stream().map(LedgerEntry::getSeq).toList());
+    }
+
+    @Test
+    void testFlush_entryThatCannotBeAppliedIsDeadLetteredAndTheRestGoesOn() throws Exception {
+        // The database rejects any batch holding the transfer to account 2 (e.g. the account was deleted)
+        doAnswer(invocation -> {
+            List<LedgerEntry> entries = invocation.getArgument(0);
+            if (entries.stream().anyMatch(entry -> entry.getTransfer().getToAccountId().equals(2L))) {
+                throw new DataIntegrityViolationException("violates foreign key constraint fk_transfer_to_account");
+            }
+            applied.addAll(entries);
+            return null;
+        }).when(ledgerStore).apply(any());
+        storedBalances.put(3L, BigDecimal.valueOf(10));
+        start();
+
+        ledgerTransferService.createTransfers(List.of(transferDto(1L, 3L, 10), transferDto(1L, 2L, 20), transferDto(1L, 3L, 30)));
+        stop();
+
+        verify(ledgerStore, times(1)).deadLetter(argThat(entry -> entry.getTransfer().getToAccountId().equals(2L)),
+                contains("fk_transfer_to_account"));
+        assertEquals(List.of(10L, 30L), applied.stream()
+                .map(entry -> entry.getTransfer().getAmount().longValue()).sorted().toList());
+    }
+
+    @Test
+    void testFlush_transientFailureIsRetriedWithoutDeadLettering() throws Exception {
+        AtomicLong failures = new AtomicLong();
+        doAnswer(invocation -> {
+            if (failures.getAndIncrement() < 2) {
+                throw new DataAccessResourceFailureException("connection lost");
+            }
+            applied.addAll(invocation.getArgument(0));
+            return null;
+        }).when(ledgerStore).apply(any());
+        start();
+
+        ledgerTransferService.createTransfer(transferDto(1L, 2L, 100));
+        for (int i = 0; i < 200 && applied.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        stop();
+
+        assertEquals(1, applied.size());
+        verify(ledgerStore, never()).deadLetter(any(), any());
+    }
+
+    @Test
+    void testJournalFailure_haltsTheEngineInsteadOfKeepingUndurableBalances() throws Exception {
+        start();
+        ledgerTransferService.createTransfer(transferDto(1L, 2L, 100));
+
+        // Closing the active segment under the writer makes the next group write fail like a failed fsync
+        LedgerJournal journal = (LedgerJournal) ReflectionTestUtils.getField(ledgerTransferService, "journal");
+        ((FileChannel) ReflectionTestUtils.getField(journal, "segment")).close();
+
+        RuntimeException failure = assertThrows(RuntimeException.class,
+                () -> ledgerTransferService.createTransfer(transferDto(1L, 2L, 200)));
+        assertInstanceOf(IOException.class, failure.getCause());
+
+        RuntimeException halted = assertThrows(RuntimeException.class,
+                () -> ledgerTransferService.createTransfer(transferDto(2L, 1L, 10)));
+        assertInstanceOf(IllegalStateException.class, halted.getCause());
+
+        // Balances come from the database, which only ever sees the durable transfer
+        when(databaseTransferService.getAccountBalance(1L)).thenReturn(BigDecimal.valueOf(900));
+        assertEquals(BigDecimal.valueOf(900), ledgerTransferService.getAccountBalance(1L));
+        verify(databaseTransferService).getAccountBalance(1L);
+
+        stop();
+        assertEquals(1, applied.size());
+        assertEquals(BigDecimal.valueOf(900), storedBalances.get(1L));
+        assertEquals(BigDecimal.valueOf(600), storedBalances.get(2L));
+    }
+
+    private void start() throws Exception {
+        ledgerTransferService.start();
+        started = true;
+    }
+
+    private void stop() throws Exception {
+        ledgerTransferService.stop();
+        started = false;
+    }
+
+    private TransferDto transferDto(Long fromAccountId, Long toAccountId, long amount) {
+        TransferDto dto = new TransferDto();
+        dto.setFromAccountId(fromAccountId);
+        dto.setToAccountId(toAccountId);
+        dto.setAmount(BigDecimal.valueOf(amount));
+        return dto;
+    }
+}
@@ -0,0 +1,110 @@
+package com.tlchallenge.bankapi.limiter;
+
+import com.tlchallenge.bankapi.exception.ConcurrencyLimitExceededException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    void requestsBeyondTheLimitAreRejected() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("transfers", 2, 1, 10);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    void limitGrowsWhileLatencyHoldsAndTheLimitIsUsed() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("transfers", 10, 1, 100);
+
+        for (int i = 0; i < 50; i++) {
+            fill(limiter);
+            drain(limiter, 10 * MS);
+        }
+
+        assertTrue(limiter.getLimit() > 10, "limit was " + limiter.getLimit());
+    }
+
+    @Test
+    void limitDoesNotGrowWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("transfers", 10, 1, 100);
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(10 * MS, false);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void limitShrinksWhenLatencyShowsQueueing() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("transfers", 50, 1, 100);
+        assertTrue(limiter.tryAcquire());
+        limiter.release(10 * MS, false);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(100 * MS, false);
+        }
+
+        assertTrue(limiter.getLimit() < 50, "limit was " + limiter.getLimit());
+        assertEquals(10 * MS, limiter.getMinRttNanos());
+    }
+
+    @Test
+    void failuresShrinkTheLimitDownToTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("accounts", 5, 3, 100);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(10 * MS, true);
+        }
+
+        assertEquals(3, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void interceptorOnlyLimitsTheConfiguredMethodsAndReleasesOnCompletion() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("transfers", 1, 1, 10);
+        ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(limiter, Set.of("POST"));
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/api/v1/transfers");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(first, response, new Object()));
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/v1/transfers"), response, new Object()));
+        assertThrows(ConcurrencyLimitExceededException.class, () -> interceptor.preHandle(
+                new MockHttpServletRequest("POST", "/api/v1/transfers"), response, new Object()));
+
+        interceptor.afterCompletion(first, response, new Object(), null);
+        interceptor.afterCompletion(first, response, new Object(), null);
+
+        assertEquals(0, limiter.getInFlight());
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("POST", "/api/v1/transfers"), response, new Object()));
+    }
+
+    private static void fill(AdaptiveConcurrencyLimiter limiter) {
+        while (limiter.tryAcquire()) {
+            // take every slot the current limit allows
+        }
+    }
+
+    private static void drain(AdaptiveConcurrencyLimiter limiter, long rttNanos) {
+        while (limiter.getInFlight() > 0) {
+            limiter.release(rttNanos, false);
+        }
+    }
+}
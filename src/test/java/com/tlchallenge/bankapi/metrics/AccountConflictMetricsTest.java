@@ -0,0 +1,79 @@
+package com.tlchallenge.bankapi.metrics;
+
+import com.tlchallenge.bankapi.model.Account;
+import com.tlchallenge.bankapi.model.Transfer;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountConflictMetricsTest {
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AccountConflictMetrics accountConflictMetrics;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(accountConflictMetrics, "transferServiceRetry", Retry.ofDefaults("transfer-service"));
+        ReflectionTestUtils.setField(accountConflictMetrics, "trackedAccounts", 2);
+        accountConflictMetrics.subscribeToTransferRetries();
+    }
+
+    @Test
+    void testReportHottest_ranksAccountsByConflictsAndStartsANewInterval() {
+        conflicts(7L, 3);
+        conflicts(12L, 5);
+
+        accountConflictMetrics.reportHottest();
+
+        assertArrayEquals(new long[]{5, 3, 0, 0, 0}, accountConflictMetrics.hottestConflicts());
+        assertEquals(5, meterRegistry.get(AccountConflictMetrics.HOTTEST_METRIC).tag("rank", "1").gauge().value());
+        assertEquals(8, meterRegistry.get(AccountConflictMetrics.CONFLICTS_METRIC).tag("operation", "update").counter().count());
+
+        accountConflictMetrics.reportHottest();
+
+        assertArrayEquals(new long[5], accountConflictMetrics.hottestConflicts());
+    }
+
+    @Test
+    void testRecordConflict_tracksABoundedNumberOfAccounts() {
+        conflicts(1L, 1);
+        conflicts(2L, 1);
+        conflicts(3L, 4);
+        conflicts(1L, 1);
+
+        accountConflictMetrics.reportHottest();
+
+        // Account 3 arrived once the map was full, so it only counts towards the total
+        assertArrayEquals(new long[]{2, 1, 0, 0, 0}, accountConflictMetrics.hottestConflicts());
+        assertEquals(7, meterRegistry.get(AccountConflictMetrics.CONFLICTS_METRIC).counter().count());
+    }
+
+    @Test
+    void testRecordConflict_ignoresOtherEntities() {
+        accountConflictMetrics.recordConflict(new ObjectOptimisticLockingFailureException(Transfer.class, 1L), "update");
+
+        accountConflictMetrics.reportHottest();
+
+        assertArrayEquals(new long[5], accountConflictMetrics.hottestConflicts());
+        assertTrue(meterRegistry.find(AccountConflictMetrics.CONFLICTS_METRIC).counters().isEmpty());
+    }
+
+    private void conflicts(Long accountId, int times) {
+        for (int i = 0; i < times; i++) {
+            accountConflictMetrics.recordConflict(new ObjectOptimisticLockingFailureException(Account.class, accountId), "update");
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.exception.AccountBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountBulkheadTest {
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AccountBulkhead accountBulkhead;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(accountBulkhead, "stripeCount", 64);
+        ReflectionTestUtils.setField(accountBulkhead, "permits", 1);
+        ReflectionTestUtils.setField(accountBulkhead, "timeoutMs", 50L);
+        ReflectionTestUtils.setField(accountBulkhead, "bulkPermits", 1);
+        accountBulkhead.init();
+    }
+
+    @Test
+    void testBusyAccountIsRejectedAfterTheTimeout() {
+        AccountBulkhead.Permit held = accountBulkhead.acquire(1L, 2L);
+
+        AccountBusyException exception = assertThrows(AccountBusyException.class, () -> accountBulkhead.acquire(1L, null));
+
+        assertEquals(1L, exception.getAccountId());
+        assertEquals(1.0, meterRegistry.get(AccountBulkhead.REJECTED_METRIC).counter().count());
+        held.close();
+        assertDoesNotThrow(() -> accountBulkhead.acquire(1L, null).close());
+    }
+
+    @Test
+    void testOtherAccountsAreNotHeldBackByAHotOne() {
+        long hot = 1L;
+        long other = otherStripeThan(hot);
+        AccountBulkhead.Permit held = accountBulkhead.acquire(hot, null);
+
+        assertDoesNotThrow(() -> accountBulkhead.acquire(other, null).close());
+        held.close();
+    }
+
+    @Test
+    void testFailedAcquisitionReleasesThePermitsAlreadyTaken() {
+        long first = 1L;
+        long second = otherStripeThan(first);
+        AccountBulkhead.Permit held = accountBulkhead.acquire(second, null);
+
+        assertThrows(AccountBusyException.class, () -> accountBulkhead.acquire(first, second));
+
+        assertDoesNotThrow(() -> accountBulkhead.acquire(first, null).close());
+        held.close();
+    }
+
+    @Test
+    void testGroupDoesNotHoldTheStripesOfItsAccounts() {
+        long first = 1L;
+        long second = otherStripeThan(first);
+        AccountBulkhead.Permit group = accountBulkhead.acquireBulk(List.of(second, first, second));
+
+        assertDoesNotThrow(() -> accountBulkhead.acquire(first, second).close());
+        group.close();
+    }
+
+    @Test
+    void testGroupsAreAdmittedUpToTheBulkPermits() {
+        AccountBulkhead.Permit group = accountBulkhead.acquireBulk(List.of(1L, 2L));
+
+        AccountBusyException exception = assertThrows(AccountBusyException.class,
+                () -> accountBulkhead.acquireBulk(List.of(3L, 4L)));
+
+        assertEquals(3L, exception.getAccountId());
+        assertEquals(1.0, meterRegistry.get(AccountBulkhead.REJECTED_METRIC).counter().count());
+        group.close();
+        assertDoesNotThrow(() -> accountBulkhead.acquireBulk(List.of(3L, 4L)).close());
+    }
+
+    @Test
+    void testWaitingTransferGetsThePermitWhenReleased() throws Exception {
+        ReflectionTestUtils.setField(accountBulkhead, "timeoutMs", 5000L);
+        AccountBulkhead.Permit held = accountBulkhead.acquire(1L, 2L);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<AccountBulkhead.Permit> waiting =
+                    CompletableFuture.supplyAsync(() -> accountBulkhead.acquire(2L, 1L), executor);
+            while (accountBulkhead.hottestDemand()[0] < 2) {
+                Thread.sleep(1);
+            }
+
+            held.close();
+            held.close();
+
+            assertNotNull(waiting.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testHottestStripesReportHeldAndWaitingTransfers() {
+        AccountBulkhead.Permit held = accountBulkhead.acquire(7L, null);
+
+        assertEquals(1.0, meterRegistry.get(AccountBulkhead.HOTTEST_METRIC).tag("rank", "1").gauge().value());
+        assertEquals(0.0, meterRegistry.get(AccountBulkhead.HOTTEST_METRIC).tag("rank", "2").gauge().value());
+        held.close();
+        assertEquals(0.0, meterRegistry.get(AccountBulkhead.HOTTEST_METRIC).tag("rank", "1").gauge().value());
+    }
+
+    @Test
+    void testDisabledBulkheadAdmitsEverything() {
+        ReflectionTestUtils.setField(accountBulkhead, "enabled", false);
+
+        accountBulkhead.acquire(1L, 2L);
+
+        assertDoesNotThrow(() -> accountBulkhead.acquire(1L, 2L).close());
+    }
+
+    private long otherStripeThan(long accountId) {
+        long other = accountId + 1;
+        while (accountBulkhead.stripeOf(other) == accountBulkhead.stripeOf(accountId)) {
+            other++;
+        }
+        return other;
+    }
+}
@@ -0,0 +1,101 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.model.dto.AccountView;
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AccountCacheTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AccountCache accountCache;
+
+    private AccountView account;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        accountCache.init();
+
+        account = new AccountView(1L, "12345", BigDecimal.valueOf(1000), LocalDateTime.now(), null, 0L, 0, BigDecimal.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void findById_servesRepeatedReadsFromCache() {
+        when(accountRepository.findViewById(1L)).thenReturn(Optional.of(account));
+
+        assertEquals(Optional.of(account), accountCache.findById(1L));
+        assertEquals(Optional.of(account), accountCache.findById(1L));
+
+        verify(accountRepository, times(1)).findViewById(1L);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", AccountCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", AccountCache.CACHE_NAME)
+                .tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void findById_missingAccountIsNotCached() {
+        when(accountRepository.findViewById(99L)).thenReturn(Optional.empty());
+
+        assertTrue(accountCache.findById(99L).isEmpty());
+        assertTrue(accountCache.findById(99L).isEmpty());
+
+        verify(accountRepository, times(2)).findViewById(99L);
+    }
+
+    @Test
+    void evictAfterCommit_withoutTransactionEvictsImmediately() {
+        when(accountRepository.findViewById(1L)).thenReturn(Optional.of(account));
+        accountCache.findById(1L);
+
+        accountCache.evictAfterCommit(1L, null);
+        accountCache.findById(1L);
+
+        verify(accountRepository, times(2)).findViewById(1L);
+    }
+
+    @Test
+    void evictAfterCommit_waitsForCommit() {
+        when(accountRepository.findViewById(1L)).thenReturn(Optional.of(account));
+        accountCache.findById(1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        accountCache.evictAfterCommit(1L);
+        accountCache.findById(1L);
+        verify(accountRepository, times(1)).findViewById(1L);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        accountCache.findById(1L);
+        verify(accountRepository, times(2)).findViewById(1L);
+    }
+}
@@ -0,0 +1,149 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AccountNumberIndexTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AccountNumberIndex accountNumberIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        accountNumberIndex.init();
+
+        List<AccountRepository.AccountNumberRow> rows = List.of(row("12345", 1L), row("67890", 2L));
+        when(accountRepository.findAllAccountNumbers()).thenReturn(rows);
+        accountNumberIndex.load();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void resolve_loadedNumbersCostNoQuery() {
+        assertEquals(Optional.of(1L), accountNumberIndex.resolve("12345"));
+        assertEquals(Optional.of(2L), accountNumberIndex.resolve("67890"));
+
+        verify(accountRepository, never()).findIdByAccountNumber(anyString());
+        assertEquals(2.0, meterRegistry.get("bankapi.account.number.index.size").gauge().value());
+    }
+
+    @Test
+    void resolve_unknownNumberIsLookedUpOnceAndRemembered() {
+        when(accountRepository.findIdByAccountNumber("55555")).thenReturn(Optional.of(5L));
+
+        assertEquals(Optional.of(5L), accountNumberIndex.resolve("55555"));
+        assertEquals(Optional.of(5L), accountNumberIndex.resolve("55555"));
+
+        verify(accountRepository, times(1)).findIdByAccountNumber("55555");
+    }
+
+    @Test
+    void resolve_missingNumber() {
+        when(accountRepository.findIdByAccountNumber("00000")).thenReturn(Optional.empty());
+
+        assertTrue(accountNumberIndex.resolve("00000").isEmpty());
+        assertTrue(accountNumberIndex.resolve(null).isEmpty());
+    }
+
+    @Test
+    void putAfterCommit_waitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        accountNumberIndex.putAfterCommit("55555", 5L);
+        when(accountRepository.findIdByAccountNumber("55555")).thenReturn(Optional.empty());
+        assertTrue(accountNumberIndex.resolve("55555").isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(Optional.of(5L), accountNumberIndex.resolve("55555"));
+    }
+
+    @Test
+    void removeAfterCommit_keepsNumberTakenByAnotherAccount() {
+        accountNumberIndex.putAfterCommit("12345", 3L);
+
+        accountNumberIndex.removeAfterCommit("12345", 1L);
+        assertEquals(Optional.of(3L), accountNumberIndex.resolve("12345"));
+
+        accountNumberIndex.removeAfterCommit("12345", 3L);
+        when(accountRepository.findIdByAccountNumber("12345")).thenReturn(Optional.empty());
+        assertTrue(accountNumberIndex.resolve("12345").isEmpty());
+    }
+
+    @Test
+    void load_keepsChangesCommittedWhileItRuns() {
+        // The snapshot is read before account 5 is created and account 1 is deleted, and swapped in after
+        List<AccountRepository.AccountNumberRow> snapshot = List.of(row("12345", 1L), row("67890", 2L));
+        when(accountRepository.findAllAccountNumbers()).thenAnswer(invocation -> {
+            accountNumberIndex.putAfterCommit("55555", 5L);
+            accountNumberIndex.removeAfterCommit("12345", 1L);
+            return snapshot;
+        });
+
+        accountNumberIndex.load();
+
+        when(accountRepository.findIdByAccountNumber("12345")).thenReturn(Optional.empty());
+        assertEquals(Optional.of(5L), accountNumberIndex.resolve("55555"));
+        assertTrue(accountNumberIndex.resolve("12345").isEmpty());
+        assertEquals(Optional.of(2L), accountNumberIndex.resolve("67890"));
+        verify(accountRepository, never()).findIdByAccountNumber("55555");
+    }
+
+    @Test
+    void load_failureLeavesTheIndexInPlace() {
+        when(accountRepository.findAllAccountNumbers()).thenThrow(new IllegalStateException("database down"));
+
+        assertThrows(IllegalStateException.class, () -> accountNumberIndex.load());
+
+        assertEquals(Optional.of(1L), accountNumberIndex.resolve("12345"));
+    }
+
+    @Test
+    void resolveForWrite_readsTheDatabaseAndFixesStaleEntries() {
+        // "12345" was moved to account 3 on another instance
+        when(accountRepository.findIdByAccountNumber("12345")).thenReturn(Optional.of(3L));
+
+        assertEquals(Optional.of(3L), accountNumberIndex.resolveForWrite("12345"));
+        assertEquals(Optional.of(3L), accountNumberIndex.resolve("12345"));
+
+        when(accountRepository.findIdByAccountNumber("67890")).thenReturn(Optional.empty());
+        assertTrue(accountNumberIndex.resolveForWrite("67890").isEmpty());
+        assertTrue(accountNumberIndex.resolve("67890").isEmpty());
+    }
+
+    private static AccountRepository.AccountNumberRow row(String accountNumber, Long id) {
+        AccountRepository.AccountNumberRow row = mock(AccountRepository.AccountNumberRow.class);
+        when(row.getAccountNumber()).thenReturn(accountNumber);
+        when(row.getId()).thenReturn(id);
+        return row;
+    }
+}
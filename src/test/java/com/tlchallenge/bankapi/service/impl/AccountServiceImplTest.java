@@ -1,21 +1,34 @@
 package com.tlchallenge.bankapi.service.impl;
 
+import com.tlchallenge.bankapi.exception.AccountManagedByLedgerException;
 import com.tlchallenge.bankapi.exception.AccountNotFoundException;
+import com.tlchallenge.bankapi.exception.InvalidAccountDataException;
+import com.tlchallenge.bankapi.metrics.AccountConflictMetrics;
 import com.tlchallenge.bankapi.model.Account;
 import com.tlchallenge.bankapi.model.dto.AccountDto;
+import com.tlchallenge.bankapi.model.dto.AccountView;
+import com.tlchallenge.bankapi.model.dto.CursorPage;
+import com.tlchallenge.bankapi.model.dto.DailySummary;
 import com.tlchallenge.bankapi.repository.AccountRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class AccountServiceImplTest {
@@ -23,6 +36,18 @@ class AccountServiceImplTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private AccountConflictMetrics accountConflictMetrics;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private AccountNumberIndex accountNumberIndex;
+
     @InjectMocks
     private AccountServiceImpl accountService;
 
@@ -37,25 +62,61 @@ class AccountServiceImplTest {
         account.setBalance(BigDecimal.valueOf(1000));
         account.setCreatedAt(LocalDateTime.now());
         account.setUpdatedAt(LocalDateTime.now());
+        account.setVersion(3L);
     }
 
     @Test
     void testGetAccountById_found() {
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountCache.findById(1L)).thenReturn(Optional.of(view(account)));
 
-        Optional<Account> result = accountService.getAccountById(1L);
+        Optional<AccountView> result = accountService.getAccountById(1L);
 
         assertTrue(result.isPresent());
-        assertEquals("12345", result.get().getAccountNumber());
+        assertEquals("12345", result.get().accountNumber());
     }
 
     @Test
     void testGetAccountById_notFound() {
-        when(accountRepository.findById(99L)).thenReturn(Optional.empty());
+        when(accountCache.findById(99L)).thenReturn(Optional.empty());
 
         assertThrows(AccountNotFoundException.class, () -> accountService.getAccountById(99L));
     }
 
+    @Test
+    void testGetAccountByNumber_resolvedThroughIndex() {
+        when(accountNumberIndex.resolve("12345")).thenReturn(Optional.of(1L));
+        when(accountCache.findById(1L)).thenReturn(Optional.of(view(account)));
+
+        AccountView result = accountService.getAccountByNumber("12345");
+
+        assertEquals(1L, result.id());
+        verify(accountRepository, never()).findByAccountNumber(any());
+    }
+
+    @Test
+    void testGetAccountByNumber_staleEntryIsDropped() {
+        Account renamed = new Account();
+        renamed.setId(7L);
+        renamed.setAccountNumber("99999");
+        when(accountNumberIndex.resolve("12345")).thenReturn(Optional.of(7L), Optional.of(1L));
+        when(accountCache.findById(7L)).thenReturn(Optional.of(view(renamed)));
+        when(accountCache.findById(1L)).thenReturn(Optional.of(view(account)));
+
+        AccountView result = accountService.getAccountByNumber("12345");
+
+        assertEquals(1L, result.id());
+        verify(accountNumberIndex, times(1)).forget("12345", 7L);
+    }
+
+    @Test
+    void testGetAccountByNumber_notFound() {
+        when(accountNumberIndex.resolve("00000")).thenReturn(Optional.empty());
+
+        AccountNotFoundException exception = assertThrows(AccountNotFoundException.class,
+                () -> accountService.getAccountByNumber("00000"));
+        assertEquals("00000", exception.getAccountNumber());
+    }
+
     @Test
     void testCreateAccount_success() {
         AccountDto dto = new AccountDto("67890", BigDecimal.valueOf(500));
@@ -65,6 +126,7 @@ class AccountServiceImplTest {
 
         assertNotNull(created);
         assertEquals("12345", created.getAccountNumber());
+        verify(accountNumberIndex, times(1)).putAfterCommit("12345", 1L);
     }
 
     @Test
@@ -77,6 +139,71 @@ class AccountServiceImplTest {
 
         assertEquals("54321", updated.getAccountNumber());
         assertEquals(BigDecimal.valueOf(2000), updated.getBalance());
+        verify(accountCache, times(1)).evictAfterCommit(1L);
+        verify(accountNumberIndex, times(1)).removeAfterCommit("12345", 1L);
+        verify(accountNumberIndex, times(1)).putAfterCommit("54321", 1L);
+    }
+
+    @Test
+    void testUpdateAccount_matchingVersion() {
+        AccountDto dto = new AccountDto("54321", BigDecimal.valueOf(2000));
+        dto.setVersion(3L);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.save(any(Account.class))).thenReturn(account);
+
+        Account updated = accountService.updateAccount(1L, dto);
+
+        assertEquals(BigDecimal.valueOf(2000), updated.getBalance());
+        verify(accountConflictMetrics, never()).recordConflict(any(), any());
+    }
+
+    @Test
+    void testUpdateAccount_staleVersion() {
+        AccountDto dto = new AccountDto("54321", BigDecimal.valueOf(2000));
+        dto.setVersion(2L);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+
+        ObjectOptimisticLockingFailureException exception = assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> accountService.updateAccount(1L, dto));
+
+        assertEquals(1L, exception.getIdentifier());
+        assertEquals(BigDecimal.valueOf(1000), account.getBalance());
+        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountConflictMetrics, times(1)).recordConflict(exception, "update");
+    }
+
+    @Test
+    void testUpdateAccount_concurrentWriteDetectedOnSave() {
+        AccountDto dto = new AccountDto("54321", BigDecimal.valueOf(2000));
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.save(any(Account.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Account.class, 1L));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> accountService.updateAccount(1L, dto));
+        verify(accountConflictMetrics, times(1)).recordConflict(any(ObjectOptimisticLockingFailureException.class), eq("update"));
+    }
+
+    @Test
+    void testUpdateAccount_stripedAccountResetsSlots() {
+        account.setBalanceSlots(4);
+        AccountDto dto = new AccountDto("12345", BigDecimal.valueOf(2000));
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Account updated = accountService.updateAccount(1L, dto);
+
+        assertEquals(BigDecimal.valueOf(2000), updated.getBalance());
+        verify(stripedBalanceService, times(1)).drainSlots(1L);
+    }
+
+    @Test
+    void testConfigureBalanceSlots_delegatesToStripedBalanceService() {
+        account.setBalanceSlots(16);
+        when(stripedBalanceService.configureSlots(1L, 16)).thenReturn(account);
+
+        Account configured = accountService.configureBalanceSlots(1L, 16);
+
+        assertEquals(16, configured.getBalanceSlots());
     }
 
     @Test
@@ -95,6 +222,8 @@ class AccountServiceImplTest {
 
         assertTrue(deleted);
         verify(accountRepository, times(1)).delete(account);
+        verify(accountCache, times(1)).evictAfterCommit(1L);
+        verify(accountNumberIndex, times(1)).removeAfterCommit("12345", 1L);
     }
 
     @Test
@@ -103,4 +232,83 @@ class AccountServiceImplTest {
 
         assertThrows(AccountNotFoundException.class, () -> accountService.deleteAccount(99L));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLedgerEngine_rejectsBalanceChangesButKeepsRenames() {
+        ReflectionTestUtils.setField(accountService, "transferEngine", "ledger");
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.save(any(Account.class))).thenReturn(account);
+
+        assertThrows(AccountManagedByLedgerException.class,
+                () -> accountService.updateAccount(1L, new AccountDto("12345", BigDecimal.valueOf(2000))));
+        verify(accountRepository, never()).save(any(Account.class));
+
+        Account renamed = accountService.updateAccount(1L, new AccountDto("54321", new BigDecimal("1000.00")));
+        assertEquals("54321", renamed.getAccountNumber());
+    }
+
+    @Test
+    void testLedgerEngine_rejectsDeletesAndSlotChanges() {
+        ReflectionTestUtils.setField(accountService, "transferEngine", "ledger");
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+
+        assertThrows(AccountManagedByLedgerException.class, () -> accountService.deleteAccount(1L));
+        assertThrows(AccountManagedByLedgerException.class, () -> accountService.configureBalanceSlots(1L, 8));
+
+        verify(accountRepository, never()).delete(any(Account.class));
+        verify(stripedBalanceService, never()).configureSlots(any(), anyInt());
+    }
+
+    @Test
+    void testGetAccounts_keysetPage() {
+        Account next = new Account();
+        next.setId(2L);
+        when(accountRepository.findViewsAfter(0L, Limit.of(2))).thenReturn(List.of(view(account), view(next)));
+
+        CursorPage<AccountView> page = accountService.getAccounts(null, 1);
+
+        assertEquals(List.of(view(account)), page.getItems());
+        assertEquals(account.getId(), page.getNextCursor());
+        verify(accountRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetDailySummary_mapsRows() {
+        LocalDate day = LocalDate.of(2026, 3, 2);
+        AccountRepository.DailySummaryRow row = mock(AccountRepository.DailySummaryRow.class);
+        when(row.getSummaryDate()).thenReturn(day);
+        when(row.getDebitTotal()).thenReturn(BigDecimal.valueOf(30));
+        when(row.getDebitCount()).thenReturn(1);
+        when(row.getCreditTotal()).thenReturn(BigDecimal.valueOf(100));
+        when(row.getCreditCount()).thenReturn(2);
+        when(row.getClosingBalance()).thenReturn(BigDecimal.valueOf(1070));
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(accountRepository.findDailySummary(1L, day, day.plusDays(30))).thenReturn(List.of(row));
+
+        List<DailySummary> summary = accountService.getDailySummary(1L, day, day.plusDays(30));
+
+        assertEquals(List.of(new DailySummary(day, BigDecimal.valueOf(30), 1, BigDecimal.valueOf(100), 2,
+                BigDecimal.valueOf(1070))), summary);
+    }
+
+    @Test
+    void testGetDailySummary_invertedRange() {
+        LocalDate day = LocalDate.of(2026, 3, 2);
+
+        assertThrows(InvalidAccountDataException.class, () -> accountService.getDailySummary(1L, day, day.minusDays(1)));
+        verify(accountRepository, never()).findDailySummary(any(), any(), any());
+    }
+
+    @Test
+    void testGetDailySummary_accountNotFound() {
+        LocalDate day = LocalDate.of(2026, 3, 2);
+        when(accountRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(AccountNotFoundException.class, () -> accountService.getDailySummary(99L, day, day));
+    }
+
+    private static AccountView view(Account account) {
+        return new AccountView(account.getId(), account.getAccountNumber(), account.getBalance(),
+                account.getCreatedAt(), account.getUpdatedAt(), account.getVersion(), account.getBalanceSlots(), BigDecimal.ZERO);
+    }
+}
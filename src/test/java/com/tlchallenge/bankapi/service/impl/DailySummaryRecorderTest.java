@@ -0,0 +1,130 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DailySummaryRecorderTest {
+
+    private static final LocalDateTime MORNING = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @InjectMocks
+    private DailySummaryRecorder dailySummaryRecorder;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(dailySummaryRecorder);
+    }
+
+    @Test
+    void record_transactionTotalsAreWrittenOnceBeforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        dailySummaryRecorder.record(transfer(2L, 1L, 100, MORNING, "COMPLETED"));
+        dailySummaryRecorder.record(List.of(
+                transfer(1L, 2L, 30, MORNING.plusHours(1), "COMPLETED"),
+                transfer(1L, 2L, 500, MORNING.plusHours(2), "REJECTED"),
+                transfer(1L, 3L, 20, MORNING.plusDays(1), "COMPLETED")));
+        verifyNoInteractions(jdbcTemplate);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+
+        List<Map.Entry<DailySummaryRecorder.DayKey, DailySummaryRecorder.DayTotals>> rows = writtenRows();
+        assertEquals(List.of(
+                new DailySummaryRecorder.DayKey(1L, MORNING.toLocalDate()),
+                new DailySummaryRecorder.DayKey(1L, MORNING.toLocalDate().plusDays(1)),
+                new DailySummaryRecorder.DayKey(2L, MORNING.toLocalDate()),
+                new DailySummaryRecorder.DayKey(3L, MORNING.toLocalDate().plusDays(1))),
+                rows.stream().map(Map.Entry::getKey).toList());
+
+        DailySummaryRecorder.DayTotals account1 = rows.get(0).getValue();
+        assertEquals(0, BigDecimal.valueOf(30).compareTo(account1.debitTotal));
+        assertEquals(1, account1.debitCount);
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(account1.creditTotal));
+        assertEquals(1, account1.creditCount);
+        verify(accountRepository, times(1)).flush();
+    }
+
+    @Test
+    void record_rolledBackTransactionWritesNothing() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        dailySummaryRecorder.record(transfer(1L, 2L, 100, MORNING, "COMPLETED"));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertNull(TransactionSynchronizationManager.getResource(dailySummaryRecorder));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void record_closingBalanceIsReadAfterTheSummaryRowsAreLocked() {
+        dailySummaryRecorder.record(transfer(1L, 2L, 100, MORNING, "COMPLETED"));
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).batchUpdate(eq(DailySummaryRecorder.UPSERT), anyList(), eq(2), any());
+        order.verify(jdbcTemplate).batchUpdate(eq(DailySummaryRecorder.REFRESH_CLOSING_BALANCE), anyList(), eq(2), any());
+    }
+
+    @Test
+    void record_withoutTransactionWritesImmediately() {
+        dailySummaryRecorder.record(transfer(1L, 2L, 100, MORNING, "COMPLETED"));
+
+        assertEquals(2, writtenRows().size());
+    }
+
+    @Test
+    void record_ignoresTransfersThatDidNotComplete() {
+        dailySummaryRecorder.record(transfer(1L, 2L, 100, MORNING, "REJECTED"));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map.Entry<DailySummaryRecorder.DayKey, DailySummaryRecorder.DayTotals>> writtenRows() {
+        ArgumentCaptor<List<Map.Entry<DailySummaryRecorder.DayKey, DailySummaryRecorder.DayTotals>>> rows =
+                ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(DailySummaryRecorder.UPSERT), rows.capture(), anyInt(), any());
+        return new ArrayList<>(rows.getValue());
+    }
+
+    private static Transfer transfer(Long from, Long to, long amount, LocalDateTime date, String status) {
+        Transfer transfer = new Transfer(from, to, BigDecimal.valueOf(amount));
+        transfer.setTransferDate(date);
+        transfer.setStatus(status);
+        return transfer;
+    }
+}
@@ -0,0 +1,140 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.exception.InvalidAccountDataException;
+import com.tlchallenge.bankapi.model.Account;
+import com.tlchallenge.bankapi.model.AccountBalanceSlot;
+import com.tlchallenge.bankapi.repository.AccountBalanceSlotRepository;
+import com.tlchallenge.bankapi.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StripedBalanceServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountBalanceSlotRepository slotRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @InjectMocks
+    private StripedBalanceService stripedBalanceService;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        stripedBalanceService.init();
+        account = new Account();
+        account.setId(1L);
+        account.setAccountNumber("12345");
+        account.setBalance(BigDecimal.valueOf(1000));
+    }
+
+    @Test
+    void testConfigureSlots_createsSlotsAndRegistersAccount() {
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(slotRepository.findByAccountIdForUpdate(1L)).thenReturn(List.of());
+
+        when(accountRepository.findBalanceSlotsById(1L)).thenReturn(Optional.of(0), Optional.of(4));
+        assertFalse(stripedBalanceService.isStriped(1L));
+
+        Account configured = stripedBalanceService.configureSlots(1L, 4);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AccountBalanceSlot>> created = ArgumentCaptor.forClass(List.class);
+        verify(slotRepository).saveAll(created.capture());
+        assertEquals(4, created.getValue().size());
+        assertEquals(4, configured.getBalanceSlots());
+        assertTrue(stripedBalanceService.isStriped(1L));
+    }
+
+    @Test
+    void testConfigureSlots_shrinkingFoldsSlotsIntoAccount() {
+        account.setBalanceSlots(3);
+        List<AccountBalanceSlot> existing = new ArrayList<>();
+        for (int slot = 0; slot < 3; slot++) {
+            AccountBalanceSlot balanceSlot = new AccountBalanceSlot(1L, slot);
+            balanceSlot.setBalance(BigDecimal.valueOf(100));
+            existing.add(balanceSlot);
+        }
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(slotRepository.findByAccountIdForUpdate(1L)).thenReturn(existing);
+        when(accountRepository.findBalanceSlotsById(1L)).thenReturn(Optional.of(3), Optional.of(0));
+        assertTrue(stripedBalanceService.isStriped(1L));
+
+        stripedBalanceService.configureSlots(1L, 0);
+
+        assertEquals(BigDecimal.valueOf(1300), account.getBalance());
+        assertEquals(0, account.getBalanceSlots());
+        verify(slotRepository).deleteAll(existing);
+        assertFalse(stripedBalanceService.isStriped(1L));
+    }
+
+    @Test
+    void testConfigureSlots_outOfRange() {
+        assertThrows(InvalidAccountDataException.class, () -> stripedBalanceService.configureSlots(1L, 65));
+        verify(accountRepository, never()).findByIdForUpdate(any());
+    }
+
+    @Test
+    void testCredit_usesSlotOfStripedAccount() {
+        when(accountRepository.findBalanceSlotsById(1L)).thenReturn(Optional.of(8));
+        when(accountRepository.findBalanceSlotsById(2L)).thenReturn(Optional.of(0));
+        when(slotRepository.credit(eq(1L), anyInt(), any(BigDecimal.class))).thenReturn(1);
+
+        assertTrue(stripedBalanceService.credit(1L, BigDecimal.TEN));
+        assertFalse(stripedBalanceService.credit(2L, BigDecimal.TEN));
+
+        ArgumentCaptor<Integer> slot = ArgumentCaptor.forClass(Integer.class);
+        verify(slotRepository).credit(eq(1L), slot.capture(), eq(BigDecimal.TEN));
+        assertTrue(slot.getValue() >= 0 && slot.getValue() < 8);
+    }
+
+    @Test
+    void testIsStriped_loadsTheSlotCountOnceWithinTheTtl() {
+        when(accountRepository.findBalanceSlotsById(1L)).thenReturn(Optional.of(8));
+
+        assertTrue(stripedBalanceService.isStriped(1L));
+        assertTrue(stripedBalanceService.isStriped(1L));
+        assertFalse(stripedBalanceService.isStriped(99L));
+        assertFalse(stripedBalanceService.isStriped(null));
+
+        verify(accountRepository, times(1)).findBalanceSlotsById(1L);
+    }
+
+    @Test
+    void testConsolidate_movesSlotBalancesToAccount() {
+        AccountBalanceSlot slot = new AccountBalanceSlot(1L, 0);
+        slot.setBalance(BigDecimal.valueOf(250));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(slotRepository.findByAccountIdForUpdate(1L)).thenReturn(List.of(slot));
+
+        stripedBalanceService.consolidate(1L);
+
+        assertEquals(BigDecimal.valueOf(1250), account.getBalance());
+        assertEquals(BigDecimal.ZERO, slot.getBalance());
+    }
+}
@@ -0,0 +1,125 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.repository.TransferRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class TransferAuditWriterTest {
+
+    @Mock
+    private TransferRepository transferRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private TransferAuditWriter transferAuditWriter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        transferAuditWriter.stop();
+    }
+
+    @Test
+    void record_writesQueuedTransfersInBatches() throws InterruptedException {
+        transferAuditWriter.start();
+
+        transferAuditWriter.record(rejected(1L));
+        transferAuditWriter.record(rejected(2L));
+        transferAuditWriter.record(rejected(3L));
+        transferAuditWriter.stop();
+
+        verify(transferRepository, atLeastOnce()).saveAll(anyList());
+        verify(transferRepository, never()).save(any(Transfer.class));
+        assertEquals(3.0, meterRegistry.get(TransferAuditWriter.WRITTEN_METRIC).counter().count());
+        assertEquals(0.0, meterRegistry.get(TransferAuditWriter.QUEUE_METRIC).gauge().value());
+    }
+
+    @Test
+    void record_dropsWhenQueueIsFull() throws InterruptedException {
+        ReflectionTestUtils.setField(transferAuditWriter, "queueCapacity", 1);
+        ReflectionTestUtils.setField(transferAuditWriter, "offerTimeoutMs", 0L);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(transferRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        transferAuditWriter.start();
+
+        transferAuditWriter.record(rejected(1L));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        transferAuditWriter.record(rejected(2L)); // waits in the queue
+        transferAuditWriter.record(rejected(3L)); // queue full
+        release.countDown();
+        transferAuditWriter.stop();
+
+        assertEquals(1.0, meterRegistry.get(TransferAuditWriter.DROPPED_METRIC).counter().count());
+        assertEquals(2.0, meterRegistry.get(TransferAuditWriter.WRITTEN_METRIC).counter().count());
+    }
+
+    @Test
+    void write_fallsBackToSingleInsertsWhenBatchFails() {
+        transferAuditWriter.start();
+        Transfer valid = rejected(1L);
+        Transfer orphan = rejected(99L);
+        orphan.setId(7L);
+        when(transferRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("fk"));
+        when(transferRepository.save(valid)).thenReturn(valid);
+        when(transferRepository.save(orphan)).thenThrow(new DataIntegrityViolationException("fk"));
+
+        transferAuditWriter.write(List.of(valid, orphan));
+
+        assertNull(orphan.getId());
+        assertEquals(1.0, meterRegistry.get(TransferAuditWriter.WRITTEN_METRIC).counter().count());
+        assertEquals(1.0, meterRegistry.get(TransferAuditWriter.FAILED_METRIC).counter().count());
+    }
+
+    @Test
+    void record_ignoresTransfersWithoutAmount() throws InterruptedException {
+        transferAuditWriter.start();
+        Transfer transfer = rejected(1L);
+        transfer.setAmount(null);
+
+        transferAuditWriter.record(transfer);
+        transferAuditWriter.stop();
+
+        verifyNoInteractions(transferRepository);
+    }
+
+    private static Transfer rejected(Long fromAccountId) {
+        Transfer transfer = new Transfer(fromAccountId, 2L, BigDecimal.TEN);
+        transfer.setStatus("REJECTED");
+        return transfer;
+    }
+}
@@ -0,0 +1,85 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tlchallenge.bankapi.model.dto.TransferView;
+import com.tlchallenge.bankapi.repository.TransferRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TransferExportServiceTest {
+
+    @Mock
+    private TransferRepository transferRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @InjectMocks
+    private TransferExportService transferExportService;
+
+    private TransferView transfer1;
+    private TransferView transfer2;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transfer1 = transfer(1L, "COMPLETED");
+        transfer2 = transfer(2L, "REJECTED");
+    }
+
+    @Test
+    void export_writesOneJsonObjectPerLine() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 2, 1, 0, 0);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(transferRepository.streamByTransferDateRange(from, to))
+                .thenReturn(Stream.of(transfer1, transfer2).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = transferExportService.export(from, to, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1L, first.get("id").asLong());
+        assertEquals("COMPLETED", first.get("status").asText());
+        assertEquals("REJECTED", objectMapper.readTree(lines[1]).get("status").asText());
+        assertTrue(lines[1].startsWith("{"));
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("\n"));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void export_openRangeUsesWideBounds() throws Exception {
+        when(transferRepository.streamByTransferDateRange(
+                TransferRepository.NO_LOWER_BOUND, TransferRepository.NO_UPPER_BOUND))
+                .thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = transferExportService.export(null, null, out);
+
+        assertEquals(0, rows);
+        assertEquals(0, out.size());
+    }
+
+    private static TransferView transfer(Long id, String status) {
+        return new TransferView(id, 1L, 2L, BigDecimal.TEN, LocalDateTime.of(2025, 1, 15, 10, 0), status);
+    }
+}
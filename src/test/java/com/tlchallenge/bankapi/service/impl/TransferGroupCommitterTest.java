@@ -0,0 +1,216 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.exception.TransferQueueFullException;
+import com.tlchallenge.bankapi.exception.TransferRejectedException;
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.service.TransferOutcome;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class TransferGroupCommitterTest {
+
+    @Mock
+    private TransferServiceImpl transferService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private TransferGroupCommitter transferGroupCommitter;
+
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(transferGroupCommitter, "enabled", true);
+        ReflectionTestUtils.setField(transferGroupCommitter, "workerCount", 1);
+        ReflectionTestUtils.setField(transferGroupCommitter, "windowMicros", 200_000L);
+        callers = Executors.newFixedThreadPool(8);
+
+        when(transferService.createTransfersInOneTransaction(anyList())).thenAnswer(invocation -> {
+            List<TransferDto> dtos = invocation.getArgument(0);
+            List<TransferOutcome> outcomes = new ArrayList<>();
+            for (TransferDto dto : dtos) {
+                Transfer transfer = new Transfer(dto.getFromAccountId(), dto.getToAccountId(), dto.getAmount());
+                transfer.setId(dto.getFromAccountId() * 100);
+                if (dto.getAmount().compareTo(BigDecimal.valueOf(1000)) > 0) {
+                    transfer.setStatus("REJECTED");
+                    outcomes.add(TransferOutcome.rejected(transfer, "Insufficient funds"));
+                } else {
+                    transfer.setStatus("COMPLETED");
+                    outcomes.add(TransferOutcome.completed(transfer));
+                }
+            }
+            return outcomes;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        callers.shutdownNow();
+        transferGroupCommitter.stop();
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneTransaction() throws Exception {
+        transferGroupCommitter.start();
+
+        List<Future<Transfer>> results = submitConcurrently(8, 100);
+
+        for (int i = 0; i < results.size(); i++) {
+            Transfer transfer = results.get(i).get(5, TimeUnit.SECONDS);
+            assertEquals("COMPLETED", transfer.getStatus());
+            assertEquals((i + 1) * 100L, transfer.getId());
+        }
+        verify(transferService, times(1)).createTransfersInOneTransaction(anyList());
+        assertEquals(8.0, meterRegistry.get(TransferGroupCommitter.GROUP_SIZE_METRIC).summary().totalAmount());
+    }
+
+    @Test
+    void testMaxSizeSplitsGroups() throws Exception {
+        ReflectionTestUtils.setField(transferGroupCommitter, "maxSize", 3);
+        transferGroupCommitter.start();
+
+        for (Future<Transfer> result : submitConcurrently(8, 100)) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        verify(transferService, atLeast(3)).createTransfersInOneTransaction(anyList());
+    }
+
+    @Test
+    void testRejectionOnlyAffectsItsOwnCaller() throws Exception {
+        ReflectionTestUtils.setField(transferGroupCommitter, "windowMicros", 1000L);
+        transferGroupCommitter.start();
+
+        Future<Transfer> rejected = callers.submit(() -> transferGroupCommitter.createTransfer(transferDto(1L, 5000)));
+        Future<Transfer> completed = callers.submit(() -> transferGroupCommitter.createTransfer(transferDto(2L, 100)));
+
+        Exception exception = assertThrows(Exception.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TransferRejectedException.class, exception.getCause());
+        assertEquals("COMPLETED", completed.get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    void testFailedGroupFallsBackToIndividualTransfers() throws Exception {
+        when(transferService.createTransfersInOneTransaction(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("deadlock"));
+        Transfer individual = new Transfer(1L, 2L, BigDecimal.TEN);
+        individual.setStatus("COMPLETED");
+        when(transferService.createTransfer(any(TransferDto.class))).thenReturn(individual);
+        transferGroupCommitter.start();
+
+        Transfer result = transferGroupCommitter.createTransfer(transferDto(1L, 10));
+
+        assertSame(individual, result);
+        verify(transferService, times(1)).createTransfer(any(TransferDto.class));
+    }
+
+    @Test
+    void testWorkerSurvivesUnexpectedError() throws Exception {
+        ReflectionTestUtils.setField(transferGroupCommitter, "windowMicros", 1000L);
+        List<TransferOutcome> outcome = List.of(TransferOutcome.completed(completedTransfer()));
+        when(transferService.createTransfersInOneTransaction(anyList()))
+                .thenThrow(new StackOverflowError())
+                .thenReturn(outcome);
+        transferGroupCommitter.start();
+
+        assertThrows(IllegalStateException.class, () -> transferGroupCommitter.createTransfer(transferDto(1L, 10)));
+        Transfer second = transferGroupCommitter.createTransfer(transferDto(1L, 10));
+
+        assertEquals("COMPLETED", second.getStatus());
+    }
+
+    @Test
+    void testCallerGivesUpWhenNoWorkerTakesTheTransfer() {
+        // Running, but without workers, so the transfer is never picked up
+        ReflectionTestUtils.setField(transferGroupCommitter, "running", true);
+        ReflectionTestUtils.setField(transferGroupCommitter, "timeoutMs", 50L);
+
+        assertThrows(TransferQueueFullException.class, () -> transferGroupCommitter.createTransfer(transferDto(1L, 10)));
+        verify(transferService, never()).createTransfersInOneTransaction(anyList());
+    }
+
+    @Test
+    void testStopAnswersQueuedCallers() throws Exception {
+        ReflectionTestUtils.setField(transferGroupCommitter, "running", true);
+        Future<Transfer> waiting = callers.submit(() -> transferGroupCommitter.createTransfer(transferDto(1L, 10)));
+        Thread.sleep(100);
+
+        transferGroupCommitter.stop();
+
+        Exception exception = assertThrows(Exception.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TransferQueueFullException.class, exception.getCause());
+    }
+
+    @Test
+    void testStoppedCommitterRefusesNewTransfers() {
+        assertThrows(TransferQueueFullException.class, () -> transferGroupCommitter.createTransfer(transferDto(1L, 10)));
+    }
+
+    @Test
+    void testDisabledWithLedgerEngine() {
+        ReflectionTestUtils.setField(transferGroupCommitter, "engine", "ledger");
+
+        transferGroupCommitter.start();
+
+        assertFalse(transferGroupCommitter.isEnabled());
+    }
+
+    private List<Future<Transfer>> submitConcurrently(int count, long amount) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(count);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Transfer>> results = new ArrayList<>();
+        for (long from = 1; from <= count; from++) {
+            long fromAccountId = from;
+            results.add(callers.submit(() -> {
+                ready.countDown();
+                go.await();
+                return transferGroupCommitter.createTransfer(transferDto(fromAccountId, amount));
+            }));
+        }
+        assertTrue(ready.await(5, TimeUnit.SECONDS));
+        go.countDown();
+        return results;
+    }
+
+    private Transfer completedTransfer() {
+        Transfer transfer = new Transfer(1L, 99L, BigDecimal.TEN);
+        transfer.setId(100L);
+        transfer.setStatus("COMPLETED");
+        return transfer;
+    }
+
+    private TransferDto transferDto(Long fromAccountId, long amount) {
+        TransferDto dto = new TransferDto();
+        dto.setFromAccountId(fromAccountId);
+        dto.setToAccountId(99L);
+        dto.setAmount(BigDecimal.valueOf(amount));
+        return dto;
+    }
+}
@@ -0,0 +1,363 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tlchallenge.bankapi.exception.IdempotencyKeyInProgressException;
+import com.tlchallenge.bankapi.exception.IdempotencyKeyReusedException;
+import com.tlchallenge.bankapi.exception.InvalidIdempotencyKeyException;
+import com.tlchallenge.bankapi.exception.TransferRejectedException;
+import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.TransferIdempotencyKey;
+import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.repository.TransferIdempotencyKeyRepository;
+import com.tlchallenge.bankapi.service.TransferService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TransferIdempotencyServiceTest {
+
+    @Mock
+    private TransferService transferService;
+
+    @Mock
+    private TransferServiceImpl databaseTransferService;
+
+    @Mock
+    private TransferIdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private TransferIdempotencyService transferIdempotencyService;
+
+    private TransactionStatus transactionStatus;
+    private Transfer transfer;
+    private final AtomicBoolean inTransaction = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transferIdempotencyService.init();
+        transactionStatus = mock(TransactionStatus.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            inTransaction.set(true);
+            try {
+                return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(transactionStatus);
+            } finally {
+                inTransaction.set(false);
+            }
+        });
+        when(idempotencyKeyRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), anyString(), any())).thenReturn(1);
+        when(idempotencyKeyRepository.complete(anyString(), anyString(), anyLong(), anyString())).thenReturn(1);
+        when(idempotencyKeyRepository.release(anyString(), anyString())).thenReturn(1);
+
+        transfer = new Transfer(1L, 2L, BigDecimal.valueOf(100));
+        transfer.setId(42L);
+        transfer.setStatus("COMPLETED");
+    }
+
+    @Test
+    void testCreateTransfer_repeatedKeyIsAnsweredFromCache() {
+        transferApplies();
+
+        Transfer first = transferIdempotencyService.createTransfer("key-1", transferDto(100));
+        Transfer second = transferIdempotencyService.createTransfer("key-1", transferDto(100));
+
+        assertEquals(42L, first.getId());
+        assertEquals(42L, second.getId());
+        assertEquals("COMPLETED", second.getStatus());
+        verify(databaseTransferService, times(1)).createTransfer(any(TransferDto.class), any());
+        verify(idempotencyKeyRepository, times(1)).claim(eq("key-1"), anyString(), anyString(), any());
+        verify(idempotencyKeyRepository, times(1)).complete(eq("key-1"), anyString(), eq(42L), anyString());
+    }
+
+    @Test
+    void testCreateTransfer_sameKeyDifferentPayload() {
+        transferApplies();
+        transferIdempotencyService.createTransfer("key-1", transferDto(100));
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> transferIdempotencyService.createTransfer("key-1", transferDto(200)));
+        verify(databaseTransferService, times(1)).createTransfer(any(TransferDto.class), any());
+    }
+
+    @Test
+    void testCreateTransfer_keyStoredByEarlierRequestIsReplayed() {
+        TransferIdempotencyKey row = storedRow("key-2", transferDto(100));
+        when(idempotencyKeyRepository.claim(eq("key-2"), anyString(), anyString(), any())).thenReturn(0);
+        when(idempotencyKeyRepository.findById("key-2")).thenReturn(Optional.of(row));
+
+        Transfer replayed = transferIdempotencyService.createTransfer("key-2", transferDto(100));
+
+        assertEquals(42L, replayed.getId());
+        verify(databaseTransferService, never()).createTransfer(any(TransferDto.class), any());
+    }
+
+    @Test
+    void testCreateTransfer_responseIsStoredInTheTransferTransaction() {
+        AtomicBoolean storedBeforeCommit = new AtomicBoolean();
+        when(databaseTransferService.createTransfer(any(TransferDto.class), any())).thenAnswer(invocation -> {
+            // The claim transaction is over; the transfer opens its own and runs the callback inside it
+            assertFalse(inTransaction.get());
+            invocation.<Consumer<Transfer>>getArgument(1).accept(transfer);
+            verify(idempotencyKeyRepository).complete(eq("key-3"), anyString(), eq(42L), anyString());
+            storedBeforeCommit.set(true);
+            return transfer;
+        });
+
+        transferIdempotencyService.createTransfer("key-3", transferDto(100));
+
+        assertTrue(storedBeforeCommit.get());
+        InOrder order = inOrder(idempotencyKeyRepository, databaseTransferService);
+        order.verify(idempotencyKeyRepository).claim(eq("key-3"), anyString(), anyString(), any());
+        order.verify(databaseTransferService).createTransfer(any(TransferDto.class), any());
+        order.verify(idempotencyKeyRepository).complete(eq("key-3"), anyString(), eq(42L), anyString());
+        verify(transferService, never()).createTransfer(any(TransferDto.class));
+    }
+
+    @Test
+    void testCreateTransfer_claimTakenOverMeanwhileRollsTheTransferBack() {
+        transferApplies();
+        when(idempotencyKeyRepository.complete(eq("key-8"), anyString(), anyLong(), anyString())).thenReturn(0);
+
+        assertThrows(IdempotencyKeyInProgressException.class,
+                () -> transferIdempotencyService.createTransfer("key-8", transferDto(100)));
+        verify(idempotencyKeyRepository, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void testCreateTransfer_keyClaimedElsewhereWaitsForItsResponse() {
+        TransferIdempotencyKey completed = storedRow("key-6", transferDto(100));
+        TransferIdempotencyKey pending = pendingRow(completed, LocalDateTime.now());
+        when(idempotencyKeyRepository.claim(eq("key-6"), anyString(), anyString(), any())).thenReturn(0);
+        when(idempotencyKeyRepository.findById("key-6")).thenReturn(Optional.of(pending), Optional.of(completed));
+
+        Transfer result = transferIdempotencyService.createTransfer("key-6", transferDto(100));
+
+        assertEquals(42L, result.getId());
+        verify(databaseTransferService, never()).createTransfer(any(TransferDto.class), any());
+    }
+
+    @Test
+    void testCreateTransfer_keyStillPendingElsewhere() {
+        ReflectionTestUtils.setField(transferIdempotencyService, "pendingWaitMs", 0L);
+        TransferIdempotencyKey pending = pendingRow(storedRow("key-7", transferDto(100)), LocalDateTime.now());
+        when(idempotencyKeyRepository.claim(eq("key-7"), anyString(), anyString(), any())).thenReturn(0);
+        when(idempotencyKeyRepository.findById("key-7")).thenReturn(Optional.of(pending));
+
+        assertThrows(IdempotencyKeyInProgressException.class,
+                () -> transferIdempotencyService.createTransfer("key-7", transferDto(100)));
+        verify(databaseTransferService, never()).createTransfer(any(TransferDto.class), any());
+        verify(idempotencyKeyRepository, never()).takeOver(anyString(), anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void testCreateTransfer_claimPastItsLeaseIsTakenOver() {
+        TransferIdempotencyKey stale = pendingRow(storedRow("key-9", transferDto(100)), LocalDateTime.now().minusMinutes(5));
+        when(idempotencyKeyRepository.claim(eq("key-9"), anyString(), anyString(), any())).thenReturn(0);
+        when(idempotencyKeyRepository.findById("key-9")).thenReturn(Optional.of(stale));
+        when(idempotencyKeyRepository.takeOver(eq("key-9"), anyString(), anyString(), any(), any())).thenReturn(1);
+        transferApplies();
+
+        Transfer result = transferIdempotencyService.createTransfer("key-9", transferDto(100));
+
+        assertEquals(42L, result.getId());
+        // The response is stored under the token that took the claim over
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyKeyRepository).takeOver(eq("key-9"), anyString(), token.capture(), any(), any());
+        verify(idempotencyKeyRepository).complete(eq("key-9"), eq(token.getValue()), eq(42L), anyString());
+    }
+
+    @Test
+    void testCreateTransfer_ledgerNeverTakesOverAStaleClaim() {
+        TransferIdempotencyKey stale = pendingRow(storedRow("key-10", transferDto(100)), LocalDateTime.now().minusMinutes(5));
+        ReflectionTestUtils.setField(transferIdempotencyService, "engine", "ledger");
+        ReflectionTestUtils.setField(transferIdempotencyService, "pendingWaitMs", 0L);
+        when(idempotencyKeyRepository.claim(eq("key-10"), anyString(), anyString(), any())).thenReturn(0);
+        when(idempotencyKeyRepository.findById("key-10")).thenReturn(Optional.of(stale));
+
+        assertThrows(IdempotencyKeyInProgressException.class,
+                () -> transferIdempotencyService.createTransfer("key-10", transferDto(100)));
+        verify(idempotencyKeyRepository, never()).takeOver(anyString(), anyString(), anyString(), any(), any());
+        verify(transferService, never()).createTransfer(any(TransferDto.class));
+    }
+
+    @Test
+    void testCreateTransfer_concurrentDuplicateWaitsForFirstExecution() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(databaseTransferService.createTransfer(any(TransferDto.class), any())).thenAnswer(invocation -> {
+            firstStarted.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            invocation.<Consumer<Transfer>>getArgument(1).accept(transfer);
+            return transfer;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Transfer> first = executor.submit(() -> transferIdempotencyService.createTransfer("key-4", transferDto(100)));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        Future<Transfer> duplicate = executor.submit(() -> transferIdempotencyService.createTransfer("key-4", transferDto(100)));
+        Thread.sleep(100);
+        assertFalse(duplicate.isDone());
+
+        release.countDown();
+        assertEquals(42L, first.get(5, TimeUnit.SECONDS).getId());
+        assertEquals(42L, duplicate.get(5, TimeUnit.SECONDS).getId());
+        executor.shutdown();
+
+        verify(databaseTransferService, times(1)).createTransfer(any(TransferDto.class), any());
+    }
+
+    @Test
+    void testCreateTransfer_rejectionIsNotRemembered() {
+        when(databaseTransferService.createTransfer(any(TransferDto.class), any()))
+                .thenThrow(new TransferRejectedException(1L, 2L, "Insufficient funds"))
+                .thenAnswer(invocation -> {
+                    invocation.<Consumer<Transfer>>getArgument(1).accept(transfer);
+                    return transfer;
+                });
+
+        assertThrows(TransferRejectedException.class,
+                () -> transferIdempotencyService.createTransfer("key-5", transferDto(100)));
+        Transfer retried = transferIdempotencyService.createTransfer("key-5", transferDto(100));
+
+        assertEquals(42L, retried.getId());
+        verify(databaseTransferService, times(2)).createTransfer(any(TransferDto.class), any());
+        verify(idempotencyKeyRepository, times(1)).release(eq("key-5"), anyString());
+    }
+
+    @Test
+    void testCreateTransfer_unknownOutcomeKeepsTheClaim() {
+        when(databaseTransferService.createTransfer(any(TransferDto.class), any()))
+                .thenThrow(new DataAccessResourceFailureException("connection lost during commit"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> transferIdempotencyService.createTransfer("key-11", transferDto(100)));
+        verify(idempotencyKeyRepository, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void testCreateTransfer_ledgerAnswersWithTheDurableTransferEvenIfItsResponseCannotBeStored() {
+        ReflectionTestUtils.setField(transferIdempotencyService, "engine", "ledger");
+        when(transferService.createTransfer(any(TransferDto.class))).thenReturn(transfer);
+        when(idempotencyKeyRepository.complete(eq("key-12"), anyString(), anyLong(), anyString()))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+
+        Transfer result = transferIdempotencyService.createTransfer("key-12", transferDto(100));
+
+        assertEquals(42L, result.getId());
+        verify(databaseTransferService, never()).createTransfer(any(TransferDto.class), any());
+        verify(idempotencyKeyRepository, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void testCreateTransfer_ledgerUnknownOutcomeKeepsTheClaim() {
+        ReflectionTestUtils.setField(transferIdempotencyService, "engine", "ledger");
+        when(transferService.createTransfer(any(TransferDto.class)))
+                .thenThrow(new RuntimeException("Unexpected error while executing transfer"));
+
+        assertThrows(RuntimeException.class,
+                () -> transferIdempotencyService.createTransfer("key-13", transferDto(100)));
+        verify(idempotencyKeyRepository, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void testPurgeExpiredKeys_ledgerKeepsPendingKeys() {
+        transferIdempotencyService.purgeExpiredKeys();
+        ReflectionTestUtils.setField(transferIdempotencyService, "engine", "ledger");
+        transferIdempotencyService.purgeExpiredKeys();
+
+        InOrder order = inOrder(idempotencyKeyRepository);
+        order.verify(idempotencyKeyRepository).deleteExpired(any(), eq(true));
+        order.verify(idempotencyKeyRepository).deleteExpired(any(), eq(false));
+    }
+
+    @Test
+    void testCreateTransfer_invalidKey() {
+        assertThrows(InvalidIdempotencyKeyException.class,
+                () -> transferIdempotencyService.createTransfer(" ", transferDto(100)));
+        assertThrows(InvalidIdempotencyKeyException.class,
+                () -> transferIdempotencyService.createTransfer("k".repeat(256), transferDto(100)));
+        verify(databaseTransferService, never()).createTransfer(any(TransferDto.class), any());
+    }
+
+    private void transferApplies() {
+        when(databaseTransferService.createTransfer(any(TransferDto.class), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<Transfer>>getArgument(1).accept(transfer);
+            return transfer;
+        });
+    }
+
+    private TransferIdempotencyKey storedRow(String key, TransferDto dto) {
+        // Run the same request under a throwaway key to capture the row the service would have stored
+        TransferIdempotencyKey row = new TransferIdempotencyKey();
+        row.setIdempotencyKey(key);
+        row.setStatus(TransferIdempotencyKey.COMPLETED);
+        row.setCreatedAt(LocalDateTime.now());
+        when(idempotencyKeyRepository.claim(eq(key + "-probe"), anyString(), anyString(), any())).thenAnswer(invocation -> {
+            row.setRequestFingerprint(invocation.getArgument(1));
+            return 1;
+        });
+        when(idempotencyKeyRepository.complete(eq(key + "-probe"), anyString(), anyLong(), anyString())).thenAnswer(invocation -> {
+            row.setTransferId(invocation.getArgument(2));
+            row.setResponseBody(invocation.getArgument(3));
+            return 1;
+        });
+        transferApplies();
+        transferIdempotencyService.createTransfer(key + "-probe", dto);
+        clearInvocations(databaseTransferService, idempotencyKeyRepository, transactionStatus);
+        return row;
+    }
+
+    private static TransferIdempotencyKey pendingRow(TransferIdempotencyKey completed, LocalDateTime claimedAt) {
+        TransferIdempotencyKey pending = new TransferIdempotencyKey();
+        pending.setIdempotencyKey(completed.getIdempotencyKey());
+        pending.setRequestFingerprint(completed.getRequestFingerprint());
+        pending.setStatus(TransferIdempotencyKey.PENDING);
+        pending.setClaimToken("another-request");
+        pending.setClaimedAt(claimedAt);
+        pending.setCreatedAt(claimedAt);
+        return pending;
+    }
+
+    private TransferDto transferDto(long amount) {
+        TransferDto dto = new TransferDto();
+        dto.setFromAccountId(1L);
+        dto.setToAccountId(2L);
+        dto.setAmount(BigDecimal.valueOf(amount));
+        return dto;
+    }
+}
@@ -0,0 +1,112 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Date;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TransferPartitionMaintainerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private TransferPartitionMaintainer transferPartitionMaintainer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of(
+                partition("transfers_2025_11", false), partition("transfers_2025_12", false),
+                partition("transfers_2026_01", false), partition("transfers_archive_notes", false)));
+    }
+
+    private static Map<String, Object> partition(String name, boolean detachPending) {
+        return Map.of("relname", name, "inhdetachpending", detachPending);
+    }
+
+    @Test
+    void maintain_createsFuturePartitionsWithoutArchivingByDefault() {
+        transferPartitionMaintainer.maintain();
+
+        verify(jdbcTemplate, times(1)).queryForObject(eq("SELECT create_transfer_partitions(?, ?)"), eq(Integer.class),
+                any(), any());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void archivePartitionsBefore_detachesOnlyOlderMonths() {
+        transferPartitionMaintainer.archivePartitionsBefore(YearMonth.of(2026, 1));
+
+        verify(jdbcTemplate).execute("ALTER TABLE transfers DETACH PARTITION transfers_2025_11 CONCURRENTLY");
+        verify(jdbcTemplate).execute("ALTER TABLE transfers DETACH PARTITION transfers_2025_12 CONCURRENTLY");
+        verify(jdbcTemplate, times(2)).execute(anyString());
+    }
+
+    @Test
+    void archivePartitionsBefore_movesDetachedPartitionsToArchiveTablespace() {
+        ReflectionTestUtils.setField(transferPartitionMaintainer, "archiveTablespace", "cold_storage");
+
+        transferPartitionMaintainer.archivePartitionsBefore(YearMonth.of(2025, 12));
+
+        verify(jdbcTemplate).execute("ALTER TABLE transfers DETACH PARTITION transfers_2025_11 CONCURRENTLY");
+        verify(jdbcTemplate).execute("ALTER TABLE transfers_2025_11 SET TABLESPACE cold_storage");
+        verify(jdbcTemplate, times(2)).execute(anyString());
+    }
+
+    @Test
+    void archivePartitionsBefore_finalizesInterruptedDetach() {
+        when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of(
+                partition("transfers_2025_11", false), partition("transfers_2026_02", true),
+                partition("transfers_2026_03", false)));
+
+        transferPartitionMaintainer.archivePartitionsBefore(YearMonth.of(2025, 12));
+
+        verify(jdbcTemplate).execute("ALTER TABLE transfers DETACH PARTITION transfers_2025_11 CONCURRENTLY");
+        verify(jdbcTemplate).execute("ALTER TABLE transfers DETACH PARTITION transfers_2026_02 FINALIZE");
+        verify(jdbcTemplate, times(2)).execute(anyString());
+    }
+
+    @Test
+    void ensurePartitions_createsTheMonthsOfTheRangeOnce() {
+        LocalDateTime from = LocalDateTime.of(2024, 11, 30, 23, 59);
+        LocalDateTime to = LocalDateTime.of(2025, 1, 2, 0, 0);
+
+        transferPartitionMaintainer.ensurePartitions(from, to);
+        transferPartitionMaintainer.ensurePartitions(to, to);
+
+        verify(jdbcTemplate, times(1)).queryForObject("SELECT create_transfer_partitions(?, ?)", Integer.class,
+                Date.valueOf("2024-11-01"), Date.valueOf("2025-01-01"));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void maintain_failureIsLoggedNotThrown() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any(), any()))
+                .thenThrow(new RuntimeException("database unavailable"));
+
+        assertDoesNotThrow(() -> transferPartitionMaintainer.maintain());
+    }
+
+    @Test
+    void monthOf_parsesPartitionNames() {
+        assertEquals(YearMonth.of(2026, 3), TransferPartitionMaintainer.monthOf("transfers_2026_03"));
+        assertNull(TransferPartitionMaintainer.monthOf("transfers_archive_notes"));
+        assertNull(TransferPartitionMaintainer.monthOf("accounts"));
+    }
+}
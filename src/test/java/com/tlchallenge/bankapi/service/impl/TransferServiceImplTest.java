@@ -1,35 +1,88 @@
 package com.tlchallenge.bankapi.service.impl;
 
+import com.tlchallenge.bankapi.exception.AccountBusyException;
+import com.tlchallenge.bankapi.exception.AccountNotFoundException;
+import com.tlchallenge.bankapi.exception.InvalidCursorException;
 import com.tlchallenge.bankapi.exception.TransferRejectedException;
 import com.tlchallenge.bankapi.model.Account;
 import com.tlchallenge.bankapi.model.Transfer;
+import com.tlchallenge.bankapi.model.dto.AccountStatementPage;
+import com.tlchallenge.bankapi.model.dto.AccountView;
+import com.tlchallenge.bankapi.model.dto.CursorPage;
+import com.tlchallenge.bankapi.model.dto.TransferBatchItemResult;
 import com.tlchallenge.bankapi.model.dto.TransferDto;
+import com.tlchallenge.bankapi.model.dto.TransferView;
 import com.tlchallenge.bankapi.repository.AccountRepository;
 import com.tlchallenge.bankapi.repository.TransferRepository;
+import com.tlchallenge.bankapi.service.TransferMode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class TransferServiceImplTest {
 
+    private static final Logger log = LoggerFactory.getLogger(TransferServiceImplTest.class);
+
     @Mock
     private TransferRepository transferRepository;
 
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private TransferAuditWriter transferAuditWriter;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private DailySummaryRecorder dailySummaryRecorder;
+
+    @Mock
+    private AccountBulkhead accountBulkhead;
+
     @InjectMocks
     private TransferServiceImpl transferService;
 
@@ -41,6 +94,8 @@ class TransferServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
 
         transfer1 = new Transfer();
         transfer1.setId(1L);
@@ -71,24 +126,25 @@ class TransferServiceImplTest {
 
     @Test
     void testGetTransferById_found() {
-        when(transferRepository.findById(1L)).thenReturn(Optional.of(transfer1));
+        when(transferRepository.findViewById(1L)).thenReturn(Optional.of(view(transfer1)));
 
-        Optional<Transfer> result = transferService.getTransferById(1L);
+        Optional<TransferView> result = transferService.getTransferById(1L);
 
         assertTrue(result.isPresent());
-        assertEquals(transfer1.getId(), result.get().getId());
-        assertEquals(transfer1.getFromAccountId(), result.get().getFromAccountId());
-        verify(transferRepository, times(1)).findById(1L);
+        assertEquals(transfer1.getId(), result.get().id());
+        assertEquals(transfer1.getFromAccountId(), result.get().fromAccountId());
+        verify(transferRepository, times(1)).findViewById(1L);
+        verify(transferRepository, never()).findById(anyLong());
     }
 
     @Test
     void testGetTransferById_notFound() {
-        when(transferRepository.findById(99L)).thenReturn(Optional.empty());
+        when(transferRepository.findViewById(99L)).thenReturn(Optional.empty());
 
-        Optional<Transfer> result = transferService.getTransferById(99L);
+        Optional<TransferView> result = transferService.getTransferById(99L);
 
         assertFalse(result.isPresent());
-        verify(transferRepository, times(1)).findById(99L);
+        verify(transferRepository, times(1)).findViewById(99L);
     }
 
     @Test
@@ -97,61 +153,133 @@ class TransferServiceImplTest {
         account.setId(1L);
         account.setBalance(BigDecimal.valueOf(1000));
 
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountCache.findById(1L)).thenReturn(Optional.of(view(account)));
 
         BigDecimal balance = transferService.getAccountBalance(1L);
 
         assertEquals(BigDecimal.valueOf(1000), balance);
-        verify(accountRepository, times(1)).findById(1L);
+        verify(accountCache, times(1)).findById(1L);
     }
 
     @Test
     void testGetAccountBalance_notFound() {
-        when(accountRepository.findById(99L)).thenReturn(Optional.empty());
+        when(accountCache.findById(99L)).thenReturn(Optional.empty());
 
         assertThrows(IllegalArgumentException.class, () -> {
             transferService.getAccountBalance(99L);
         });
-        verify(accountRepository, times(1)).findById(99L);
+        verify(accountCache, times(1)).findById(99L);
     }
 
     @Test
-    void testGetAllTransfers() {
-        List<Transfer> expectedTransfers = Arrays.asList(transfer1, transfer2);
-        when(transferRepository.findAll()).thenReturn(expectedTransfers);
+    void testGetTransfers_moreRowsGiveNextCursor() {
+        when(transferRepository.findViewsAfter(0L, Limit.of(2)))
+                .thenReturn(Arrays.asList(view(transfer1), view(transfer2)));
 
-        List<Transfer> result = transferService.getAllTransfers();
+        CursorPage<TransferView> page = transferService.getTransfers(null, 1);
 
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals(transfer1.getId(), result.get(0).getId());
-        assertEquals(transfer2.getId(), result.get(1).getId());
-        verify(transferRepository, times(1)).findAll();
+        assertEquals(1, page.getItems().size());
+        assertEquals(transfer1.getId(), page.getItems().get(0).id());
+        assertEquals(transfer1.getId(), page.getNextCursor());
+        verify(transferRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetTransfers_lastPageHasNoCursor() {
+        when(transferRepository.findViewsAfter(1L, Limit.of(1001)))
+                .thenReturn(List.of(view(transfer2)));
+
+        CursorPage<TransferView> page = transferService.getTransfers(1L, 5000); // Clamped to the maximum page size
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
     }
 
     @Test
     void testGetTransfersByFromAccountId_success() {
-        List<Transfer> expectedTransfers = Arrays.asList(transfer2, transfer1);
-        when(transferRepository.findByFromAccountIdOrderByTransferDateDesc(1L)).thenReturn(expectedTransfers);
+        List<TransferView> expectedTransfers = Arrays.asList(view(transfer2), view(transfer1));
+        when(transferRepository.findViewsByFromAccountId(1L)).thenReturn(expectedTransfers);
 
-        List<Transfer> result = transferService.getTransfersByFromAccountId(1L);
+        List<TransferView> result = transferService.getTransfersByFromAccountId(1L);
 
         assertNotNull(result);
         assertEquals(2, result.size());
-        assertEquals(transfer2.getId(), result.get(0).getId());
-        assertEquals(transfer1.getId(), result.get(1).getId());
-        verify(transferRepository, times(1)).findByFromAccountIdOrderByTransferDateDesc(1L);
+        assertEquals(transfer2.getId(), result.get(0).id());
+        assertEquals(transfer1.getId(), result.get(1).id());
+        verify(transferRepository, times(1)).findViewsByFromAccountId(1L);
     }
 
     @Test
     void testGetTransfersByFromAccountId_emptyList() {
-        when(transferRepository.findByFromAccountIdOrderByTransferDateDesc(99L)).thenReturn(Arrays.asList());
+        when(transferRepository.findViewsByFromAccountId(99L)).thenReturn(Arrays.asList());
 
-        List<Transfer> result = transferService.getTransfersByFromAccountId(99L);
+        List<TransferView> result = transferService.getTransfersByFromAccountId(99L);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(transferRepository, times(1)).findByFromAccountIdOrderByTransferDateDesc(99L);
+        verify(transferRepository, times(1)).findViewsByFromAccountId(99L);
+    }
+
+    @Test
+    void testGetAccountStatement_mergesDirectionsAndGivesNextCursor() {
+        LocalDateTime newest = LocalDateTime.of(2026, 1, 2, 10, 0);
+        LocalDateTime older = LocalDateTime.of(2026, 1, 1, 10, 0);
+        List<TransferRepository.StatementRow> rows = List.of(
+                statementRow(7L, 4L, 1L, newest, "IN"),
+                statementRow(5L, 1L, 2L, older, "OUT"),
+                statementRow(3L, 1L, 3L, older.minusDays(1), "OUT"));
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(transferRepository.findStatement(1L, TransferRepository.NO_UPPER_BOUND, Long.MAX_VALUE, 3))
+                .thenReturn(rows);
+
+        AccountStatementPage page = transferService.getAccountStatement(1L, null, 2);
+
+        assertEquals(2, page.getEntries().size());
+        assertEquals("IN", page.getEntries().get(0).getDirection());
+        assertEquals(4L, page.getEntries().get(0).getCounterpartyAccountId());
+        assertEquals("OUT", page.getEntries().get(1).getDirection());
+        assertEquals(2L, page.getEntries().get(1).getCounterpartyAccountId());
+        assertEquals("2026-01-01T10:00_5", page.getNextCursor());
+    }
+
+    @Test
+    void testGetAccountStatement_cursorBoundsTheQuery() {
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(transferRepository.findStatement(1L, LocalDateTime.of(2026, 1, 1, 10, 0), 5L, 101))
+                .thenReturn(List.of());
+
+        AccountStatementPage page = transferService.getAccountStatement(1L, "2026-01-01T10:00_5", 100);
+
+        assertTrue(page.getEntries().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetAccountStatement_invalidCursor() {
+        when(accountRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(InvalidCursorException.class, () -> transferService.getAccountStatement(1L, "garbage", 100));
+        verify(transferRepository, never()).findStatement(anyLong(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void testGetAccountStatement_accountNotFound() {
+        when(accountRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(AccountNotFoundException.class, () -> transferService.getAccountStatement(99L, null, 100));
+    }
+
+    private TransferRepository.StatementRow statementRow(Long id, Long fromAccountId, Long toAccountId,
+                                                         LocalDateTime transferDate, String direction) {
+        TransferRepository.StatementRow row = mock(TransferRepository.StatementRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getFromAccountId()).thenReturn(fromAccountId);
+        when(row.getToAccountId()).thenReturn(toAccountId);
+        when(row.getAmount()).thenReturn(BigDecimal.TEN);
+        when(row.getTransferDate()).thenReturn(transferDate);
+        when(row.getStatus()).thenReturn("COMPLETED");
+        when(row.getDirection()).thenReturn(direction);
+        return row;
     }
 
     @Test
@@ -168,8 +296,8 @@ class TransferServiceImplTest {
         savedTransfer.setAmount(BigDecimal.valueOf(100));
         savedTransfer.setStatus("COMPLETED");
 
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(toAccount));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
         when(transferRepository.save(any(Transfer.class))).thenReturn(savedTransfer);
 
         Transfer result = transferService.createTransfer(transferDto);
@@ -179,6 +307,45 @@ class TransferServiceImplTest {
         assertEquals(BigDecimal.valueOf(100), result.getAmount());
         verify(accountRepository, times(2)).save(any(Account.class));
         verify(transferRepository, times(1)).save(any(Transfer.class));
+        verify(accountCache, times(1)).evictAfterCommit(1L, 2L);
+        verify(dailySummaryRecorder, times(1)).record(argThat((Transfer t) -> "COMPLETED".equals(t.getStatus())));
+    }
+
+    @Test
+    void testCreateTransfer_callbackRunsInsideTheTransferTransaction() {
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            inTransaction.set(true);
+            try {
+                return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+            } finally {
+                inTransaction.set(false);
+            }
+        });
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+        when(transferRepository.save(any(Transfer.class))).thenReturn(transfer1);
+        List<Transfer> seen = new ArrayList<>();
+
+        Transfer result = transferService.createTransfer(transferDto(1L, 2L, 100), created -> {
+            assertTrue(inTransaction.get());
+            seen.add(created);
+        });
+
+        assertEquals(List.of(result), seen);
+    }
+
+    @Test
+    void testCreateTransfer_failingCallbackFailsTheTransfer() {
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+        when(transferRepository.save(any(Transfer.class))).thenReturn(transfer1);
+        IllegalStateException failure = new IllegalStateException("Idempotency key claimed elsewhere");
+
+        assertSame(failure, assertThrows(IllegalStateException.class,
+                () -> transferService.createTransfer(transferDto(1L, 2L, 100), created -> {
+                    throw failure;
+                })));
     }
 
     @Test
@@ -188,13 +355,14 @@ class TransferServiceImplTest {
         transferDto.setToAccountId(2L);
         transferDto.setAmount(BigDecimal.valueOf(100));
 
-        when(accountRepository.findById(99L)).thenReturn(Optional.empty());
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+        when(accountRepository.findByIdForUpdate(99L)).thenReturn(Optional.empty());
 
         assertThrows(IllegalArgumentException.class, () -> {
             transferService.createTransfer(transferDto);
         });
 
-        verify(accountRepository, times(1)).findById(99L);
+        verify(accountRepository, times(1)).findByIdForUpdate(99L);
         verify(transferRepository, never()).save(any(Transfer.class));
     }
 
@@ -205,15 +373,15 @@ class TransferServiceImplTest {
         transferDto.setToAccountId(99L);
         transferDto.setAmount(BigDecimal.valueOf(100));
 
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findById(99L)).thenReturn(Optional.empty());
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(99L)).thenReturn(Optional.empty());
 
         assertThrows(IllegalArgumentException.class, () -> {
             transferService.createTransfer(transferDto);
         });
 
-        verify(accountRepository, times(1)).findById(1L);
-        verify(accountRepository, times(1)).findById(99L);
+        verify(accountRepository, times(1)).findByIdForUpdate(1L);
+        verify(accountRepository, times(1)).findByIdForUpdate(99L);
         verify(transferRepository, never()).save(any(Transfer.class));
     }
 
@@ -224,15 +392,16 @@ class TransferServiceImplTest {
         transferDto.setToAccountId(2L);
         transferDto.setAmount(null);
 
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(toAccount));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
 
         TransferRejectedException exception = assertThrows(TransferRejectedException.class, () -> {
             transferService.createTransfer(transferDto);
         });
 
         assertEquals("Invalid amount", exception.getReason());
-        verify(transferRepository, times(1)).save(any(Transfer.class)); // Saves with REJECTED status
+        verify(transferAuditWriter, times(1)).record(argThat(t -> "REJECTED".equals(t.getStatus())));
+        verify(transferRepository, never()).save(any(Transfer.class)); // Rejections go through the audit writer
     }
 
     @Test
@@ -242,15 +411,16 @@ class TransferServiceImplTest {
         transferDto.setToAccountId(2L);
         transferDto.setAmount(BigDecimal.ZERO);
 
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(toAccount));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
 
         TransferRejectedException exception = assertThrows(TransferRejectedException.class, () -> {
             transferService.createTransfer(transferDto);
         });
 
         assertEquals("Invalid amount", exception.getReason());
-        verify(transferRepository, times(1)).save(any(Transfer.class)); // Saves with REJECTED status
+        verify(transferAuditWriter, times(1)).record(argThat(t -> "REJECTED".equals(t.getStatus())));
+        verify(transferRepository, never()).save(any(Transfer.class)); // Rejections go through the audit writer
     }
 
     @Test
@@ -260,15 +430,16 @@ class TransferServiceImplTest {
         transferDto.setToAccountId(2L);
         transferDto.setAmount(BigDecimal.valueOf(-100));
 
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(toAccount));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
 
         TransferRejectedException exception = assertThrows(TransferRejectedException.class, () -> {
             transferService.createTransfer(transferDto);
         });
 
         assertEquals("Invalid amount", exception.getReason());
-        verify(transferRepository, times(1)).save(any(Transfer.class)); // Saves with REJECTED status
+        verify(transferAuditWriter, times(1)).record(argThat(t -> "REJECTED".equals(t.getStatus())));
+        verify(transferRepository, never()).save(any(Transfer.class)); // Rejections go through the audit writer
     }
 
     @Test
@@ -278,15 +449,608 @@ class TransferServiceImplTest {
         transferDto.setToAccountId(2L);
         transferDto.setAmount(BigDecimal.valueOf(2000)); // More than account balance
 
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(toAccount));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
 
         TransferRejectedException exception = assertThrows(TransferRejectedException.class, () -> {
             transferService.createTransfer(transferDto);
         });
 
         assertEquals("Insufficient funds", exception.getReason());
-        verify(transferRepository, times(1)).save(any(Transfer.class)); // Saves with REJECTED status
+        verify(transferAuditWriter, times(1)).record(argThat(t -> "REJECTED".equals(t.getStatus())));
+        verify(transferRepository, never()).save(any(Transfer.class)); // Rejections go through the audit writer
         verify(accountRepository, never()).save(any(Account.class)); // Accounts not updated
+        verify(dailySummaryRecorder, never()).record(any(Transfer.class));
+    }
+
+    @Test
+    void testCreateTransfer_unexpectedError_auditedAsFailed() {
+        TransferDto transferDto = new TransferDto();
+        transferDto.setFromAccountId(1L);
+        transferDto.setToAccountId(2L);
+        transferDto.setAmount(BigDecimal.valueOf(100));
+
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+        when(accountRepository.save(any(Account.class))).thenThrow(new DataAccessResourceFailureException("connection lost"));
+
+        assertThrows(RuntimeException.class, () -> transferService.createTransfer(transferDto));
+
+        verify(transferAuditWriter, times(1)).record(argThat(t -> "FAILED".equals(t.getStatus())));
+        verify(transferRepository, never()).save(any(Transfer.class));
+    }
+
+    @Test
+    void testCreateTransfer_conditionalUpdate_success() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferMode.CONDITIONAL_UPDATE);
+        TransferDto transferDto = new TransferDto();
+        transferDto.setFromAccountId(1L);
+        transferDto.setToAccountId(2L);
+        transferDto.setAmount(BigDecimal.valueOf(100));
+
+        when(accountRepository.debitIfSufficientFunds(1L, BigDecimal.valueOf(100))).thenReturn(1);
+        when(accountRepository.credit(2L, BigDecimal.valueOf(100))).thenReturn(1);
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Transfer result = transferService.createTransfer(transferDto);
+
+        assertEquals("COMPLETED", result.getStatus());
+        verify(accountRepository, never()).findById(anyLong());
+        verify(accountRepository, never()).save(any(Account.class));
+        verify(transferRepository, times(1)).save(any(Transfer.class));
+    }
+
+    @Test
+    void testCreateTransfer_conditionalUpdate_insufficientFunds() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferMode.CONDITIONAL_UPDATE);
+        TransferDto transferDto = new TransferDto();
+        transferDto.setFromAccountId(1L);
+        transferDto.setToAccountId(2L);
+        transferDto.setAmount(BigDecimal.valueOf(2000));
+
+        when(accountRepository.debitIfSufficientFunds(1L, BigDecimal.valueOf(2000))).thenReturn(0);
+        when(accountRepository.existsById(1L)).thenReturn(true);
+
+        TransferRejectedException exception = assertThrows(TransferRejectedException.class, () -> {
+            transferService.createTransfer(transferDto);
+        });
+
+        assertEquals("Insufficient funds", exception.getReason());
+        verify(accountRepository, never()).credit(anyLong(), any(BigDecimal.class));
+        verify(transferRepository, never()).save(any(Transfer.class));
+        verify(transferAuditWriter, times(1)).record(argThat(t -> "REJECTED".equals(t.getStatus())));
+    }
+
+    @Test
+    void testCreateTransfer_conditionalUpdate_fromAccountNotFound() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferMode.CONDITIONAL_UPDATE);
+        TransferDto transferDto = new TransferDto();
+        transferDto.setFromAccountId(1L);
+        transferDto.setToAccountId(2L);
+        transferDto.setAmount(BigDecimal.valueOf(100));
+
+        when(accountRepository.debitIfSufficientFunds(1L, BigDecimal.valueOf(100))).thenReturn(0);
+        when(accountRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(IllegalArgumentException.class, () -> transferService.createTransfer(transferDto));
+        verify(transferRepository, never()).save(any(Transfer.class));
+    }
+
+    @Test
+    void testCreateTransfer_conditionalUpdate_toAccountNotFound() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferMode.CONDITIONAL_UPDATE);
+        TransferDto transferDto = new TransferDto();
+        transferDto.setFromAccountId(2L);
+        transferDto.setToAccountId(1L);
+        transferDto.setAmount(BigDecimal.valueOf(100));
+
+        when(accountRepository.credit(1L, BigDecimal.valueOf(100))).thenReturn(0);
+
+        assertThrows(IllegalArgumentException.class, () -> transferService.createTransfer(transferDto));
+        verify(accountRepository, never()).debitIfSufficientFunds(anyLong(), any(BigDecimal.class));
+        verify(transferRepository, never()).save(any(Transfer.class));
+    }
+
+    @Test
+    void testCreateTransfer_crossingTransfersDoNotDeadlock() throws Exception {
+        // Each ReentrantLock plays the role of a row lock taken by SELECT ... FOR UPDATE.
+        // A lock that cannot be acquired within the timeout is reported as a deadlock,
+        // which is what Postgres would abort and the transfer-service retry would replay.
+        Map<Long, ReentrantLock> rowLocks = Map.of(1L, new ReentrantLock(), 2L, new ReentrantLock());
+        Map<Long, Account> accounts = Map.of(1L, fromAccount, 2L, toAccount);
+        ThreadLocal<List<ReentrantLock>> heldLocks = ThreadLocal.withInitial(ArrayList::new);
+        AtomicInteger deadlocks = new AtomicInteger();
+
+        when(accountRepository.findByIdForUpdate(anyLong())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            ReentrantLock lock = rowLocks.get(id);
+            if (!lock.tryLock(2, TimeUnit.SECONDS)) {
+                deadlocks.incrementAndGet();
+                throw new CannotAcquireLockException("Deadlock detected while locking account " + id);
+            }
+            heldLocks.get().add(lock);
+            return Optional.of(accounts.get(id));
+        });
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        int threads = 16;
+        int transfersPerThread = 500;
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean forward = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < transfersPerThread; i++) {
+                        TransferDto dto = new TransferDto();
+                        dto.setFromAccountId(forward ? 1L : 2L);
+                        dto.setToAccountId(forward ? 2L : 1L);
+                        dto.setAmount(BigDecimal.ONE);
+                        try {
+                            transferService.createTransfer(dto);
+                        } catch (TransferRejectedException e) {
+                            // Insufficient funds is a valid outcome, not a locking problem
+                        } catch (CannotAcquireLockException e) {
+                            failed.incrementAndGet();
+                        } finally {
+                            // Commit or rollback releases every row lock held by the transaction
+                            heldLocks.get().forEach(ReentrantLock::unlock);
+                            heldLocks.get().clear();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("Crossing transfer stress run: transfers={}, deadlocks={}, retriesNeeded={}",
+                threads * transfersPerThread, deadlocks.get(), failed.get());
+        assertEquals(0, deadlocks.get());
+        assertEquals(0, failed.get());
+        assertEquals(0, BigDecimal.valueOf(1500).compareTo(fromAccount.getBalance().add(toAccount.getBalance())));
+    }
+
+    @Test
+    void testCreateTransfer_crossingTransfersBothLockTheLowerIdFirst() throws Exception {
+        // Both transactions start together through the service; each records the order it asks for row locks.
+        // Locking in request order would give [1, 2] and [2, 1], which is how crossing transfers deadlock.
+        Map<Long, ReentrantLock> rowLocks = Map.of(1L, new ReentrantLock(), 2L, new ReentrantLock());
+        Map<Long, Account> accounts = Map.of(1L, fromAccount, 2L, toAccount);
+        ThreadLocal<List<Long>> lockOrder = ThreadLocal.withInitial(ArrayList::new);
+        ThreadLocal<List<ReentrantLock>> heldLocks = ThreadLocal.withInitial(ArrayList::new);
+        CyclicBarrier start = new CyclicBarrier(2);
+        AtomicInteger deadlocks = new AtomicInteger();
+
+        when(accountRepository.findByIdForUpdate(anyLong())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            lockOrder.get().add(id);
+            ReentrantLock lock = rowLocks.get(id);
+            if (!lock.tryLock(2, TimeUnit.SECONDS)) {
+                deadlocks.incrementAndGet();
+                throw new CannotAcquireLockException("Deadlock detected while locking account " + id);
+            }
+            heldLocks.get().add(lock);
+            return Optional.of(accounts.get(id));
+        });
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (long[] fromTo : new long[][]{{1L, 2L}, {2L, 1L}}) {
+                futures.add(executor.submit(() -> {
+                    start.await(5, TimeUnit.SECONDS);
+                    try {
+                        transferService.createTransfer(transferDto(fromTo[0], fromTo[1], 1));
+                    } finally {
+                        heldLocks.get().forEach(ReentrantLock::unlock);
+                        heldLocks.get().clear();
+                    }
+                    return lockOrder.get();
+                }));
+            }
+            for (Future<List<Long>> future : futures) {
+                assertEquals(List.of(1L, 2L), future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, deadlocks.get());
+    }
+
+    @Test
+    void testCreateTransfer_advisoryLock_locksAccountIdsInOrderBeforeReading() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferMode.ADVISORY_LOCK);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findById(2L)).thenReturn(Optional.of(toAccount));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Transfer result = transferService.createTransfer(transferDto(2L, 1L, 100));
+
+        assertEquals("COMPLETED", result.getStatus());
+        assertEquals(0, BigDecimal.valueOf(1100).compareTo(fromAccount.getBalance()));
+        assertEquals(0, BigDecimal.valueOf(400).compareTo(toAccount.getBalance()));
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).advisoryLock(AccountRepository.ACCOUNT_LOCK_NAMESPACE, 1);
+        inOrder.verify(accountRepository).advisoryLock(AccountRepository.ACCOUNT_LOCK_NAMESPACE, 2);
+        inOrder.verify(accountRepository, times(2)).findById(anyLong());
+        verify(accountRepository, never()).findByIdForUpdate(anyLong());
+        verify(accountRepository, times(2)).save(any(Account.class));
+    }
+
+    @Test
+    void testCreateTransfer_advisoryLock_locksInKeyOrderForIdsBeyondInt() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferMode.ADVISORY_LOCK);
+        long bigId = 1L << 32;
+        fromAccount.setId(5L);
+        toAccount.setId(bigId);
+        when(accountRepository.findById(5L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findById(bigId)).thenReturn(Optional.of(toAccount));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transferService.createTransfer(transferDto(5L, bigId, 100));
+
+        // 2^32 maps to key 1, so it is locked before account 5 whatever the id order
+        assertEquals(1, TransferServiceImpl.advisoryLockKey(bigId));
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).advisoryLock(AccountRepository.ACCOUNT_LOCK_NAMESPACE, 1);
+        inOrder.verify(accountRepository).advisoryLock(AccountRepository.ACCOUNT_LOCK_NAMESPACE, 5);
+    }
+
+    @Test
+    void testCreateTransfer_advisoryLock_toStripedAccountOnlyLocksTheSource() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferMode.ADVISORY_LOCK);
+        when(stripedBalanceService.isStriped(2L)).thenReturn(true);
+        when(stripedBalanceService.credit(2L, BigDecimal.valueOf(100))).thenReturn(true);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transferService.createTransfer(transferDto(1L, 2L, 100));
+
+        verify(accountRepository).advisoryLock(AccountRepository.ACCOUNT_LOCK_NAMESPACE, 1);
+        verify(accountRepository, never()).advisoryLock(AccountRepository.ACCOUNT_LOCK_NAMESPACE, 2);
+        verify(accountRepository, never()).findById(2L);
+    }
+
+    @Test
+    void testCreateTransfer_advisoryLock_accountNotFound() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferMode.ADVISORY_LOCK);
+        when(accountRepository.findById(1L)).thenReturn(Optional.empty());
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> transferService.createTransfer(transferDto(1L, 2L, 100)));
+
+        assertEquals("From account not found", exception.getMessage());
+        verify(transferRepository, never()).save(any(Transfer.class));
+    }
+
+    @Test
+    void testCreateTransfer_advisoryLock_crossingTransfersDoNotDeadlock() throws Exception {
+        // Each ReentrantLock plays the role of pg_advisory_xact_lock on one account key; reads take no lock
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferMode.ADVISORY_LOCK);
+        Map<Integer, ReentrantLock> advisoryLocks = Map.of(1, new ReentrantLock(), 2, new ReentrantLock());
+        ThreadLocal<List<ReentrantLock>> heldLocks = ThreadLocal.withInitial(ArrayList::new);
+        AtomicInteger deadlocks = new AtomicInteger();
+
+        when(accountRepository.advisoryLock(eq(AccountRepository.ACCOUNT_LOCK_NAMESPACE), anyInt())).thenAnswer(invocation -> {
+            Integer id = invocation.getArgument(1);
+            ReentrantLock lock = advisoryLocks.get(id);
+            if (!lock.tryLock(2, TimeUnit.SECONDS)) {
+                deadlocks.incrementAndGet();
+                throw new CannotAcquireLockException("Deadlock detected while locking account " + id);
+            }
+            heldLocks.get().add(lock);
+            return 1;
+        });
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findById(2L)).thenReturn(Optional.of(toAccount));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        int threads = 16;
+        int transfersPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean forward = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < transfersPerThread; i++) {
+                        try {
+                            transferService.createTransfer(transferDto(forward ? 1L : 2L, forward ? 2L : 1L, 1));
+                        } catch (TransferRejectedException e) {
+                            // Insufficient funds is a valid outcome, not a locking problem
+                        } finally {
+                            // Advisory locks taken with pg_advisory_xact_lock are released at commit or rollback
+                            heldLocks.get().forEach(ReentrantLock::unlock);
+                            heldLocks.get().clear();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, deadlocks.get());
+        assertEquals(0, BigDecimal.valueOf(1500).compareTo(fromAccount.getBalance().add(toAccount.getBalance())));
+        verify(accountRepository, never()).findByIdForUpdate(anyLong());
+    }
+
+    @Test
+    void testCreateTransfers_appliesChunksAndReportsEachItem() {
+        ReflectionTestUtils.setField(transferService, "batchChunkSize", 2);
+        List<TransferDto> batch = List.of(
+                transferDto(1L, 2L, 100),
+                transferDto(1L, 2L, 5000),
+                transferDto(1L, 99L, 10),
+                transferDto(2L, 1L, 50));
+
+        when(accountRepository.findAllByIdInForUpdate(any())).thenReturn(List.of(fromAccount, toAccount));
+        AtomicInteger ids = new AtomicInteger();
+        when(transferRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Transfer> transfers = invocation.getArgument(0);
+            transfers.forEach(transfer -> transfer.setId((long) ids.incrementAndGet()));
+            return transfers;
+        });
+
+        List<TransferBatchItemResult> results = transferService.createTransfers(batch);
+
+        assertEquals(4, results.size());
+        assertEquals("COMPLETED", results.get(0).getStatus());
+        assertNotNull(results.get(0).getTransferId());
+        assertEquals("REJECTED", results.get(1).getStatus());
+        assertEquals("Insufficient funds", results.get(1).getReason());
+        assertEquals("REJECTED", results.get(2).getStatus());
+        assertEquals("To account not found", results.get(2).getReason());
+        assertNull(results.get(2).getTransferId());
+        assertEquals("COMPLETED", results.get(3).getStatus());
+        assertEquals(3, results.get(3).getIndex());
+
+        assertEquals(0, BigDecimal.valueOf(950).compareTo(fromAccount.getBalance()));
+        assertEquals(0, BigDecimal.valueOf(550).compareTo(toAccount.getBalance()));
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(accountRepository, times(2)).findAllByIdInForUpdate(any());
+        verify(accountRepository, never()).findByIdForUpdate(anyLong());
+        verify(dailySummaryRecorder, times(2)).record(anyList());
+    }
+
+    @Test
+    void testCreateTransfersInOneTransaction_takesPermitsOfEveryAccountBeforeTheTransaction() {
+        when(accountRepository.findAllByIdInForUpdate(any())).thenReturn(List.of(fromAccount, toAccount));
+        when(transferRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transferService.createTransfersInOneTransaction(List.of(transferDto(2L, 1L, 10), transferDto(1L, 3L, 20)));
+
+        InOrder inOrder = inOrder(accountBulkhead, transactionTemplate);
+        inOrder.verify(accountBulkhead).acquireBulk(Set.of(1L, 2L, 3L));
+        inOrder.verify(transactionTemplate).execute(any());
+    }
+
+    @Test
+    void testCreateTransfers_busyChunkFallsBackToSingleTransfers() {
+        when(accountBulkhead.acquireBulk(any())).thenThrow(new AccountBusyException(1L));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<TransferBatchItemResult> results = transferService.createTransfers(List.of(transferDto(1L, 2L, 100)));
+
+        assertEquals("COMPLETED", results.get(0).getStatus());
+        verify(accountRepository, never()).findAllByIdInForUpdate(any());
+        verify(accountBulkhead).acquire(1L, 2L);
+    }
+
+    @Test
+    void testCreateTransfers_failedChunkIsRetriedOneByOne() {
+        ReflectionTestUtils.setField(transferService, "batchChunkSize", 1);
+        List<TransferDto> batch = List.of(transferDto(1L, 2L, 100), transferDto(2L, 1L, 50));
+
+        when(accountRepository.findAllByIdInForUpdate(any()))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenReturn(List.of(fromAccount, toAccount));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(transferRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<TransferBatchItemResult> results = transferService.createTransfers(batch);
+
+        assertEquals("COMPLETED", results.get(0).getStatus());
+        assertEquals("COMPLETED", results.get(1).getStatus());
+        assertEquals(0, BigDecimal.valueOf(950).compareTo(fromAccount.getBalance()));
+        verify(transferRepository, times(1)).save(any(Transfer.class));
+    }
+
+    @Test
+    void testCreateTransfers_onlyTheItemThatFailsAloneIsReportedAsFailed() {
+        List<TransferDto> batch = List.of(transferDto(1L, 2L, 100), transferDto(1L, 2L, 5000), transferDto(2L, 1L, 50));
+
+        when(accountRepository.findAllByIdInForUpdate(any())).thenThrow(new DataAccessResourceFailureException("connection lost"));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+        when(transferRepository.save(any(Transfer.class)))
+                .thenThrow(new DataAccessResourceFailureException("constraint violated"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<TransferBatchItemResult> results = transferService.createTransfers(batch);
+
+        assertEquals(3, results.size());
+        assertEquals("FAILED", results.get(0).getStatus());
+        assertEquals("REJECTED", results.get(1).getStatus());
+        assertEquals("Insufficient funds", results.get(1).getReason());
+        assertEquals("COMPLETED", results.get(2).getStatus());
+        assertEquals(2, results.get(2).getIndex());
+    }
+
+    @Test
+    void testCreateTransfers_conditionalUpdate_locksEveryAccountUpFrontInIdOrder() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferMode.CONDITIONAL_UPDATE);
+        List<TransferDto> batch = List.of(
+                transferDto(1L, 2L, 100),
+                transferDto(2L, 1L, 5000),
+                transferDto(1L, 99L, 10),
+                transferDto(2L, 1L, 50));
+
+        when(accountRepository.findAllByIdInForUpdate(any())).thenReturn(List.of(fromAccount, toAccount));
+        when(accountRepository.debitIfSufficientFunds(1L, BigDecimal.valueOf(100))).thenReturn(1);
+        when(accountRepository.credit(2L, BigDecimal.valueOf(100))).thenReturn(1);
+        when(accountRepository.debitIfSufficientFunds(2L, BigDecimal.valueOf(5000))).thenReturn(0);
+        when(accountRepository.existsById(2L)).thenReturn(true);
+        when(accountRepository.debitIfSufficientFunds(2L, BigDecimal.valueOf(50))).thenReturn(1);
+        when(accountRepository.credit(1L, BigDecimal.valueOf(50))).thenReturn(1);
+        when(transferRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<TransferBatchItemResult> results = transferService.createTransfers(batch);
+
+        assertEquals("COMPLETED", results.get(0).getStatus());
+        assertEquals("REJECTED", results.get(1).getStatus());
+        assertEquals("Insufficient funds", results.get(1).getReason());
+        assertEquals("REJECTED", results.get(2).getStatus());
+        assertEquals("To account not found", results.get(2).getReason());
+        assertEquals("COMPLETED", results.get(3).getStatus());
+
+        // Every account of the chunk is locked in one query before the first update, and none is locked per item
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).findAllByIdInForUpdate(argThat(ids -> List.copyOf(ids).equals(List.of(1L, 2L, 99L))));
+        inOrder.verify(accountRepository).debitIfSufficientFunds(1L, BigDecimal.valueOf(100));
+        verify(accountRepository, never()).findByIdForUpdate(anyLong());
+        verify(accountRepository, never()).credit(1L, BigDecimal.valueOf(5000));
+        verify(accountRepository, never()).debitIfSufficientFunds(1L, BigDecimal.valueOf(10));
+    }
+
+    @Test
+    void testCreateTransfers_advisoryLock_locksAccountIdsInOrderAndReadsWithoutForUpdate() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferMode.ADVISORY_LOCK);
+        List<TransferDto> batch = List.of(transferDto(2L, 1L, 50), transferDto(1L, 2L, 100));
+
+        when(accountRepository.findAllById(any())).thenReturn(List.of(fromAccount, toAccount));
+        when(transferRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<TransferBatchItemResult> results = transferService.createTransfers(batch);
+
+        assertEquals("COMPLETED", results.get(0).getStatus());
+        assertEquals("COMPLETED", results.get(1).getStatus());
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).advisoryLock(AccountRepository.ACCOUNT_LOCK_NAMESPACE, 1);
+        inOrder.verify(accountRepository).advisoryLock(AccountRepository.ACCOUNT_LOCK_NAMESPACE, 2);
+        inOrder.verify(accountRepository).findAllById(any());
+        verify(accountRepository, never()).findAllByIdInForUpdate(any());
+    }
+
+    @Test
+    void testCreateTransfer_toStripedAccount_creditsSlotWithoutLockingRow() {
+        when(stripedBalanceService.isStriped(2L)).thenReturn(true);
+        when(stripedBalanceService.credit(2L, BigDecimal.valueOf(100))).thenReturn(true);
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Transfer result = transferService.createTransfer(transferDto(1L, 2L, 100));
+
+        assertEquals("COMPLETED", result.getStatus());
+        assertEquals(2L, result.getToAccountId());
+        assertEquals(BigDecimal.valueOf(900), fromAccount.getBalance());
+        verify(accountRepository, never()).findByIdForUpdate(2L);
+        verify(accountRepository, times(1)).save(fromAccount);
+        verify(accountRepository, never()).credit(anyLong(), any(BigDecimal.class));
+    }
+
+    @Test
+    void testCreateTransfer_takesAccountPermitsBeforeTheTransaction() {
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transferService.createTransfer(transferDto(1L, 2L, 100));
+
+        InOrder inOrder = inOrder(accountBulkhead, transactionTemplate);
+        inOrder.verify(accountBulkhead).acquire(1L, 2L);
+        inOrder.verify(transactionTemplate).execute(any());
+    }
+
+    @Test
+    void testCreateTransfer_toStripedAccount_onlyTakesTheSourcePermit() {
+        when(stripedBalanceService.isStriped(2L)).thenReturn(true);
+        when(stripedBalanceService.credit(2L, BigDecimal.valueOf(100))).thenReturn(true);
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        transferService.createTransfer(transferDto(1L, 2L, 100));
+
+        verify(accountBulkhead).acquire(1L, null);
+    }
+
+    @Test
+    void testCreateTransfer_busyAccountNeverOpensATransaction() {
+        when(accountBulkhead.acquire(1L, 2L)).thenThrow(new AccountBusyException(1L));
+
+        assertThrows(AccountBusyException.class, () -> transferService.createTransfer(transferDto(1L, 2L, 100)));
+
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    void testCreateTransfer_fromStripedAccount_drainsSlotsWhenRowIsShort() {
+        fromAccount.setBalanceSlots(4);
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+        when(stripedBalanceService.drainSlots(1L)).thenReturn(BigDecimal.valueOf(1500));
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Transfer result = transferService.createTransfer(transferDto(1L, 2L, 2000));
+
+        assertEquals("COMPLETED", result.getStatus());
+        assertEquals(BigDecimal.valueOf(500), fromAccount.getBalance());
+        assertEquals(BigDecimal.valueOf(2500), toAccount.getBalance());
+    }
+
+    @Test
+    void testCreateTransfer_conditionalUpdate_consolidatesStripedAccountBeforeRejecting() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferMode.CONDITIONAL_UPDATE);
+        when(stripedBalanceService.isStriped(1L)).thenReturn(true);
+        when(accountRepository.debitIfSufficientFunds(1L, BigDecimal.valueOf(2000))).thenReturn(0, 1);
+        when(accountRepository.credit(2L, BigDecimal.valueOf(2000))).thenReturn(1);
+        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Transfer result = transferService.createTransfer(transferDto(1L, 2L, 2000));
+
+        assertEquals("COMPLETED", result.getStatus());
+        verify(stripedBalanceService, times(1)).consolidate(1L);
+        verify(accountRepository, times(2)).debitIfSufficientFunds(1L, BigDecimal.valueOf(2000));
+    }
+
+    @Test
+    void testGetAccountBalance_stripedAccountIncludesSlots() {
+        fromAccount.setBalanceSlots(8);
+        when(accountCache.findById(1L)).thenReturn(Optional.of(new AccountView(1L, "12345", BigDecimal.valueOf(1000),
+                null, null, 3L, 8, BigDecimal.valueOf(250))));
+
+        assertEquals(BigDecimal.valueOf(1250), transferService.getAccountBalance(1L));
+    }
+
+    private static TransferView view(Transfer transfer) {
+        return new TransferView(transfer.getId(), transfer.getFromAccountId(), transfer.getToAccountId(),
+                transfer.getAmount(), transfer.getTransferDate(), transfer.getStatus());
+    }
+
+    private static AccountView view(Account account) {
+        return new AccountView(account.getId(), account.getAccountNumber(), account.getBalance(),
+                account.getCreatedAt(), account.getUpdatedAt(), account.getVersion(), account.getBalanceSlots(), BigDecimal.ZERO);
+    }
+
+    private TransferDto transferDto(Long fromAccountId, Long toAccountId, long amount) {
+        TransferDto dto = new TransferDto();
+        dto.setFromAccountId(fromAccountId);
+        dto.setToAccountId(toAccountId);
+        dto.setAmount(BigDecimal.valueOf(amount));
+        return dto;
     }
-}
\ No newline at end of file
+}
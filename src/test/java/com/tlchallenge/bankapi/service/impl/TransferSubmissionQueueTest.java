@@ -0,0 +1,161 @@
+package com.tlchallenge.bankapi.service.impl;
+
+import com.tlchallenge.bankapi.exception.TransferQueueFullException;
+import com.tlchallenge.bankapi.exception.TransferRejectedException;
+import com.tlchallenge.bankapi.model.Transfer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferSubmissionQueueTest {
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private TransferSubmissionQueue transferSubmissionQueue;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(transferSubmissionQueue, "queueCapacity", 2);
+        ReflectionTestUtils.setField(transferSubmissionQueue, "workerCount", 1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        transferSubmissionQueue.stop();
+    }
+
+    @Test
+    void testSubmittedTransferCompletesOnAWorker() throws Exception {
+        transferSubmissionQueue.start();
+
+        CompletableFuture<Transfer> result = transferSubmissionQueue.submit(() -> transfer(1L));
+
+        assertEquals(1L, result.get(5, TimeUnit.SECONDS).getId());
+        assertEquals(1, meterRegistry.get(TransferSubmissionQueue.WAIT_METRIC).timer().count());
+    }
+
+    @Test
+    void testFullQueueIsRejectedAtOnce() throws Exception {
+        transferSubmissionQueue.start();
+        CountDownLatch started = new CountDownLatch(1);
+        transferSubmissionQueue.submit(() -> {
+            started.countDown();
+            await(release);
+            return transfer(1L);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        transferSubmissionQueue.submit(() -> transfer(2L));
+        transferSubmissionQueue.submit(() -> transfer(3L));
+
+        TransferQueueFullException exception = assertThrows(TransferQueueFullException.class,
+                () -> transferSubmissionQueue.submit(() -> transfer(4L)));
+
+        assertEquals(1, exception.getRetryAfterSeconds());
+        assertEquals(2.0, meterRegistry.get(TransferSubmissionQueue.QUEUE_METRIC).gauge().value());
+        assertEquals(1.0, meterRegistry.get(TransferSubmissionQueue.REJECTED_METRIC).tag("reason", "full")
+                .counter().count());
+    }
+
+    @Test
+    void testTransferWaitingLongerThanMaxWaitIsRejected() throws Exception {
+        ReflectionTestUtils.setField(transferSubmissionQueue, "maxWaitMs", 50L);
+        transferSubmissionQueue.start();
+        CountDownLatch started = new CountDownLatch(1);
+        transferSubmissionQueue.submit(() -> {
+            started.countDown();
+            await(release);
+            return transfer(1L);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Transfer> late = transferSubmissionQueue.submit(() -> transfer(2L));
+
+        Thread.sleep(100);
+        release.countDown();
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TransferQueueFullException.class, exception.getCause());
+        assertEquals(1.0, meterRegistry.get(TransferSubmissionQueue.REJECTED_METRIC).tag("reason", "expired")
+                .counter().count());
+    }
+
+    @Test
+    void testTransferFailureCompletesTheFutureExceptionally() {
+        transferSubmissionQueue.start();
+
+        CompletableFuture<Transfer> result = transferSubmissionQueue.submit(() -> {
+            throw new TransferRejectedException(1L, 2L, "Insufficient funds");
+        });
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TransferRejectedException.class, exception.getCause());
+    }
+
+    @Test
+    void testUnexpectedErrorIsAnsweredAndTheWorkerKeepsGoing() throws Exception {
+        transferSubmissionQueue.start();
+
+        CompletableFuture<Transfer> failed = transferSubmissionQueue.submit(() -> {
+            throw new StackOverflowError();
+        });
+        CompletableFuture<Transfer> next = transferSubmissionQueue.submit(() -> transfer(2L));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(StackOverflowError.class, exception.getCause());
+        assertEquals(2L, next.get(5, TimeUnit.SECONDS).getId());
+    }
+
+    @Test
+    void testDeadWorkerIsReplaced() throws Exception {
+        transferSubmissionQueue.start();
+        Thread worker = workers().get(0);
+
+        // Stands in for an error thrown outside a transfer, which kills the worker thread
+        worker.getUncaughtExceptionHandler().uncaughtException(worker, new OutOfMemoryError());
+
+        Thread replacement = workers().get(0);
+        assertNotSame(worker, replacement);
+        assertTrue(replacement.isAlive());
+        assertEquals(1L, transferSubmissionQueue.submit(() -> transfer(1L)).get(5, TimeUnit.SECONDS).getId());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Thread> workers() {
+        return (List<Thread>) ReflectionTestUtils.getField(transferSubmissionQueue, "workers");
+    }
+
+    private static Transfer transfer(Long id) {
+        Transfer transfer = new Transfer(1L, 2L, BigDecimal.TEN);
+        transfer.setId(id);
+        transfer.setStatus("COMPLETED");
+        return transfer;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}